@@ -0,0 +1,122 @@
+package com.rak.student.async;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor that runs tasks on a delegate while letting at most {@code maxConcurrency} of them execute at once.
+ * <p>
+ * Tasks beyond the limit wait for a permit in submission order. With a virtual-thread delegate a waiting task costs
+ * next to nothing, and keeping the limit at the connection pool size means blocking JDBC calls never pin more
+ * carrier threads than there are connections to wait on.
+ * <p>
+ * Publishes, tagged with {@code name}:
+ * <ul>
+ *     <li>{@code executor.bounded.queued} - tasks submitted but not yet running</li>
+ *     <li>{@code executor.bounded.active} - tasks currently running</li>
+ *     <li>{@code executor.bounded.wait} - time from submission until a task starts running</li>
+ *     <li>{@code executor.bounded.execution} - task run time</li>
+ * </ul>
+ */
+@Slf4j
+public class BoundedExecutor implements Executor, AutoCloseable {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Timer executionTimer;
+    private final TaskDecorator taskDecorator;
+
+    public BoundedExecutor(String name, ExecutorService delegate, int maxConcurrency, MeterRegistry meterRegistry) {
+        this(name, delegate, maxConcurrency, meterRegistry, task -> task);
+    }
+
+    /**
+     * @param taskDecorator applied to every task on the submitting thread, to carry thread-bound context
+     *                      (such as per-request statistics) over to the thread that runs it
+     */
+    public BoundedExecutor(String name, ExecutorService delegate, int maxConcurrency, MeterRegistry meterRegistry,
+                           TaskDecorator taskDecorator) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.taskDecorator = taskDecorator;
+
+        Gauge.builder("executor.bounded.queued", queued, AtomicInteger::get)
+                .tag("name", name)
+                .description("tasks submitted but not yet running")
+                .register(meterRegistry);
+        Gauge.builder("executor.bounded.active", permits, p -> maxConcurrency - p.availablePermits())
+                .tag("name", name)
+                .description("tasks currently running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("executor.bounded.wait")
+                .tag("name", name)
+                .description("time from submission until a task starts running")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.executionTimer = Timer.builder("executor.bounded.execution")
+                .tag("name", name)
+                .description("task run time")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long submittedAt = System.nanoTime();
+        Runnable decorated = taskDecorator.decorate(task);
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> run(decorated, submittedAt));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task, long submittedAt) {
+        permits.acquireUninterruptibly();
+        queued.decrementAndGet();
+        waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        try {
+            executionTimer.record(task);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        delegate.shutdown();
+        if (!delegate.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("executor {} did not terminate in time, {} tasks still queued", name, queued.get());
+            delegate.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.rak.student.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.rak.student.dto.StaleStudentDTO;
+import com.rak.student.dto.StudentDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Recently served students by roll number, kept so roll number lookups can still be answered, marked stale,
+ * while the circuit breaker is open or the database is failing.
+ * <p>
+ * Bounded by {@code student.last-known-good.maximum-size} entries, each dropped {@code student.last-known-good.ttl}
+ * after it was last stored. Published as the {@code cache.*} actuator metrics with {@code cache=studentLastKnownGood}.
+ */
+@Component
+public class LastKnownGoodStore {
+
+    public static final String NAME = "studentLastKnownGood";
+
+    private final Cache<String, Entry> cache;
+    private final Clock clock;
+
+    @Autowired
+    public LastKnownGoodStore(MeterRegistry meterRegistry,
+                              @Value("${student.last-known-good.maximum-size:10000}") long maximumSize,
+                              @Value("${student.last-known-good.ttl:1h}") Duration ttl) {
+        this(meterRegistry, maximumSize, ttl, Ticker.systemTicker(), Clock.systemUTC());
+    }
+
+    LastKnownGoodStore(MeterRegistry meterRegistry, long maximumSize, Duration ttl, Ticker ticker, Clock clock) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.clock = clock;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    public void put(StudentDTO student) {
+        cache.put(student.getRollNumber(), new Entry(student, clock.instant()));
+    }
+
+    /**
+     * Returns a stale copy of the last student served for the given roll number, if one is still held.
+     */
+    public Optional<StaleStudentDTO> getStale(String rollNo) {
+        Entry entry = cache.getIfPresent(rollNo);
+        return entry == null ? Optional.empty() : Optional.of(new StaleStudentDTO(entry.student(), entry.storedAt()));
+    }
+
+    public void invalidate(String rollNo) {
+        cache.invalidate(rollNo);
+    }
+
+    /**
+     * Snapshot of the roll numbers currently held, for a bulk refresh.
+     */
+    public List<String> rollNumbers() {
+        return List.copyOf(cache.asMap().keySet());
+    }
+
+    private record Entry(StudentDTO student, Instant storedAt) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.rak.student.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Size-bounded rollNumber to student id lookup, evicted with Caffeine's W-TinyLFU policy.
+ * <p>
+ * Roll numbers found not to exist are remembered separately for a short time, so repeated lookups of an unknown
+ * roll number are answered without querying the database. Storing an id for a roll number clears its negative entry.
+ * <p>
+ * Hit, miss and eviction counts are published as the {@code cache.*} actuator metrics with
+ * {@code cache=rollNumberCache} and {@code cache=rollNumberMissCache}.
+ */
+@Component
+public class RollNumberCache {
+
+    public static final String NAME = "rollNumberCache";
+    public static final String MISS_NAME = "rollNumberMissCache";
+
+    private final Cache<String, Long> cache;
+    private final Cache<String, Boolean> misses;
+
+    @Autowired
+    public RollNumberCache(MeterRegistry meterRegistry,
+                           @Value("${student.roll-number-cache.maximum-size:100000}") long maximumSize,
+                           @Value("${student.roll-number-cache.miss-maximum-size:10000}") long missMaximumSize,
+                           @Value("${student.roll-number-cache.miss-ttl:30s}") Duration missTtl) {
+        this(meterRegistry, maximumSize, missMaximumSize, missTtl, Ticker.systemTicker());
+    }
+
+    RollNumberCache(MeterRegistry meterRegistry, long maximumSize, long missMaximumSize, Duration missTtl, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(missMaximumSize)
+                .expireAfterWrite(missTtl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, misses, MISS_NAME);
+    }
+
+    /**
+     * Returns the id of the student with the given roll number, or null if it is not cached.
+     */
+    public Long get(String rollNo) {
+        return cache.getIfPresent(rollNo);
+    }
+
+    public void put(String rollNo, Long studentId) {
+        misses.invalidate(rollNo);
+        cache.put(rollNo, studentId);
+    }
+
+    public void invalidate(String rollNo) {
+        cache.invalidate(rollNo);
+    }
+
+    /**
+     * Returns true if the roll number was recently looked up and found not to exist.
+     */
+    public boolean isKnownMissing(String rollNo) {
+        return misses.getIfPresent(rollNo) != null;
+    }
+
+    public void putMissing(String rollNo) {
+        misses.put(rollNo, Boolean.TRUE);
+    }
+
+    public void invalidateMissing(String rollNo) {
+        misses.invalidate(rollNo);
+    }
+}
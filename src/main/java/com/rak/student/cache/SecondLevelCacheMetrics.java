@@ -0,0 +1,125 @@
+package com.rak.student.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.Expirable;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.cache.CacheManager;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Publishes per-region statistics of the Hibernate second-level cache, tagged with {@code region}:
+ * <ul>
+ *     <li>{@code hibernate.l2.requests} hits and misses, and {@code hibernate.l2.puts}, from Hibernate statistics</li>
+ *     <li>{@code hibernate.l2.hit.ratio}, hits over hits plus misses since startup</li>
+ *     <li>{@code hibernate.l2.entries}, the estimated entry count of the backing Caffeine cache</li>
+ *     <li>{@code hibernate.l2.size}, the estimated footprint in bytes: the entry count times the average
+ *     serialized size of up to {@value #FOOTPRINT_SAMPLE} sampled entries</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheMetrics implements MeterBinder {
+
+    static final int FOOTPRINT_SAMPLE = 64;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactory.class).unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        RegionFactory regionFactory = sessionFactory.getCache().getRegionFactory();
+        CacheManager cacheManager = regionFactory instanceof JCacheRegionFactory jcache ? jcache.getCacheManager() : null;
+
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            Tags tags = Tags.of("region", region);
+            FunctionCounter.builder("hibernate.l2.requests", regionStatistics, CacheRegionStatistics::getHitCount)
+                    .tags(tags).tag("result", "hit").register(registry);
+            FunctionCounter.builder("hibernate.l2.requests", regionStatistics, CacheRegionStatistics::getMissCount)
+                    .tags(tags).tag("result", "miss").register(registry);
+            FunctionCounter.builder("hibernate.l2.puts", regionStatistics, CacheRegionStatistics::getPutCount)
+                    .tags(tags).register(registry);
+            Gauge.builder("hibernate.l2.hit.ratio", regionStatistics, SecondLevelCacheMetrics::hitRatio)
+                    .tags(tags).register(registry);
+
+            Cache<?, ?> cache = underlyingCache(cacheManager, region);
+            if (cache != null) {
+                Gauge.builder("hibernate.l2.entries", cache, Cache::estimatedSize)
+                        .tags(tags).register(registry);
+                Gauge.builder("hibernate.l2.size", cache, SecondLevelCacheMetrics::estimatedBytes)
+                        .tags(tags).baseUnit("bytes").register(registry);
+            }
+        }
+    }
+
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        long requests = statistics.getHitCount() + statistics.getMissCount();
+        return requests == 0 ? 0 : (double) statistics.getHitCount() / requests;
+    }
+
+    private static Cache<?, ?> underlyingCache(CacheManager cacheManager, String region) {
+        if (cacheManager == null) {
+            return null;
+        }
+        javax.cache.Cache<Object, Object> cache = cacheManager.getCache(region);
+        return cache == null ? null : cache.unwrap(Cache.class);
+    }
+
+    static double estimatedBytes(Cache<?, ?> cache) {
+        long entries = cache.estimatedSize();
+        if (entries == 0) {
+            return 0;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        int sampled = 0;
+        Iterator<? extends Map.Entry<?, ?>> iterator = cache.asMap().entrySet().iterator();
+        while (sampled < FOOTPRINT_SAMPLE && iterator.hasNext()) {
+            Map.Entry<?, ?> entry = iterator.next();
+            try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+                out.writeObject(entry.getKey());
+                out.writeObject(entry.getValue() instanceof Expirable<?> expirable ? expirable.get() : entry.getValue());
+            } catch (IOException e) {
+                continue;
+            }
+            sampled++;
+        }
+        return sampled == 0 ? Double.NaN : (double) counter.count / sampled * entries;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
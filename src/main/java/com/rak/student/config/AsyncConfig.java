@@ -0,0 +1,124 @@
+package com.rak.student.config;
+
+import com.rak.student.async.BoundedExecutor;
+import com.rak.student.async.SingleFlight;
+import com.rak.student.dto.StudentDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.CompositeTaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+@Slf4j
+public class AsyncConfig {
+
+    public static final String STUDENT_QUERY_EXECUTOR = "studentQueryExecutor";
+    public static final String MVC_TASK_EXECUTOR = "mvcTaskExecutor";
+    public static final String SHARD_STREAM_EXECUTOR = "shardStreamExecutor";
+
+    /**
+     * Request attribute set by handlers whose asynchronous response streams for longer than the default
+     * {@code spring.mvc.async.request-timeout} allows, such as the student export and import. Their response times out
+     * after {@code student.async.stream-timeout} instead.
+     */
+    public static final String LONG_STREAM_ATTRIBUTE = AsyncConfig.class.getName() + ".longStream";
+
+    /**
+     * Executor for asynchronous service methods that block on the database.
+     * Runs on virtual threads by default ({@code student.async.mode=virtual}), or on a fixed pool of
+     * {@code student.async.platform-pool-size} platform threads ({@code student.async.mode=platform}).
+     * Either way at most {@code student.async.max-concurrency} tasks run at once, which defaults to the Hikari pool size.
+     * Every {@link TaskDecorator} bean is applied to submitted tasks, in order.
+     */
+    @Bean(name = STUDENT_QUERY_EXECUTOR)
+    public BoundedExecutor studentQueryExecutor(MeterRegistry meterRegistry,
+                                                ObjectProvider<TaskDecorator> taskDecorators,
+                                                @Value("${student.async.mode:virtual}") String mode,
+                                                @Value("${student.async.platform-pool-size:10}") int platformPoolSize,
+                                                @Value("${student.async.max-concurrency:10}") int maxConcurrency) {
+        ExecutorService delegate = switch (mode) {
+            case "virtual" -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("student-query-", 0).factory());
+            case "platform" -> Executors.newFixedThreadPool(platformPoolSize, new CustomizableThreadFactory("student-query-"));
+            default -> throw new IllegalArgumentException("student.async.mode must be virtual or platform but was " + mode);
+        };
+        log.info("student query executor uses {} threads with max concurrency {}", mode, maxConcurrency);
+        TaskDecorator taskDecorator = new CompositeTaskDecorator(taskDecorators.orderedStream().toList());
+        return new BoundedExecutor(STUDENT_QUERY_EXECUTOR, delegate, maxConcurrency, meterRegistry, taskDecorator);
+    }
+
+    /**
+     * Executor for asynchronous MVC responses, such as the {@code StreamingResponseBody} of the student export and
+     * import, which hold a connection for as long as they stream. Runs them on virtual threads with the
+     * {@link TaskDecorator} beans applied, which Spring MVC's fallback executor would not do, and at most
+     * {@code student.async.mvc-max-concurrency} at once, which defaults to the Hikari pool size.
+     */
+    @Bean(name = MVC_TASK_EXECUTOR)
+    public BoundedExecutor mvcTaskExecutor(MeterRegistry meterRegistry,
+                                           ObjectProvider<TaskDecorator> taskDecorators,
+                                           @Value("${student.async.mvc-max-concurrency:10}") int maxConcurrency) {
+        ExecutorService delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mvc-async-", 0).factory());
+        TaskDecorator taskDecorator = new CompositeTaskDecorator(taskDecorators.orderedStream().toList());
+        return new BoundedExecutor(MVC_TASK_EXECUTOR, delegate, maxConcurrency, meterRegistry, taskDecorator);
+    }
+
+    @Bean
+    public WebMvcConfigurer mvcAsyncSupportConfigurer(@Qualifier(MVC_TASK_EXECUTOR) BoundedExecutor mvcTaskExecutor,
+                                                      @Value("${student.async.stream-timeout:30m}") Duration streamTimeout) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+                configurer.setTaskExecutor(new TaskExecutorAdapter(mvcTaskExecutor));
+                configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        // concurrent handling has not started yet, so the timeout can still be changed
+                        if (request instanceof AsyncWebRequest asyncRequest
+                                && request.getAttribute(LONG_STREAM_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+                            asyncRequest.setTimeout(streamTimeout.toMillis());
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Executor for the per-shard streams of an ordered merge. Runs every stream on its own virtual thread with the
+     * {@link TaskDecorator} beans applied. It is not bounded: a merge needs all of its streams running, and the request
+     * running the merge already holds a permit of its own executor.
+     */
+    @Bean(name = SHARD_STREAM_EXECUTOR)
+    public SimpleAsyncTaskExecutor shardStreamExecutor(ObjectProvider<TaskDecorator> taskDecorators) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("shard-stream-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(new CompositeTaskDecorator(taskDecorators.orderedStream().toList()));
+        return executor;
+    }
+
+    /**
+     * Coalesces concurrent lookups of the same roll number into one database query.
+     */
+    @Bean
+    public SingleFlight<String, StudentDTO> rollNumberLookups(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("rollNumberLookups", meterRegistry);
+    }
+}
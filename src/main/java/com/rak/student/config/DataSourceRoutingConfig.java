@@ -0,0 +1,89 @@
+package com.rak.student.config;
+
+import com.rak.student.datasource.ReadWriteRoutingDataSource;
+import com.rak.student.datasource.ReadYourWrites;
+import com.rak.student.datasource.ReadYourWritesFilter;
+import com.rak.student.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single auto-configured data source with a primary and one or more replicas when
+ * {@code student.datasource.routing.enabled=true}. Read-only transactions are served by replicas within the tolerated
+ * lag, everything else and reads of clients that just wrote by the primary.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "student.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@Slf4j
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadYourWrites readYourWrites() {
+        return new ReadYourWrites();
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWrites readYourWrites, DataSourceRoutingProperties routing) {
+        return new ReadYourWritesFilter(readYourWrites, routing.getReadYourWritesWindow(), Clock.systemUTC());
+    }
+
+    /**
+     * The pools behind the routing. Only the lazy {@link #dataSource} in front of it uses it directly; everything else
+     * is given that proxy, which is the primary data source bean.
+     */
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties routing,
+                                                        ReadYourWrites readYourWrites, Environment environment, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaLagMonitor.Replica> monitored = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replica : routing.getReplicas()) {
+            String name = "replica-" + replicas.size();
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername());
+            pool.setPassword(replica.getPassword());
+            pool.setReadOnly(true);
+            pool.setMaximumPoolSize(replica.getMaximumPoolSize() != null ? replica.getMaximumPoolSize() : primary.getMaximumPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(name, pool);
+            monitored.add(new ReplicaLagMonitor.Replica(name, pool, replica.getLagQuery()));
+        }
+
+        ReplicaLagMonitor replicaLagMonitor = new ReplicaLagMonitor(monitored, routing.getMaxReplicaLag(), meterRegistry);
+        replicaLagMonitor.start(routing.getLagCheckInterval());
+        log.info("routing reads to {} replicas with max lag {}", replicas.size(), routing.getMaxReplicaLag());
+        return new ReadWriteRoutingDataSource(primary, replicas, replicaLagMonitor, readYourWrites, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
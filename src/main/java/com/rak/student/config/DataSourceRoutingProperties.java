@@ -0,0 +1,56 @@
+package com.rak.student.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the read/write data source routing under {@code student.datasource.routing}.
+ * The primary is configured by the usual {@code spring.datasource.*} properties.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "student.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Replicas lagging further behind the primary take no reads.
+     */
+    private Duration maxReplicaLag = Duration.ofSeconds(5);
+
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long a client's reads stay on the primary after it wrote.
+     */
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Setter
+    @Getter
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Returns the replica's lag behind the primary in seconds. Without one the replica counts as in sync while it answers.
+         */
+        private String lagQuery;
+
+        /**
+         * Defaults to the primary's pool size.
+         */
+        private Integer maximumPoolSize;
+    }
+}
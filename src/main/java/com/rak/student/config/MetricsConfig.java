@@ -0,0 +1,20 @@
+package com.rak.student.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Times methods of classes annotated with {@link io.micrometer.core.annotation.Timed}, tagged with
+     * {@code class} and {@code method}. Histograms and percentiles are configured per meter name in
+     * {@code management.metrics.distribution.*}.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,95 @@
+package com.rak.student.config;
+
+import com.rak.student.shard.ShardRoutingDataSource;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.shard.ShardSchemaInitializer;
+import com.rak.student.shard.ShardedSequenceGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured data source with one pool per shard when {@code student.sharding.enabled=true}.
+ * Read/write routing is not supported alongside: its replicas mirror a single primary, so with sharding every
+ * transaction goes to its shard's one database.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "student.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+@Slf4j
+public class ShardingConfig {
+
+    /**
+     * One pool per shard. Only the lazy {@link #dataSource} in front of it uses it directly; everything else is given
+     * that proxy, which is the primary data source bean.
+     */
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties dataSourceProperties, ShardingProperties sharding,
+                                                         Environment environment, MeterRegistry meterRegistry) {
+        if (environment.getProperty("student.datasource.routing.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("student.sharding and student.datasource.routing cannot be enabled together: "
+                    + "the routing replicas mirror a single primary and cannot be configured per shard");
+        }
+        if (sharding.getShards().isEmpty() || sharding.getShards().size() >= ShardRouter.MAX_SHARDS) {
+            throw new IllegalStateException("student.sharding.shards must list between 1 and " + (ShardRouter.MAX_SHARDS - 1) + " shards besides spring.datasource");
+        }
+        HikariDataSource first = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(first));
+        first.setPoolName("shard-0");
+        first.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        List<HikariDataSource> shards = new ArrayList<>(List.of(first));
+        for (ShardingProperties.Shard shard : sharding.getShards()) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shards.size());
+            pool.setJdbcUrl(shard.getUrl());
+            pool.setUsername(shard.getUsername());
+            pool.setPassword(shard.getPassword());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize() != null ? shard.getMaximumPoolSize() : first.getMaximumPoolSize());
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            shards.add(pool);
+        }
+        log.info("sharding students across {} databases", shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    /**
+     * Tells the {@link ShardedSequenceGenerator} how many shards there are and, with {@code student.sharding.initialize-schema},
+     * creates the schema on the other shards along with shard 0's.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernateProperties(ShardRoutingDataSource shardRoutingDataSource, ShardingProperties sharding) {
+        return properties -> {
+            properties.put(ShardedSequenceGenerator.SHARDS, shardRoutingDataSource.size());
+            if (sharding.isInitializeSchema()) {
+                ShardSchemaInitializer initializer = new ShardSchemaInitializer(shardRoutingDataSource, new ClassPathResource("schema.sql"));
+                properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(initializer));
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.rak.student.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the student sharding under {@code student.sharding}.
+ * Shard 0 is configured by the usual {@code spring.datasource.*} properties; {@link #shards} lists the others.
+ */
+@Setter
+@Getter
+@ConfigurationProperties(prefix = "student.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * Creates the schema on every shard but shard 0 at startup, for shards that are not managed by other means.
+     */
+    private boolean initializeSchema;
+
+    /**
+     * Shards 1 and up, in order. Shards must not be reordered or removed once they hold students.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Setter
+    @Getter
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        /**
+         * Defaults to shard 0's pool size.
+         */
+        private Integer maximumPoolSize;
+    }
+}
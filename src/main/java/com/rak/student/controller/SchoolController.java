@@ -1,10 +1,17 @@
 package com.rak.student.controller;
 
+import com.rak.student.dto.CollectionVersion;
+import com.rak.student.dto.CursorPage;
 import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.dto.StudentDTO;
 import com.rak.student.service.SchoolService;
+import com.rak.student.util.ETags;
+import com.rak.student.util.Utility;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,8 +19,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -22,20 +32,72 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SchoolController {
 
+    private static final String INCLUDE_STUDENTS_SUMMARY = "summary";
+
     private final SchoolService schoolService;
 
     @GetMapping
-    @Operation(summary = "get list of all schools")
-    public ResponseEntity<List<SchoolDTO>> getAllSchools() {
-        List<SchoolDTO> schools = schoolService.getAllSchools();
-        return new ResponseEntity<>(schools, HttpStatus.OK);
+    @Operation(summary = "get a page of schools", description = "keyset paginated, pass the returned next cursor as after to fetch the following page. " +
+            "Returns 304 when If-None-Match holds the page's current ETag")
+    public ResponseEntity<CursorPage<SchoolDTO>> getAllSchools(@RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        CollectionVersion version = schoolService.getSchoolsVersion();
+        String etag = ETags.ofCollection("schools", version.count(), version.maxId(), version.versionSum(),
+                after == null ? 0L : after, Utility.resolvePageSize(limit));
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        CursorPage<SchoolDTO> schools = schoolService.getAllSchools(after, limit);
+        return ResponseEntity.ok().eTag(etag).body(schools);
     }
 
 
+    @GetMapping("/stats")
+    @Operation(summary = "get student counts of every school", description = "total and per grade, for every school with students, " +
+            "served from memory")
+    public ResponseEntity<List<SchoolStatsDTO>> getSchoolsStats() {
+        return new ResponseEntity<>(schoolService.getSchoolsStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/stats")
+    @Operation(summary = "get student counts of a school", description = "total and per grade, served from memory")
+    public ResponseEntity<SchoolStatsDTO> getSchoolStats(@PathVariable Long id) {
+        return new ResponseEntity<>(schoolService.getSchoolStats(id), HttpStatus.OK);
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "get school by id")
-    public ResponseEntity<SchoolDTO> getSchoolById(@PathVariable Long id) {
-        return new ResponseEntity<>(schoolService.getSchoolById(id), HttpStatus.OK);
+    @Operation(summary = "get school by id", description = "returns 304 when If-None-Match holds the school's current ETag. " +
+            "With includeStudents=summary the school also carries the first page of its students, without an ETag")
+    public ResponseEntity<SchoolDTO> getSchoolById(@PathVariable Long id,
+                                                   @RequestParam(required = false) String includeStudents,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (includeStudents != null) {
+            if (!includeStudents.equals(INCLUDE_STUDENTS_SUMMARY)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "includeStudents must be " + INCLUDE_STUDENTS_SUMMARY);
+            }
+            // the preview changes with the school's students, which the school's version does not track
+            return new ResponseEntity<>(schoolService.getSchoolSummary(id), HttpStatus.OK);
+        }
+        // the version is read before the body, so a concurrent update can only pair a newer body with an older ETag
+        Long version = schoolService.getSchoolVersion(id);
+        if (version == null) {
+            return new ResponseEntity<>(schoolService.getSchoolById(id), HttpStatus.OK);
+        }
+        String etag = ETags.of("school", id, version);
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(schoolService.getSchoolById(id));
+    }
+
+    @GetMapping("/{id}/students")
+    @Operation(summary = "get a page of a school's students", description = "ordered by id and keyset paginated, pass the returned next cursor " +
+            "as after to fetch the following page")
+    public ResponseEntity<CursorPage<StudentDTO>> getSchoolStudents(@PathVariable Long id,
+                                                                    @RequestParam(required = false) Long after,
+                                                                    @RequestParam(required = false) Integer limit) {
+        return new ResponseEntity<>(schoolService.getSchoolStudents(id, after, limit), HttpStatus.OK);
     }
 
     @PostMapping
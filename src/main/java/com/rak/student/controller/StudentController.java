@@ -1,20 +1,44 @@
 package com.rak.student.controller;
 
+import com.rak.student.config.AsyncConfig;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.StaleStudentDTO;
+import com.rak.student.dto.StudentCriteria;
 import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.dto.StudentSearchHit;
+import com.rak.student.dto.StudentTicket;
+import com.rak.student.dto.StudentVersion;
 import com.rak.student.service.StudentService;
+import com.rak.student.util.ETags;
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -23,19 +47,37 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 public class StudentController {
 
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final StudentService studentService;
 
     @GetMapping
-    @Operation(summary = "get list of all students")
-    public ResponseEntity<List<StudentDTO>> getAllStudents() {
-        List<StudentDTO> students = studentService.getAllStudents();
+    @Operation(summary = "get a page of students", description = "keyset paginated, pass the returned next cursor as after to fetch the following page. " +
+            "Optionally filtered by schoolId, grade and a case-sensitive name prefix, and sorted by id (default) or studentName")
+    public ResponseEntity<CursorPage<StudentDTO>> getAllStudents(@RequestParam(required = false) Long after,
+                                                                 @RequestParam(required = false) Integer limit,
+                                                                 @ParameterObject StudentCriteria criteria) {
+        CursorPage<StudentDTO> students = studentService.getAllStudents(criteria, after, limit);
         return new ResponseEntity<>(students, HttpStatus.OK);
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "export all students", description = "streams every student as newline delimited json, one student per line")
+    public ResponseEntity<StreamingResponseBody> exportStudents(HttpServletRequest request) {
+        return ndjsonStream(request, studentService::exportStudents);
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "get student by id")
-    public StudentDTO getStudentById(@PathVariable Long id) {
-        return studentService.getStudentById(id);
+    @Operation(summary = "get student by id", description = "returns 304 when If-None-Match holds the student's current ETag")
+    public ResponseEntity<StudentDTO> getStudentById(@PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // the versions are read before the body, so a concurrent update can only pair a newer body with an older ETag
+        StudentVersion version = studentService.getStudentVersion(id);
+        String etag = ETags.of("student", id, version.version(), version.schoolVersion());
+        if (ETags.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(studentService.getStudentById(id));
     }
 
     @PostMapping
@@ -45,6 +87,74 @@ public class StudentController {
         return new ResponseEntity<>(createdStudent, HttpStatus.CREATED);
     }
 
+    @PostMapping("/async")
+    @Operation(summary = "create student in the background", description = "returns 202 with the ticket of the student, " +
+            "which the Location header points to, and 429 when too many students are waiting to be written")
+    public ResponseEntity<StudentTicket> createStudentAsync(@Valid @RequestBody StudentDTO studentDTO) {
+        StudentTicket ticket = studentService.createStudentAsync(studentDTO);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(ticket.getStudentId()).toUri())
+                .body(ticket);
+    }
+
+    @GetMapping("/async/{id}")
+    @Operation(summary = "get the ticket of a student created in the background", description = "PENDING until the student " +
+            "is written, then CREATED or FAILED")
+    public ResponseEntity<StudentTicket> getStudentTicket(@PathVariable Long id) {
+        return new ResponseEntity<>(studentService.getStudentTicket(id), HttpStatus.OK);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "import students from a CSV file", description = "the file part is CSV with a header naming the columns " +
+            "studentName, grade, mobileNumber, guardianName and schoolId. Streams a newline delimited json report: one rejected " +
+            "result per rejected row, indexed by its line in the file, then the totals")
+    public ResponseEntity<StreamingResponseBody> importStudents(@RequestPart("file") MultipartFile file, HttpServletRequest request) {
+        return ndjsonStream(request, report -> {
+            try (InputStream csv = file.getInputStream()) {
+                studentService.importStudents(csv, report);
+            }
+        });
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "import students from a CSV body", description = "as the file upload, with the CSV streamed as the request body")
+    public ResponseEntity<StreamingResponseBody> importStudents(HttpServletRequest request) {
+        return ndjsonStream(request, report -> studentService.importStudents(request.getInputStream(), report));
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "create students in bulk", description = "returns one result per student in request order, " +
+            "201 when every student is created and 207 when some were rejected")
+    public ResponseEntity<List<BatchItemResult>> createStudents(@RequestBody List<StudentDTO> studentDTOs) {
+        List<BatchItemResult> results = studentService.createStudents(studentDTOs);
+        boolean allCreated = results.stream().allMatch(result -> result.getStatus() == BatchItemResult.Status.CREATED);
+        return new ResponseEntity<>(results, allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "get many students by ids or roll numbers", description = "pass either ids or rollNumbers, " +
+            "returns one result per key in request order with found false for unknown keys")
+    public ResponseEntity<List<StudentLookupResult>> lookupStudents(@RequestBody StudentLookupRequest lookupRequest) {
+        List<StudentLookupResult> results = studentService.lookupStudents(lookupRequest);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @GetMapping("/by-mobile/{number}")
+    @Operation(summary = "get students by mobile number", description = "matches on the digits of the number only, " +
+            "so any formatting works, and returns every student registered with it")
+    public ResponseEntity<List<StudentDTO>> getStudentsByMobileNumber(@PathVariable String number) {
+        List<StudentDTO> students = studentService.getStudentsByMobileNumber(number);
+        return new ResponseEntity<>(students, HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "search students by name", description = "matches every word of q against student and guardian names, " +
+            "exactly, as a prefix or with a few typos, and returns the best matches first")
+    public ResponseEntity<List<StudentSearchHit>> searchStudents(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        List<StudentSearchHit> hits = studentService.searchStudents(q, limit);
+        return new ResponseEntity<>(hits, HttpStatus.OK);
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "update student by id", description = "update student by id, grade value are G1 to G10")
     public ResponseEntity<StudentDTO> updateStudent(@PathVariable Long id, @Valid @RequestBody StudentDTO updatedStudentDTO) {
@@ -55,8 +165,27 @@ public class StudentController {
     }
 
     @GetMapping("rollNo/{rollNo}")
-    @Operation(summary = "get student by rollNo")
-    public CompletableFuture<StudentDTO> getStudentByRollNo(@PathVariable String rollNo) throws InterruptedException {
-        return studentService.getStudentByRollNo(rollNo);
+    @Operation(summary = "get student by rollNo", description = "while the database is unavailable a recently served copy " +
+            "may be returned, marked with a Warning 110 (Response is Stale) and an Age header")
+    public CompletableFuture<ResponseEntity<StudentDTO>> getStudentByRollNo(@PathVariable String rollNo) throws InterruptedException {
+        return studentService.getStudentByRollNo(rollNo).thenApply(student -> {
+            if (student instanceof StaleStudentDTO stale) {
+                long age = Math.max(0, Duration.between(stale.getStoredAt(), Instant.now()).toSeconds());
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.WARNING, STALE_WARNING)
+                        .header(HttpHeaders.AGE, String.valueOf(age))
+                        .body(student);
+            }
+            return ResponseEntity.ok(student);
+        });
+    }
+
+    /**
+     * Streams the body as newline delimited json, timing out after {@code student.async.stream-timeout} rather than the
+     * default async request timeout.
+     */
+    private static ResponseEntity<StreamingResponseBody> ndjsonStream(HttpServletRequest request, StreamingResponseBody body) {
+        request.setAttribute(AsyncConfig.LONG_STREAM_ATTRIBUTE, true);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
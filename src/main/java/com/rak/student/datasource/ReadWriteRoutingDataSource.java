@@ -0,0 +1,84 @@
+package com.rak.student.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ * <p>
+ * Read-only transactions go to the next replica the {@link ReplicaLagMonitor} keeps in rotation, unless the request is
+ * {@link ReadYourWrites pinned} to the primary or no replica is in sync. Writes, transactions that are not read-only and
+ * statements outside a transaction go to the primary. The route is decided when the first statement needs a connection,
+ * so this data source must sit behind a {@link LazyConnectionDataSourceProxy}; otherwise the connection would be fetched
+ * before the transaction is marked read-only. Every route taken is counted by {@code datasource.routing}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARY = "primary";
+
+    private final Map<String, HikariDataSource> pools;
+    @Getter
+    private final ReplicaLagMonitor replicaLagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final Map<String, Counter> routes = new HashMap<>();
+
+    /**
+     * @param replicas replica pools by name, each also known to the {@code replicaLagMonitor}
+     */
+    public ReadWriteRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas,
+                                      ReplicaLagMonitor replicaLagMonitor, ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.pools = new LinkedHashMap<>();
+        this.pools.put(PRIMARY, primary);
+        this.pools.putAll(replicas);
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.readYourWrites = readYourWrites;
+        this.pools.keySet().forEach(name -> routes.put(name, Counter.builder("datasource.routing")
+                .tag("target", name)
+                .description("Connections routed to each data source")
+                .register(meterRegistry)));
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = route();
+        routes.get(target).increment();
+        return target;
+    }
+
+    private String route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        readYourWrites.markWritten();
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (readYourWrites.isPinned()) {
+            return PRIMARY;
+        }
+        String replica = replicaLagMonitor.nextReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        replicaLagMonitor.close();
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
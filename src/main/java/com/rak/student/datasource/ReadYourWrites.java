@@ -0,0 +1,95 @@
+package com.rak.student.datasource;
+
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks, per request, whether reads must stay on the primary so a client always sees its own writes.
+ * <p>
+ * A request is pinned to the primary when it starts inside the client's read-your-writes window, or from its first
+ * committed write onwards. The first write also runs the request's callback, which opens a new window for the client.
+ * As a {@link TaskDecorator} it carries the request over to executor threads, so asynchronous reads honour it too.
+ */
+public class ReadYourWrites implements TaskDecorator {
+
+    private static final ThreadLocal<Request> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Starts tracking a request on the current thread.
+     *
+     * @param pinned       whether the client is still within the window opened by an earlier write
+     * @param onFirstWrite run once, when the first write of this request commits
+     */
+    public Request begin(boolean pinned, Runnable onFirstWrite) {
+        Request request = new Request(pinned, onFirstWrite);
+        CURRENT.set(request);
+        return request;
+    }
+
+    public void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Whether reads on the current thread must go to the primary.
+     */
+    public boolean isPinned() {
+        Request request = CURRENT.get();
+        return request != null && request.pinned;
+    }
+
+    /**
+     * Records a committed write of the current request, pinning its remaining reads to the primary.
+     */
+    public void markWritten() {
+        Request request = CURRENT.get();
+        if (request != null) {
+            request.markWritten();
+        }
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Request request = CURRENT.get();
+        if (request == null) {
+            return runnable;
+        }
+        return () -> {
+            Request previous = CURRENT.get();
+            CURRENT.set(request);
+            try {
+                runnable.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    public static final class Request {
+
+        private final Runnable onFirstWrite;
+        private final AtomicBoolean written = new AtomicBoolean();
+        private volatile boolean pinned;
+
+        private Request(boolean pinned, Runnable onFirstWrite) {
+            this.pinned = pinned;
+            this.onFirstWrite = onFirstWrite;
+        }
+
+        public boolean hasWritten() {
+            return written.get();
+        }
+
+        private void markWritten() {
+            pinned = true;
+            if (written.compareAndSet(false, true)) {
+                onFirstWrite.run();
+            }
+        }
+    }
+}
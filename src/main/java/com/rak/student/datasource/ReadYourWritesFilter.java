@@ -0,0 +1,79 @@
+package com.rak.student.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary for a short window after it wrote, so it does not read a replica that has
+ * not caught up with its own write yet.
+ * <p>
+ * The first committed write of a request sets the {@value #COOKIE} cookie to the end of the window, in epoch
+ * milliseconds. Requests that carry the cookie before that time are {@link ReadYourWrites pinned} to the primary.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String COOKIE = "student-primary-until";
+
+    private final ReadYourWrites readYourWrites;
+    private final Duration window;
+    private final Clock clock;
+
+    public ReadYourWritesFilter(ReadYourWrites readYourWrites, Duration window, Clock clock) {
+        this.readYourWrites = readYourWrites;
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean pinned = pinnedUntil(request) > clock.millis();
+        readYourWrites.begin(pinned, () -> {
+            if (!response.isCommitted()) {
+                response.addHeader(HttpHeaders.SET_COOKIE, cookie(request).toString());
+            }
+        });
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            readYourWrites.end();
+        }
+    }
+
+    private ResponseCookie cookie(HttpServletRequest request) {
+        return ResponseCookie.from(COOKIE, String.valueOf(clock.millis() + window.toMillis()))
+                .path(StringUtils.hasText(request.getContextPath()) ? request.getContextPath() : "/")
+                .maxAge(window.plusMillis(999).toSeconds())
+                .httpOnly(true)
+                .sameSite("Lax")
+                .build();
+    }
+
+    private static long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0L;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0L;
+                }
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,122 @@
+package com.rak.student.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures how far each replica lags behind the primary and keeps the replicas within the tolerated lag in rotation.
+ * <p>
+ * A replica's lag is the number of seconds returned by its lag query, for example
+ * {@code select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)} on PostgreSQL.
+ * A replica without a lag query counts as in sync as long as it answers. Replicas that lag more than
+ * {@code maxLag}, or cannot be reached, take no reads until a later check finds them caught up; with no replica
+ * in rotation every read goes to the primary. Lags are published as the {@code datasource.replica.lag} gauge.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final double maxLagSeconds;
+    private final Map<String, Double> lags = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-"));
+
+    private volatile List<String> inRotation = List.of();
+
+    public ReplicaLagMonitor(List<Replica> replicas, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        for (Replica replica : this.replicas) {
+            lags.put(replica.name(), Double.NaN);
+            Gauge.builder("datasource.replica.lag", lags, x -> x.get(replica.name()))
+                    .tag("replica", replica.name())
+                    .description("Replication lag in seconds, NaN while the replica cannot be reached")
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Checks every replica now and then every {@code interval}.
+     */
+    public void start(Duration interval) {
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the next replica in rotation, round robin, or null when every replica lags or is down.
+     */
+    public String nextReplica() {
+        List<String> candidates = inRotation;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * Measures the lag of every replica and updates the rotation.
+     */
+    public void check() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            double lag = measure(replica);
+            Double previous = lags.put(replica.name(), lag);
+            boolean inSync = lag <= maxLagSeconds;
+            if (inSync) {
+                healthy.add(replica.name());
+            }
+            if (previous != null && inSync != (previous <= maxLagSeconds)) {
+                log.warn("replica {} {} rotation, lag {}s", replica.name(), inSync ? "back in" : "taken out of", lag);
+            }
+        }
+        inRotation = List.copyOf(healthy);
+    }
+
+    private double measure(Replica replica) {
+        try (Connection connection = replica.dataSource().getConnection()) {
+            if (replica.lagQuery() == null) {
+                return connection.isValid(VALIDATION_TIMEOUT_SECONDS) ? 0.0 : Double.NaN;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(replica.lagQuery())) {
+                return resultSet.next() ? Math.max(0.0, resultSet.getDouble(1)) : Double.NaN;
+            }
+        } catch (SQLException e) {
+            log.debug("lag check of replica {} failed", replica.name(), e);
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @param lagQuery returns the replica's lag in seconds, or null to treat the replica as in sync while it answers
+     */
+    public record Replica(String name, DataSource dataSource, String lagQuery) {
+    }
+}
@@ -1,31 +1,38 @@
 package com.rak.student.domain;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Version;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = School.CACHE_REGION)
 @Table(name = "school")
 @Setter
 @Getter
-@AllArgsConstructor
 @NoArgsConstructor
-@Builder
 public class School {
 
+    public static final String CACHE_REGION = "school";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "school_seq")
+    @SequenceGenerator(name = "school_seq", sequenceName = "school_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -40,4 +47,18 @@ public class School {
     @Column(nullable = false)
     private String address;
 
+    /**
+     * Incremented by Hibernate on every update; used for optimistic locking and as the school's ETag.
+     */
+    @Version
+    private long version;
+
+    @Builder
+    public School(Long id, String name, List<Student> students, String logoUrl, String address) {
+        this.id = id;
+        this.name = name;
+        this.students = students;
+        this.logoUrl = logoUrl;
+        this.address = address;
+    }
 }
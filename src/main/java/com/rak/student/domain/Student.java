@@ -1,28 +1,54 @@
 package com.rak.student.domain;
 
+import com.rak.student.shard.ShardedSequenceGenerator;
+import com.rak.student.util.MobileNumbers;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.Version;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 @Entity
-@Table(name = "student")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Student.CACHE_REGION)
+@Table(name = "student", indexes = {@Index(name = "ux_student_roll_number", columnList = "rollNumber", unique = true),
+        @Index(name = "ix_student_mobile_key", columnList = "mobileKey"),
+        @Index(name = "ix_student_school_id", columnList = "schoolId, id"),
+        @Index(name = "ix_student_school_grade_name", columnList = "schoolId, grade, studentName, id"),
+        @Index(name = "ix_student_school_name", columnList = "schoolId, studentName, id"),
+        @Index(name = "ix_student_grade_name", columnList = "grade, studentName, id"),
+        @Index(name = "ix_student_name", columnList = "studentName, id")})
 @Setter
 @Getter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Student {
 
+    public static final String CACHE_REGION = "student";
+
+    /**
+     * Drawn from the pooled {@code student_seq} of the student's shard, with the shard appended when sharded.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "student_seq")
+    @GenericGenerator(name = "student_seq", type = ShardedSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "student_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")})
     private Long id;
 
     @Column(nullable = false)
@@ -37,10 +63,39 @@ public class Student {
     @Column(nullable = false)
     private String mobileNumber;
 
+    /**
+     * {@link MobileNumbers#key Digits} of the mobile number, derived on every insert and update. Null on rows written
+     * before the column existed until {@code MobileKeyBackfill} has run.
+     */
+    @Setter(AccessLevel.NONE)
+    private String mobileKey;
+
     @Column(nullable = false)
     private String guardianName;
 
     @ManyToOne
     @JoinColumn(name = "schoolId", nullable = false)
     private School school;
+
+    /**
+     * Incremented by Hibernate on every update; used for optimistic locking and as the student's ETag.
+     */
+    @Version
+    private long version;
+
+    public Student(Long id, String studentName, String grade, String rollNumber, String mobileNumber, String guardianName, School school) {
+        this.id = id;
+        this.studentName = studentName;
+        this.grade = grade;
+        this.rollNumber = rollNumber;
+        this.mobileNumber = mobileNumber;
+        this.guardianName = guardianName;
+        this.school = school;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeMobileNumber() {
+        mobileKey = MobileNumbers.key(mobileNumber);
+    }
 }
\ No newline at end of file
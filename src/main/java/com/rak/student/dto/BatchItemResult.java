@@ -0,0 +1,41 @@
+package com.rak.student.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of one item of a batch request, reported at the same index as the item in the request.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult implements Serializable {
+
+    private int index;
+
+    private Status status;
+
+    private StudentDTO student;
+
+    private String error;
+
+    public static BatchItemResult created(int index, StudentDTO student) {
+        return new BatchItemResult(index, Status.CREATED, student, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, Status.REJECTED, null, error);
+    }
+
+    public enum Status {
+        CREATED,
+        REJECTED
+    }
+}
@@ -0,0 +1,8 @@
+package com.rak.student.dto;
+
+/**
+ * Row count, highest id and sum of row versions of a table. Any insert, update or delete changes at least one
+ * of them, so together they version the whole collection.
+ */
+public record CollectionVersion(long count, long maxId, long versionSum) {
+}
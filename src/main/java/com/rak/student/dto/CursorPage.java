@@ -0,0 +1,42 @@
+package com.rak.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) paginated listing.
+ * <p>
+ * {@code next} is the cursor to pass as {@code after} to fetch the following page,
+ * or {@code null} when this is the last page.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> implements Serializable {
+
+    private List<T> items;
+
+    private Long next;
+
+    private int limit;
+
+    /**
+     * Builds a page from a result fetched with {@code limit + 1} rows. The extra row is only used to
+     * tell whether another page exists and is dropped from the returned items.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idExtractor) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null, limit);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new CursorPage<>(items, idExtractor.apply(items.get(limit - 1)), limit);
+    }
+}
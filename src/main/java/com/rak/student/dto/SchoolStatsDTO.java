@@ -0,0 +1,25 @@
+package com.rak.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * The number of students of a school, in total and per grade from G1 to G10.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SchoolStatsDTO implements Serializable {
+
+    private Long schoolId;
+
+    private long students;
+
+    private Map<String, Integer> grades;
+}
@@ -0,0 +1,24 @@
+package com.rak.student.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A school with the first page of its students, ordered by id. {@code students.next} continues the listing at
+ * {@code GET /schools/{id}/students}.
+ */
+@Setter
+@Getter
+@NoArgsConstructor
+public class SchoolSummaryDTO extends SchoolDTO {
+
+    @Schema(accessMode = Schema.AccessMode.READ_ONLY)
+    private CursorPage<StudentDTO> students;
+
+    public SchoolSummaryDTO(SchoolDTO school, CursorPage<StudentDTO> students) {
+        super(school.getName(), school.getId(), school.getLogoUrl(), school.getAddress());
+        this.students = students;
+    }
+}
@@ -0,0 +1,24 @@
+package com.rak.student.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A StudentDTO served from the last-known-good store instead of the database.
+ * Serialized exactly like a StudentDTO; the controller reports the staleness in response headers.
+ */
+@Getter
+public class StaleStudentDTO extends StudentDTO {
+
+    @JsonIgnore
+    private final Instant storedAt;
+
+    public StaleStudentDTO(StudentDTO student, Instant storedAt) {
+        super(student.getId(), student.getStudentName(), student.getGrade(), student.getRollNumber(),
+                student.getMobileNumber(), student.getSchoolId(), student.getSchoolName(),
+                student.getGuardianName(), student.getSchoolLogoUrl());
+        this.storedAt = storedAt;
+    }
+}
@@ -0,0 +1,36 @@
+package com.rak.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Filters and sort order of a student listing, bound from the query parameters of {@code GET /students}.
+ * Every filter is optional; those given must all match.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentCriteria implements Serializable {
+
+    public static final String SORT_BY_ID = "id";
+    public static final String SORT_BY_STUDENT_NAME = "studentName";
+
+    private Long schoolId;
+
+    private String grade;
+
+    /**
+     * Case-sensitive prefix of the student name.
+     */
+    private String name;
+
+    /**
+     * {@value #SORT_BY_ID} (the default) or {@value #SORT_BY_STUDENT_NAME}, ascending, ties broken by id.
+     */
+    private String sort;
+}
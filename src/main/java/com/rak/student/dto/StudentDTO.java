@@ -10,8 +10,6 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.io.Serializable;
 
@@ -50,10 +48,13 @@ public class StudentDTO implements Serializable {
     @Schema(accessMode = Schema.AccessMode.READ_ONLY)
     private String schoolLogoUrl;
 
+    /**
+     * Keeps a known grade in its canonical case. An unknown grade is kept as given and rejected by the service, so that
+     * one bad item of a batch does not fail the whole request.
+     */
     public void setGrade(String grade) {
-        if (!Grade.isValid(grade))
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid grade value must be like G1 to G10");
-        this.grade = grade;
+        Grade known = Grade.of(grade);
+        this.grade = known != null ? known.getGrade() : grade;
     }
 
 }
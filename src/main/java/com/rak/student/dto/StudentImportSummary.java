@@ -0,0 +1,26 @@
+package com.rak.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Totals of a student import, reported on the last line of its report.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentImportSummary implements Serializable {
+
+    private long rows;
+
+    private long created;
+
+    private long rejected;
+
+    private long millis;
+}
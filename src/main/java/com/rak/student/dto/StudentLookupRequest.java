@@ -0,0 +1,23 @@
+package com.rak.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Batch lookup of students by either their ids or their roll numbers; exactly one of the two must be given.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentLookupRequest implements Serializable {
+
+    private List<Long> ids;
+
+    private List<String> rollNumbers;
+}
@@ -0,0 +1,34 @@
+package com.rak.student.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Result of one key of a batch lookup, reported in the same position as the key in the request.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentLookupResult implements Serializable {
+
+    private String key;
+
+    private boolean found;
+
+    private StudentDTO student;
+
+    public static StudentLookupResult found(String key, StudentDTO student) {
+        return new StudentLookupResult(key, true, student);
+    }
+
+    public static StudentLookupResult notFound(String key) {
+        return new StudentLookupResult(key, false, null);
+    }
+}
@@ -0,0 +1,30 @@
+package com.rak.student.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * One student matched by a name search, with the score it was ranked by. Higher scores are better matches.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class StudentSearchHit implements Serializable {
+
+    private Long studentId;
+
+    private String rollNumber;
+
+    private String studentName;
+
+    private String guardianName;
+
+    private Long schoolId;
+
+    private float score;
+}
@@ -0,0 +1,46 @@
+package com.rak.student.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Progress of a student accepted for asynchronous creation. The ticket is the id the student was given on acceptance.
+ */
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StudentTicket implements Serializable {
+
+    private Long studentId;
+
+    private String rollNumber;
+
+    private Status status;
+
+    private String error;
+
+    public static StudentTicket pending(Long studentId, String rollNumber) {
+        return new StudentTicket(studentId, rollNumber, Status.PENDING, null);
+    }
+
+    public static StudentTicket created(Long studentId, String rollNumber) {
+        return new StudentTicket(studentId, rollNumber, Status.CREATED, null);
+    }
+
+    public static StudentTicket failed(Long studentId, String rollNumber, String error) {
+        return new StudentTicket(studentId, rollNumber, Status.FAILED, error);
+    }
+
+    public enum Status {
+        PENDING,
+        CREATED,
+        FAILED
+    }
+}
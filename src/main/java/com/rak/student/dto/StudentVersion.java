@@ -0,0 +1,8 @@
+package com.rak.student.dto;
+
+/**
+ * Version of a student and of its school, whose name and logo the student's body shows. Renaming the school changes
+ * the body without changing the student, so both version the body.
+ */
+public record StudentVersion(long version, long schoolVersion) {
+}
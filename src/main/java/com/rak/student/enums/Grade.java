@@ -29,5 +29,12 @@ public enum Grade {
         return stream(values()).anyMatch(type -> type.getGrade().equalsIgnoreCase(grade));
     }
 
+    /**
+     * The grade with the given value, ignoring case, or null if there is none.
+     */
+    public static Grade of(String grade) {
+        return stream(values()).filter(type -> type.getGrade().equalsIgnoreCase(grade)).findFirst().orElse(null);
+    }
+
 }
 
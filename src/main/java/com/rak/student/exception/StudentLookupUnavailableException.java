@@ -0,0 +1,15 @@
+package com.rak.student.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A student lookup could not reach the database and no last-known-good copy was available.
+ * Answered with {@code 503 Service Unavailable}; retrying straight away would only hit the same open breaker.
+ */
+public class StudentLookupUnavailableException extends ResponseStatusException {
+
+    public StudentLookupUnavailableException(String reason, Throwable cause) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package com.rak.student.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A lookup named a student that does not exist.
+ * <p>
+ * Kept as a {@code 400 Bad Request} like the other not-found responses of this service, but as its own type so
+ * the Resilience4j retry and circuit breaker can ignore it: a miss is an answer, not a failure of the database.
+ */
+public class StudentNotFoundException extends ResponseStatusException {
+
+    public StudentNotFoundException(String reason) {
+        super(HttpStatus.BAD_REQUEST, reason);
+    }
+
+    public static StudentNotFoundException forRollNo(String rollNo) {
+        return new StudentNotFoundException("student not found against rollNo: " + rollNo);
+    }
+}
@@ -0,0 +1,302 @@
+package com.rak.student.ingest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the lines of accepted but not yet written records, so that they survive a restart.
+ * <p>
+ * The lines are kept in segment files next to the journal path, named after it with a sequence number appended. Once
+ * a segment holds {@code segmentLines} lines the next line starts a new one, and a segment is deleted as soon as every
+ * line in it has been reported {@link #written}, so the journal stays small however busy the queue is. The current
+ * segment is emptied instead when all its lines are written.
+ * <p>
+ * {@link #append} returns once the line is on disk. Appends running at the same time share one {@code fsync}: whoever
+ * forces the file forces every line written before it, and the others only wait for it. The journal path itself is
+ * locked while open, so that two instances cannot share the journal.
+ */
+class IngestJournal implements Closeable {
+
+    private final Path path;
+    private final Pattern segmentName;
+    private final int segmentLines;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Object forceLock = new Object();
+
+    private Segment current;
+    private long appended;
+    private volatile long forced;
+
+    private IngestJournal(Path path, int segmentLines, FileChannel lockChannel, FileLock lock) {
+        this.path = path;
+        this.segmentName = Pattern.compile(Pattern.quote(path.getFileName().toString()) + "\\.(\\d+)");
+        this.segmentLines = segmentLines;
+        this.lockChannel = lockChannel;
+        this.lock = lock;
+    }
+
+    /**
+     * Tells whether a journal was ever opened at the path.
+     */
+    static boolean exists(Path path) {
+        return Files.exists(path);
+    }
+
+    /**
+     * Opens or creates the journal and locks it.
+     *
+     * @throws IllegalStateException if another instance holds the journal.
+     */
+    static IngestJournal open(Path path, int segmentLines) throws IOException {
+        path = path.toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IllegalStateException("ingest journal " + path + " is held by another instance");
+        }
+        IngestJournal journal = new IngestJournal(path, segmentLines, channel, lock);
+        journal.openSegments();
+        return journal;
+    }
+
+    private void openSegments() throws IOException {
+        try (Stream<Path> files = Files.list(path.getParent())) {
+            for (Path file : files.toList()) {
+                Matcher matcher = segmentName.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    long number = Long.parseLong(matcher.group(1));
+                    segments.put(number, new Segment(number, file));
+                }
+            }
+        }
+        long number = segments.isEmpty() ? 0 : segments.lastKey() + 1;
+        current = new Segment(number, segmentPath(number));
+        segments.put(number, current);
+    }
+
+    private Path segmentPath(long number) {
+        return path.resolveSibling(path.getFileName() + "." + number);
+    }
+
+    /**
+     * Reads back the lines left by the previous run, oldest first. They count as appended until reported written to
+     * the segment they are returned with. A line torn by a crash is returned as is; it was never acknowledged.
+     */
+    synchronized List<Line> replay() throws IOException {
+        List<Line> lines = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment == current) {
+                continue;
+            }
+            FileChannel channel = segment.channel();
+            channel.position(0);
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isBlank()) {
+                    lines.add(new Line(segment, line));
+                    segment.lines++;
+                    segment.unwritten++;
+                }
+            }
+            channel.position(channel.size());
+        }
+        for (Segment segment : List.copyOf(segments.values())) {
+            retireIfWritten(segment);
+        }
+        return lines;
+    }
+
+    /**
+     * Appends a line and waits until it is on disk. If the line cannot be written it is cut off again. If it is written
+     * but cannot be forced, it is {@link #cancel cancelled} with the marker, since it may still reach the disk.
+     *
+     * @return The segment the line was appended to, to report it written to.
+     */
+    Segment append(String line, String cancelMarker) throws IOException {
+        Segment segment;
+        long sequence;
+        synchronized (this) {
+            if (current.lines >= segmentLines) {
+                roll();
+            }
+            segment = current;
+            FileChannel channel = segment.channel();
+            long end = channel.position();
+            try {
+                write(channel, line);
+            } catch (IOException e) {
+                channel.truncate(end);
+                channel.position(end);
+                throw e;
+            }
+            segment.lines++;
+            segment.unwritten++;
+            sequence = ++appended;
+        }
+        try {
+            force(sequence);
+        } catch (IOException e) {
+            try {
+                cancel(segment, cancelMarker);
+            } catch (IOException cancelFailure) {
+                e.addSuppressed(cancelFailure);
+            }
+            throw e;
+        }
+        return segment;
+    }
+
+    /**
+     * Withdraws an appended line whose record was turned away after all. The marker is appended to the same segment
+     * and forced, so that a replay, which returns it like any other line, can tell the withdrawn line apart from an
+     * acknowledged one for as long as the segment lives. The line no longer counts as unwritten either way.
+     */
+    void cancel(Segment segment, String marker) throws IOException {
+        try {
+            FileChannel channel;
+            synchronized (this) {
+                channel = segment.channel();
+                write(channel, marker);
+                segment.lines++;
+            }
+            channel.force(false);
+        } finally {
+            written(segment, 1);
+        }
+    }
+
+    /**
+     * Starts a new segment once every line of the current one is on disk, so that forcing the new one is enough.
+     */
+    private void roll() throws IOException {
+        current.channel().force(false);
+        long number = current.number + 1;
+        current = new Segment(number, segmentPath(number));
+        segments.put(number, current);
+    }
+
+    private static void write(FileChannel channel, String line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void force(long sequence) throws IOException {
+        synchronized (forceLock) {
+            if (forced >= sequence) {
+                return;
+            }
+            long upTo;
+            FileChannel channel;
+            synchronized (this) {
+                upTo = appended;
+                channel = current.channel();
+            }
+            channel.force(false);
+            forced = upTo;
+        }
+    }
+
+    /**
+     * Reports lines of the segment whose records are in the database, deleting the segment once none is left, or
+     * emptying it if it is the current one.
+     */
+    synchronized void written(Segment segment, int lines) throws IOException {
+        segment.unwritten -= lines;
+        retireIfWritten(segment);
+    }
+
+    private void retireIfWritten(Segment segment) throws IOException {
+        if (segment.unwritten > 0) {
+            return;
+        }
+        segment.unwritten = 0;
+        if (segment == current) {
+            segment.channel().truncate(0);
+            segment.lines = 0;
+        } else if (segments.remove(segment.number) != null) {
+            segment.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    /**
+     * The number of segment files, the current one included.
+     */
+    synchronized int segments() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        lock.release();
+        lockChannel.close();
+    }
+
+    /**
+     * A line read back by {@link #replay}, with the segment it belongs to.
+     */
+    record Line(Segment segment, String text) {
+    }
+
+    /**
+     * One file of the journal. Its lines and unwritten count are guarded by the journal.
+     */
+    static final class Segment {
+
+        private final long number;
+        private final Path path;
+        private FileChannel channel;
+        private int lines;
+        private int unwritten;
+
+        private Segment(long number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+
+        private synchronized FileChannel channel() throws IOException {
+            if (channel == null) {
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(channel.size());
+            }
+            return channel;
+        }
+
+        private synchronized void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
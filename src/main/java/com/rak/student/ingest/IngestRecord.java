@@ -0,0 +1,9 @@
+package com.rak.student.ingest;
+
+/**
+ * A student accepted for asynchronous creation, with the id and roll number it was given on acceptance and the shard
+ * it is written to. One record is one line of the {@link IngestJournal}.
+ */
+public record IngestRecord(Long id, int shard, String studentName, String grade, String rollNumber, String mobileNumber,
+                           String guardianName, Long schoolId) {
+}
@@ -0,0 +1,328 @@
+package com.rak.student.ingest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rak.student.domain.School;
+import com.rak.student.domain.Student;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentImportSummary;
+import com.rak.student.enums.Grade;
+import com.rak.student.mapper.StudentMapper;
+import com.rak.student.repository.SchoolRepository;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.service.RollNumberAllocator;
+import com.rak.student.shard.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Imports students from CSV, reading the input and writing the report as streams so that neither is held in memory.
+ * <p>
+ * The header names the columns {@link #COLUMNS}, in any order. Rows are read {@code student.import.chunk-size} at a
+ * time. The rows of a chunk are checked in parallel on {@code student.import.parallelism} threads (every core when 0)
+ * with the rules of {@link StudentDTO}. The schools a chunk names that the import has not seen yet are then loaded in
+ * one query per shard and kept in a local map for the rest of the import. The accepted rows of each shard are created
+ * in one transaction per chunk, with roll numbers allocated for the whole chunk, so a failure, be it of the school
+ * lookup or of the transaction, only rejects the rows of its own chunk and shard. The report is newline delimited json: one rejected
+ * {@link BatchItemResult} per rejected row, whose index is the row's line in the file, followed by a
+ * {@link StudentImportSummary}.
+ * <p>
+ * {@code student.import.rows} counts the rows by outcome and {@code student.import.throughput} reports the rows per
+ * second of the running or last import.
+ */
+@Slf4j
+@Component
+public class StudentImport {
+
+    public static final List<String> COLUMNS = List.of("studentName", "grade", "mobileNumber", "guardianName", "schoolId");
+
+    private final StudentRepository studentRepository;
+    private final SchoolRepository schoolRepository;
+    private final StudentMapper studentMapper;
+    private final Validator validator;
+    private final RollNumberAllocator rollNumberAllocator;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate chunkTransaction;
+    private final StudentPublisher studentPublisher;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+    private final int chunkSize;
+    private final ForkJoinPool checkers;
+    private final Counter createdRows;
+    private final Counter rejectedRows;
+
+    private volatile double throughput;
+
+    public StudentImport(StudentRepository studentRepository, SchoolRepository schoolRepository, StudentMapper studentMapper,
+                         Validator validator, RollNumberAllocator rollNumberAllocator, ShardRouter shardRouter,
+                         PlatformTransactionManager transactionManager, StudentPublisher studentPublisher, ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${student.import.chunk-size:1000}") int chunkSize,
+                         @Value("${student.import.parallelism:0}") int parallelism) {
+        this.studentRepository = studentRepository;
+        this.schoolRepository = schoolRepository;
+        this.studentMapper = studentMapper;
+        this.validator = validator;
+        this.rollNumberAllocator = rollNumberAllocator;
+        this.shardRouter = shardRouter;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.studentPublisher = studentPublisher;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.chunkSize = chunkSize;
+        this.checkers = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.createdRows = Counter.builder("student.import.rows").tag("outcome", "created")
+                .description("imported rows").register(meterRegistry);
+        this.rejectedRows = Counter.builder("student.import.rows").tag("outcome", "rejected")
+                .description("imported rows").register(meterRegistry);
+        Gauge.builder("student.import.throughput", this, importer -> importer.throughput)
+                .description("rows per second of the running or last student import")
+                .baseUnit("rows/s")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        checkers.shutdownNow();
+    }
+
+    /**
+     * Imports the students of the CSV and writes the report.
+     *
+     * @throws ResponseStatusException if the input is empty or its header lacks one of the {@link #COLUMNS}, before
+     *                                 anything is written to the report.
+     */
+    public StudentImportSummary run(InputStream csv, OutputStream report) throws IOException {
+        long started = System.nanoTime();
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), 1 << 16));
+        int[] columns = columns(reader.next());
+        Map<Long, Optional<School>> schools = new HashMap<>();
+
+        long rows = 0;
+        long created = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(report)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            BatchItemResult unreadable = null;
+            while (true) {
+                List<String> fields;
+                try {
+                    fields = reader.next();
+                } catch (IllegalArgumentException e) {
+                    // an unclosed quote swallows the rest of the input into one field, so reading stops there
+                    unreadable = BatchItemResult.rejected(reader.recordLine(), e.getMessage());
+                    fields = null;
+                }
+                if (fields != null) {
+                    chunk.add(new Row(reader.recordLine(), fields));
+                }
+                if (chunk.size() == chunkSize || fields == null && !chunk.isEmpty()) {
+                    rows += chunk.size();
+                    created += importChunk(chunk, columns, schools, generator);
+                    generator.flush();
+                    chunk = new ArrayList<>(chunkSize);
+                    throughput = rows / seconds(started);
+                }
+                if (fields == null) {
+                    break;
+                }
+            }
+            if (unreadable != null) {
+                rows++;
+                rejectedRows.increment();
+                writer.writeValue(generator, unreadable);
+            }
+            StudentImportSummary summary = new StudentImportSummary(rows, created, rows - created, (System.nanoTime() - started) / 1_000_000);
+            writer.writeValue(generator, summary);
+            generator.writeRaw('\n');
+            generator.flush();
+            throughput = rows / seconds(started);
+            log.info("imported {} of {} students in {} ms", created, rows, summary.getMillis());
+            return summary;
+        }
+    }
+
+    private static double seconds(long started) {
+        return Math.max(System.nanoTime() - started, 1) / 1e9;
+    }
+
+    /**
+     * Finds the position of every column in the header.
+     */
+    private int[] columns(List<String> header) {
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "the CSV is empty");
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            positions.putIfAbsent(header.get(i).replace("﻿", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] columns = new int[COLUMNS.size()];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            Integer position = positions.get(COLUMNS.get(i).toLowerCase(Locale.ROOT));
+            if (position == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "the CSV header must name the columns " + String.join(",", COLUMNS));
+            }
+            columns[i] = position;
+        }
+        return columns;
+    }
+
+    /**
+     * Checks the rows of the chunk in parallel, creates the accepted ones and reports the rejected ones in line order.
+     *
+     * @return The number of students created.
+     */
+    private int importChunk(List<Row> chunk, int[] columns, Map<Long, Optional<School>> schools, JsonGenerator generator) throws IOException {
+        List<Checked> checked = checkers.submit(() -> chunk.parallelStream().map(row -> check(row, columns)).toList()).join();
+        Map<Long, String> unloaded = loadSchools(checked, schools);
+
+        List<BatchItemResult> rejected = new ArrayList<>();
+        List<Accepted> accepted = new ArrayList<>();
+        for (Checked row : checked) {
+            String error = row.error() != null ? row.error() : unloaded.get(row.schoolId());
+            Optional<School> school = error == null ? schools.getOrDefault(row.schoolId(), Optional.empty()) : Optional.empty();
+            if (error == null && school.isEmpty()) {
+                error = "School not found with id: " + row.schoolId();
+            }
+            if (error != null) {
+                rejected.add(BatchItemResult.rejected(row.line(), error));
+            } else {
+                accepted.add(new Accepted(row.line(), row.student(), school.get()));
+            }
+        }
+        Map<Integer, List<Accepted>> byShard = shardRouter.groupByShard(accepted, row -> shardRouter.shardOfSchool(row.school().getId()));
+        int created = 0;
+        for (Map.Entry<Integer, List<Accepted>> group : byShard.entrySet()) {
+            try {
+                List<Student> students = shardRouter.on(group.getKey(),
+                        () -> chunkTransaction.execute(status -> create(group.getKey(), group.getValue())));
+                studentPublisher.created(students);
+                created += students.size();
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("could not import a chunk of {} students", group.getValue().size(), e);
+                String error = "not imported: " + e.getMostSpecificCause().getMessage();
+                group.getValue().forEach(row -> rejected.add(BatchItemResult.rejected(row.line(), error)));
+            }
+        }
+
+        rejected.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+        for (BatchItemResult result : rejected) {
+            writer.writeValue(generator, result);
+        }
+        createdRows.increment(created);
+        rejectedRows.increment(rejected.size());
+        return created;
+    }
+
+    /**
+     * Loads the schools named by the checked rows that are not in the map yet, one query per shard, and adds them to
+     * the map, absent if they do not exist. A shard whose query fails is left out of the map, so that a later chunk
+     * tries again.
+     *
+     * @return The error of every school that could not be looked up, by id.
+     */
+    private Map<Long, String> loadSchools(List<Checked> rows, Map<Long, Optional<School>> schools) {
+        List<Long> unseen = rows.stream().filter(row -> row.error() == null).map(Checked::schoolId)
+                .distinct().filter(id -> !schools.containsKey(id)).toList();
+        Map<Long, String> errors = new HashMap<>();
+        for (Map.Entry<Integer, List<Long>> group : shardRouter.groupByShard(unseen, shardRouter::shardOfSchool).entrySet()) {
+            try {
+                List<School> found = shardRouter.on(group.getKey(), () -> schoolRepository.findAllById(group.getValue()));
+                group.getValue().forEach(id -> schools.put(id, Optional.empty()));
+                found.forEach(school -> schools.put(school.getId(), Optional.of(school)));
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("could not look up {} schools to import students into", group.getValue().size(), e);
+                String error = "not imported: " + e.getMostSpecificCause().getMessage();
+                group.getValue().forEach(id -> errors.put(id, error));
+            }
+        }
+        return errors;
+    }
+
+    private List<Student> create(int shard, List<Accepted> rows) {
+        List<String> rollNumbers = rollNumberAllocator.next(shard, rows.size());
+        List<Student> students = IntStream.range(0, rows.size()).mapToObj(i -> {
+            Student student = studentMapper.toEntity(rows.get(i).student());
+            student.setSchool(rows.get(i).school());
+            student.setRollNumber(rollNumbers.get(i));
+            return student;
+        }).toList();
+        return studentRepository.saveAll(students);
+    }
+
+    /**
+     * Checks one row with the rules of {@link StudentDTO}. Whether its school exists is left to the caller.
+     */
+    private Checked check(Row row, int[] columns) {
+        String[] values = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i] < row.fields().size() ? row.fields().get(columns[i]).trim() : "";
+        }
+        Long schoolId;
+        try {
+            schoolId = values[4].isEmpty() ? null : Long.valueOf(values[4]);
+        } catch (NumberFormatException e) {
+            return Checked.rejected(row.line(), "schoolId must be a number");
+        }
+        StudentDTO student = new StudentDTO(null, values[0], values[1], null, values[2], schoolId, null, values[3], null);
+        String violations = validator.validate(student).stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+        if (!violations.isEmpty()) {
+            return Checked.rejected(row.line(), violations);
+        }
+        Grade grade = Grade.of(student.getGrade());
+        if (grade == null) {
+            return Checked.rejected(row.line(), "invalid grade value must be like G1 to G10");
+        }
+        student.setGrade(grade.getGrade());
+        return new Checked(row.line(), student, schoolId, null);
+    }
+
+    private record Row(int line, List<String> fields) {
+    }
+
+    private record Checked(int line, StudentDTO student, Long schoolId, String error) {
+
+        static Checked rejected(int line, String error) {
+            return new Checked(line, null, null, error);
+        }
+    }
+
+    private record Accepted(int line, StudentDTO student, School school) {
+    }
+}
@@ -0,0 +1,389 @@
+package com.rak.student.ingest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rak.student.domain.School;
+import com.rak.student.domain.Student;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentTicket;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.util.MobileNumbers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind creation of students: accepted students are journaled and queued, and written to the database in
+ * batches by a background writer.
+ * <p>
+ * A student is accepted only while fewer than {@code student.ingest.queue-capacity} are waiting, and is given its id,
+ * drawn from the same pooled sequence as every other student of its shard, before its record is appended to the
+ * journal ({@code student.ingest.journal}). Acceptance returns once the record is on disk, so an accepted student is
+ * written even if the application stops first: at startup the journal is read back and its records queued again,
+ * skipping those already in the database. A record journaled for a request that failed after all is followed in the
+ * journal by a cancel marker, so that it is not written after a restart. The journal is split into segments of one
+ * queue capacity of records each, deleted as soon as all their records are written. The writer takes up to {@code student.ingest.batch-size} records at a time and
+ * inserts those of each shard as one JDBC batch in a transaction of its own. When a batch fails its records are written
+ * one by one, so that only the failing ones are reported failed. A record that cannot be written, whatever the reason,
+ * has its ticket failed and leaves the queue and the journal. Written students become visible to roll number
+ * lookups, the name search and the student counters like students created synchronously.
+ * <p>
+ * {@code student.ingest.queue.depth} reports the waiting students, {@code student.ingest.written},
+ * {@code student.ingest.failed} and {@code student.ingest.rejected} count the outcomes, and {@code student.ingest.batch}
+ * times the batches.
+ */
+@Slf4j
+@Component
+public class StudentIngest {
+
+    private static final String CANCELLED = "cancelled";
+    private static final int STOP_TIMEOUT_SECONDS = 10;
+
+    private static final String INSERT = "insert into student (id, student_name, grade, roll_number, mobile_number, mobile_key, " +
+            "guardian_name, school_id, version) values (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final SessionFactoryImplementor sessionFactory;
+    private final IdentifierGenerator idGenerator;
+    private final TransactionTemplate batchTransaction;
+    private final ObjectMapper objectMapper;
+    private final StudentPublisher studentPublisher;
+    private final int capacity;
+    private final int batchSize;
+    private final Path journalPath;
+
+    private final BlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Map<Long, StudentTicket> pending = new ConcurrentHashMap<>();
+    private final Cache<Long, StudentTicket> failed;
+    private final Counter written;
+    private final Counter failures;
+    private final Counter rejected;
+    private final Timer batchTimer;
+
+    private IngestJournal journal;
+    private ExecutorService writer;
+    private boolean stopped;
+
+    public StudentIngest(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, EntityManagerFactory entityManagerFactory,
+                         PlatformTransactionManager transactionManager, ObjectMapper objectMapper, StudentPublisher studentPublisher,
+                         MeterRegistry meterRegistry,
+                         @Value("${student.ingest.queue-capacity:10000}") int capacity,
+                         @Value("${student.ingest.batch-size:500}") int batchSize,
+                         @Value("${student.ingest.journal:student-ingest.journal}") Path journalPath,
+                         @Value("${student.ingest.failed-ticket-ttl:1h}") Duration failedTicketTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.idGenerator = (IdentifierGenerator) sessionFactory.getMappingMetamodel().getEntityDescriptor(Student.class).getGenerator();
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.studentPublisher = studentPublisher;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.journalPath = journalPath;
+        this.failed = Caffeine.newBuilder().maximumSize(capacity).expireAfterWrite(failedTicketTtl).build();
+        Gauge.builder("student.ingest.queue.depth", depth, AtomicInteger::get)
+                .description("students accepted and waiting to be written")
+                .register(meterRegistry);
+        this.written = Counter.builder("student.ingest.written").description("students written by the ingest writer").register(meterRegistry);
+        this.failures = Counter.builder("student.ingest.failed").description("accepted students that could not be written").register(meterRegistry);
+        this.rejected = Counter.builder("student.ingest.rejected").description("students turned away because the queue was full").register(meterRegistry);
+        this.batchTimer = Timer.builder("student.ingest.batch")
+                .description("time spent writing one batch of accepted students")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the records the previous run accepted but did not write. Runs before the application takes requests, so
+     * that they are ahead of anything accepted now.
+     */
+    @PostConstruct
+    public synchronized void recover() throws IOException {
+        if (!IngestJournal.exists(journalPath)) {
+            return;
+        }
+        List<IngestJournal.Line> lines = journal().replay();
+        Set<Long> cancelled = new HashSet<>();
+        List<Queued> recovered = new ArrayList<>();
+        for (IngestJournal.Line line : lines) {
+            try {
+                JsonNode node = objectMapper.readTree(line.text());
+                if (node.has(CANCELLED)) {
+                    cancelled.add(node.get(CANCELLED).asLong());
+                    journal.written(line.segment(), 1);
+                } else {
+                    recovered.add(new Queued(objectMapper.treeToValue(node, IngestRecord.class), true, line.segment()));
+                }
+            } catch (JsonProcessingException e) {
+                log.warn("skipping unreadable ingest journal line, it was never acknowledged: {}", line.text());
+                journal.written(line.segment(), 1);
+            }
+        }
+        int queued = 0;
+        for (Queued entry : recovered) {
+            IngestRecord record = entry.record();
+            if (cancelled.contains(record.id())) {
+                journal.written(entry.segment(), 1);
+                continue;
+            }
+            pending.put(record.id(), StudentTicket.pending(record.id(), record.rollNumber()));
+            depth.incrementAndGet();
+            queue.add(entry);
+            queued++;
+        }
+        log.info("recovered {} accepted students from the ingest journal", queued);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("student-ingest-"));
+            writer.execute(this::drain);
+        }
+    }
+
+    /**
+     * Stops the writer, waiting for the batch it is writing, then closes the journal for good.
+     */
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        ExecutorService stopping;
+        synchronized (this) {
+            stopping = writer;
+            writer = null;
+        }
+        if (stopping != null) {
+            stopping.shutdownNow();
+            if (!stopping.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("ingest writer did not stop within {} seconds", STOP_TIMEOUT_SECONDS);
+            }
+        }
+        synchronized (this) {
+            stopped = true;
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Accepts a validated student for creation on the given shard.
+     *
+     * @return The pending ticket of the student, carrying its id and roll number.
+     * @throws ResponseStatusException with 429 when the queue is full, or 503 when the record cannot be journaled.
+     */
+    public StudentTicket submit(int shard, StudentDTO studentDTO, String rollNumber) {
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "student ingest queue is full, retry later");
+        }
+        try {
+            IngestRecord record = new IngestRecord(nextId(shard), shard, studentDTO.getStudentName(), studentDTO.getGrade(), rollNumber,
+                    studentDTO.getMobileNumber(), studentDTO.getGuardianName(), studentDTO.getSchoolId());
+            String cancelMarker = objectMapper.writeValueAsString(Map.of(CANCELLED, record.id()));
+            IngestJournal.Segment segment = journal().append(objectMapper.writeValueAsString(record), cancelMarker);
+            StudentTicket ticket = StudentTicket.pending(record.id(), rollNumber);
+            try {
+                pending.put(record.id(), ticket);
+                queue.add(new Queued(record, false, segment));
+            } catch (RuntimeException e) {
+                pending.remove(record.id());
+                journal().cancel(segment, cancelMarker);
+                throw e;
+            }
+            return ticket;
+        } catch (IOException | RuntimeException e) {
+            depth.decrementAndGet();
+            log.error("could not journal accepted student", e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "student ingest journal is unavailable");
+        }
+    }
+
+    /**
+     * Returns the ticket of a student still waiting or that failed, or null if the student was written or is unknown.
+     */
+    public StudentTicket ticket(Long studentId) {
+        StudentTicket ticket = pending.get(studentId);
+        return ticket != null ? ticket : failed.getIfPresent(studentId);
+    }
+
+    public int depth() {
+        return depth.get();
+    }
+
+    private synchronized IngestJournal journal() throws IOException {
+        if (stopped) {
+            throw new IOException("student ingest is stopped");
+        }
+        if (journal == null) {
+            journal = IngestJournal.open(journalPath, capacity);
+        }
+        return journal;
+    }
+
+    /**
+     * Draws an id from the student id generator of the shard, through a session of its own.
+     */
+    private Long nextId(int shard) {
+        return shardRouter.on(shard, () -> {
+            try (StatelessSession session = sessionFactory.openStatelessSession()) {
+                return (Long) idGenerator.generate((SharedSessionContractImplementor) session, null);
+            }
+        });
+    }
+
+    private void drain() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Queued> batch = new ArrayList<>(batchSize);
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            batchTimer.record(() -> write(batch));
+        }
+    }
+
+    /**
+     * Writes the batch shard by shard. Every record leaves the queue, whatever happens to its shard: it is either
+     * created or its ticket is failed, so that a failure never holds capacity or journal lines for good.
+     */
+    private void write(List<Queued> batch) {
+        Map<Integer, List<Queued>> byShard = shardRouter.groupByShard(batch, queued -> queued.record().shard());
+        for (Map.Entry<Integer, List<Queued>> group : byShard.entrySet()) {
+            List<IngestRecord> records = group.getValue().stream().map(Queued::record).toList();
+            boolean replayed = group.getValue().stream().anyMatch(Queued::replayed);
+            List<IngestRecord> created = new ArrayList<>();
+            try {
+                write(group.getKey(), records, replayed, created);
+            } catch (RuntimeException e) {
+                log.error("ingest writer failed on a batch of {} students", records.size(), e);
+                Set<Long> createdIds = created.stream().map(IngestRecord::id).collect(Collectors.toSet());
+                records.stream().filter(record -> !createdIds.contains(record.id()) && failed.getIfPresent(record.id()) == null)
+                        .forEach(record -> failed(record, e));
+            } finally {
+                try {
+                    published(created);
+                } catch (RuntimeException e) {
+                    log.warn("could not publish {} ingested students", created.size(), e);
+                }
+                records.forEach(record -> pending.remove(record.id()));
+                try {
+                    Map<IngestJournal.Segment, Long> bySegment = group.getValue().stream()
+                            .collect(Collectors.groupingBy(Queued::segment, Collectors.counting()));
+                    for (Map.Entry<IngestJournal.Segment, Long> segment : bySegment.entrySet()) {
+                        journal().written(segment.getKey(), segment.getValue().intValue());
+                    }
+                } catch (IOException e) {
+                    log.warn("could not empty the ingest journal, its records will be checked again after a restart", e);
+                }
+                depth.addAndGet(-records.size());
+            }
+        }
+    }
+
+    /**
+     * Writes the records of one shard as one batch, or one by one when the batch fails, adding those inserted to
+     * {@code created} and failing the tickets of those that cannot be.
+     */
+    private void write(int shard, List<IngestRecord> records, boolean replayed, List<IngestRecord> created) {
+        try {
+            created.addAll(shardRouter.on(shard, () -> batchTransaction.execute(status -> insert(records, replayed))));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("ingest batch of {} students failed, writing them one by one", records.size(), e);
+            for (IngestRecord record : records) {
+                try {
+                    created.addAll(shardRouter.on(shard, () -> batchTransaction.execute(status -> insert(List.of(record), replayed))));
+                } catch (DataAccessException | TransactionException failure) {
+                    failed(record, failure);
+                }
+            }
+        }
+    }
+
+    private void failed(IngestRecord record, RuntimeException failure) {
+        failures.increment();
+        String reason = failure instanceof NestedRuntimeException nested ? nested.getMostSpecificCause().getMessage() : failure.getMessage();
+        failed.put(record.id(), StudentTicket.failed(record.id(), record.rollNumber(), reason));
+    }
+
+    /**
+     * Inserts the records, leaving out those of a replayed batch that an earlier run already wrote.
+     *
+     * @return The records inserted.
+     */
+    private List<IngestRecord> insert(List<IngestRecord> records, boolean replayed) {
+        Set<Long> existing = replayed ? existingIds(records) : Collections.emptySet();
+        List<IngestRecord> inserted = records.stream().filter(record -> !existing.contains(record.id())).toList();
+        jdbcTemplate.batchUpdate(INSERT, inserted.stream().map(record -> new Object[]{record.id(), record.studentName(), record.grade(),
+                record.rollNumber(), record.mobileNumber(), MobileNumbers.key(record.mobileNumber()), record.guardianName(),
+                record.schoolId()}).toList());
+        return inserted;
+    }
+
+    private Set<Long> existingIds(List<IngestRecord> records) {
+        String ids = records.stream().map(record -> String.valueOf(record.id())).collect(Collectors.joining(","));
+        return new HashSet<>(jdbcTemplate.queryForList("select id from student where id in (" + ids + ")", Long.class));
+    }
+
+    private void published(List<IngestRecord> records) {
+        studentPublisher.created(records.stream().map(record -> new Student(record.id(), record.studentName(), record.grade(),
+                record.rollNumber(), record.mobileNumber(), record.guardianName(),
+                new School(record.schoolId(), null, null, null, null))).toList());
+        written.increment(records.size());
+    }
+
+    private record Queued(IngestRecord record, boolean replayed, IngestJournal.Segment segment) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.rak.student.ingest;
+
+import com.rak.student.cache.RollNumberCache;
+import com.rak.student.domain.Student;
+import com.rak.student.search.StudentSearchIndex;
+import com.rak.student.stats.StudentCounters;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Makes students committed outside the student service visible to roll number lookups, the name search and the
+ * student counters, as the service does for the students it creates.
+ */
+@Component
+@RequiredArgsConstructor
+public class StudentPublisher {
+
+    private final RollNumberCache rollNumberCache;
+    private final StudentSearchIndex studentSearchIndex;
+    private final StudentCounters studentCounters;
+
+    /**
+     * Publishes committed new students.
+     */
+    public void created(List<Student> students) {
+        students.forEach(student -> rollNumberCache.invalidateMissing(student.getRollNumber()));
+        studentSearchIndex.index(students);
+        studentCounters.added(students);
+    }
+}
@@ -14,6 +14,7 @@ public interface StudentMapper {
     StudentDTO toDTO(Student student);
 
     @Mapping(target = "school.id", source = "schoolId")
+    @Mapping(target = "version", ignore = true)
     Student toEntity(StudentDTO studentDTO);
 }
 
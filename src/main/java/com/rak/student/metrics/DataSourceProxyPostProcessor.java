@@ -0,0 +1,61 @@
+package com.rak.student.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Wraps every {@link DataSource} bean in a datasource-proxy {@link ProxyDataSource} reporting to the
+ * {@link SqlStatementCounter}. A routing data source is left alone, since the proxy in front of it already counts the
+ * statements run on its targets.
+ * <p>
+ * The counter is looked up on first use rather than injected, so this post-processor does not force the
+ * meter registry to be created before the other post-processors have been registered.
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlStatementCounter> sqlStatementCounter;
+
+    public DataSourceProxyPostProcessor(ObjectProvider<SqlStatementCounter> sqlStatementCounter) {
+        this.sqlStatementCounter = sqlStatementCounter;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource) && !(bean instanceof AbstractRoutingDataSource)) {
+            return ProxyDataSourceBuilder.create(beanName, dataSource)
+                    .listener(new LazyListener())
+                    .build();
+        }
+        return bean;
+    }
+
+    private class LazyListener implements QueryExecutionListener {
+
+        private volatile SqlStatementCounter delegate;
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SqlStatementCounter counter = delegate;
+            if (counter == null) {
+                counter = sqlStatementCounter.getObject();
+                delegate = counter;
+            }
+            counter.afterQuery(execInfo, queryInfoList);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.rak.student.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the JDBC statements executed through the proxied data source, in total and per request.
+ * <p>
+ * Every execution (one round trip; a JDBC batch counts once) increments {@code db.statements} tagged with its
+ * {@code type} and is timed by {@code db.statement.time}. While a {@link Scope} is {@link #start() started}
+ * on the current thread, the execution is also added to it and to the scopes it was started within. As a
+ * {@link TaskDecorator} it carries the scope
+ * of the submitting thread over to executor threads, so asynchronous queries count towards their request.
+ */
+@Component
+public class SqlStatementCounter implements QueryExecutionListener, TaskDecorator {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final Map<QueryType, Counter> statements = new EnumMap<>(QueryType.class);
+    private final Timer statementTime;
+
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        for (QueryType type : QueryType.values()) {
+            statements.put(type, Counter.builder("db.statements")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .description("JDBC statement executions")
+                    .register(meterRegistry));
+        }
+        this.statementTime = Timer.builder("db.statement.time")
+                .description("JDBC statement execution time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts counting the statements of the current thread, and of the tasks it hands to decorated executors.
+     * A scope started within another one also counts towards the outer scope.
+     */
+    public Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Stops the innermost scope of the current thread, resuming the scope it was started within.
+     */
+    public void stop() {
+        Scope scope = CURRENT.get();
+        if (scope == null || scope.parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope.parent);
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        QueryType type = queryInfoList.isEmpty() ? QueryType.OTHER : QueryUtils.getQueryType(queryInfoList.get(0).getQuery());
+        statements.get(type).increment();
+        statementTime.record(execInfo.getElapsedTime(), TimeUnit.MILLISECONDS);
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statements.increment();
+            scope.millis.add(execInfo.getElapsedTime());
+        }
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return runnable;
+        }
+        return () -> {
+            Scope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                runnable.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Statements executed within one request, possibly from several threads.
+     */
+    public static class Scope {
+
+        private final Scope parent;
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder millis = new LongAdder();
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        public long getMillis() {
+            return millis.sum();
+        }
+    }
+}
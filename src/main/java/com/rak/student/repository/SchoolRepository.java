@@ -1,10 +1,32 @@
 package com.rak.student.repository;
 
 import com.rak.student.domain.School;
+import com.rak.student.dto.CollectionVersion;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 @Repository
 public interface SchoolRepository extends JpaRepository<School, Long> {
-}
 
+    /**
+     * Pages are kept in the query cache and their schools in the school entity cache, so a repeated page costs
+     * no SQL until a school is written.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<School> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    /**
+     * Version of the whole school table for the listing ETag, kept in the query cache until a school is written.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.rak.student.dto.CollectionVersion(count(s), coalesce(max(s.id), 0L), coalesce(sum(s.version), 0L)) from School s")
+    CollectionVersion findCollectionVersion();
+}
@@ -0,0 +1,21 @@
+package com.rak.student.repository;
+
+import com.rak.student.domain.Student;
+import com.rak.student.dto.StudentDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Student queries built at runtime, implemented by {@link StudentQueryRepositoryImpl}.
+ */
+public interface StudentQueryRepository {
+
+    /**
+     * Builds StudentDTO rows straight from one student join school select, like {@link StudentRepository#STUDENT_DTO_QUERY},
+     * for the students matching the specification.
+     */
+    List<StudentDTO> findDtos(Specification<Student> specification, Sort sort, Limit limit);
+}
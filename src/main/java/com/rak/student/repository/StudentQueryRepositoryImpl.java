@@ -0,0 +1,44 @@
+package com.rak.student.repository;
+
+import com.rak.student.domain.School;
+import com.rak.student.domain.Student;
+import com.rak.student.dto.StudentDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+class StudentQueryRepositoryImpl implements StudentQueryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<StudentDTO> findDtos(Specification<Student> specification, Sort sort, Limit limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<StudentDTO> query = cb.createQuery(StudentDTO.class);
+        Root<Student> s = query.from(Student.class);
+        // every student has a school, so a left join returns the same rows, but it keeps the student table first in the
+        // join order, where the filters and the order by can use the student indexes
+        Join<Student, School> sc = s.join("school", JoinType.LEFT);
+        query.select(cb.construct(StudentDTO.class, s.get("id"), s.get("studentName"), s.get("grade"), s.get("rollNumber"),
+                s.get("mobileNumber"), sc.get("id"), sc.get("name"), s.get("guardianName"), sc.get("logoUrl")));
+        query.where(specification.toPredicate(s, query, cb));
+        query.orderBy(QueryUtils.toOrders(sort, s, cb));
+        TypedQuery<StudentDTO> typedQuery = entityManager.createQuery(query);
+        if (limit.isLimited()) {
+            typedQuery.setMaxResults(limit.max());
+        }
+        return typedQuery.getResultList();
+    }
+}
@@ -1,13 +1,82 @@
 package com.rak.student.repository;
 
 import com.rak.student.domain.Student;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.search.IndexedStudent;
+import com.rak.student.stats.SchoolGradeCount;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface StudentRepository extends JpaRepository<Student, Long> {
+public interface StudentRepository extends JpaRepository<Student, Long>, StudentQueryRepository {
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    /**
+     * Builds StudentDTO rows straight from a single student join school select, without hydrating entities.
+     */
+    String STUDENT_DTO_QUERY = "select new com.rak.student.dto.StudentDTO(s.id, s.studentName, s.grade, s.rollNumber, " +
+            "s.mobileNumber, sc.id, sc.name, s.guardianName, sc.logoUrl) from Student s join s.school sc";
+
+    @Transactional(readOnly = true)
     Optional<Student> findFirstByRollNumber(String rollNo);
-}
 
+    @Query(STUDENT_DTO_QUERY + " where s.id > :after order by s.id")
+    List<StudentDTO> findDtosByIdGreaterThan(Long after, Limit limit);
+
+    @Query(STUDENT_DTO_QUERY + " where s.id in :ids")
+    List<StudentDTO> findDtosByIdIn(Collection<Long> ids);
+
+    @Query(STUDENT_DTO_QUERY + " where s.mobileKey = :mobileKey order by s.id")
+    List<StudentDTO> findDtosByMobileKey(String mobileKey, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query(STUDENT_DTO_QUERY + " where s.rollNumber in :rollNumbers")
+    List<StudentDTO> findDtosByRollNumberIn(Collection<String> rollNumbers);
+
+    /**
+     * Streams every student together with its school, in id order. Must be consumed inside a transaction
+     * and closed afterwards. Rows are pulled from the driver in chunks of the fetch size and loaded read-only,
+     * so Hibernate keeps no dirty-checking snapshots for them, and bypass the second-level cache so an export
+     * does not evict the students being served.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("select s from Student s join fetch s.school order by s.id")
+    Stream<Student> streamAllBy();
+
+    /**
+     * Streams the searchable fields of every student, used to rebuild the name search index. Must be consumed inside a
+     * transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("select new com.rak.student.search.IndexedStudent(s.id, s.version, s.studentName, s.guardianName, s.rollNumber, " +
+            "s.school.id) from Student s")
+    Stream<IndexedStudent> streamIndexedStudents();
+
+    /**
+     * Counts the students of every school in every grade, used to rebuild the student counters.
+     */
+    @Query("select new com.rak.student.stats.SchoolGradeCount(s.school.id, s.grade, count(s)) from Student s group by s.school.id, s.grade")
+    List<SchoolGradeCount> countBySchoolAndGrade();
+
+    /**
+     * Reserves the next block of roll numbers and returns its first value.
+     */
+    @Query(value = "select next value for roll_number_seq", nativeQuery = true)
+    long nextRollNumberBlock();
+}
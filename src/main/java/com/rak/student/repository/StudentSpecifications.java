@@ -0,0 +1,69 @@
+package com.rak.student.repository;
+
+import com.rak.student.domain.Student;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicates of filtered student listings, each matching a leading column of one of the student indexes so that
+ * every combination of them is answered from an index.
+ */
+@UtilityClass
+public class StudentSpecifications {
+
+    /**
+     * Matches everything; the starting point to add filters to.
+     */
+    public static Specification<Student> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<Student> inSchool(Long schoolId) {
+        return (root, query, cb) -> cb.equal(root.get("school").get("id"), schoolId);
+    }
+
+    public static Specification<Student> inGrade(String grade) {
+        return (root, query, cb) -> cb.equal(root.get("grade"), grade);
+    }
+
+    /**
+     * Names starting with the prefix, written as a range rather than a {@code LIKE} so that the index on the name
+     * is used even though the prefix is a bind parameter.
+     */
+    public static Specification<Student> nameStartsWith(String prefix) {
+        String upperBound = successor(prefix);
+        return (root, query, cb) -> upperBound == null
+                ? cb.greaterThanOrEqualTo(root.get("studentName"), prefix)
+                : cb.and(cb.greaterThanOrEqualTo(root.get("studentName"), prefix), cb.lessThan(root.get("studentName"), upperBound));
+    }
+
+    /**
+     * Keyset predicate of a listing ordered by id.
+     */
+    public static Specification<Student> idAfter(long after) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), after);
+    }
+
+    /**
+     * Keyset predicate of a listing ordered by name then id. The redundant {@code studentName >= name} gives the
+     * database a range to start the index scan at.
+     */
+    public static Specification<Student> nameAfter(String studentName, long id) {
+        return (root, query, cb) -> cb.and(cb.greaterThanOrEqualTo(root.get("studentName"), studentName),
+                cb.or(cb.greaterThan(root.get("studentName"), studentName),
+                        cb.and(cb.equal(root.get("studentName"), studentName), cb.greaterThan(root.get("id"), id))));
+    }
+
+    /**
+     * The smallest string greater than every string starting with the prefix, or null if there is none.
+     */
+    static String successor(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            char c = prefix.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package com.rak.student.search;
+
+/**
+ * The fields of a student kept in the {@link NameIndex}. {@code version} orders updates of the same student, so an
+ * older copy never replaces a newer one.
+ */
+public record IndexedStudent(Long id, long version, String studentName, String guardianName, String rollNumber, Long schoolId) {
+}
@@ -0,0 +1,535 @@
+package com.rak.student.search;
+
+import com.rak.student.dto.StudentSearchHit;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over the words of student and guardian names, answering ranked prefix and fuzzy searches.
+ * <p>
+ * Names are split into lower-cased words with accents removed. Every distinct word is a term of a sorted dictionary,
+ * so the terms starting with a prefix are one contiguous range, and is also listed under its trigrams, so the terms
+ * within one or two edits of a misspelt word are found without comparing against the whole dictionary. Each term
+ * holds a posting list of the students whose names contain it.
+ * <p>
+ * Every query word has to match a word of the student's name or guardian name. A word matches exactly
+ * ({@value #EXACT}), as a prefix ({@value #PREFIX}) or within {@link #maxEdits edits} ({@value #FUZZY}), and counts
+ * half when it is found in the guardian name only. A student's score is the sum over the query words. Candidates are
+ * taken from the postings of the most selective query word, best match first, and the scan stops as soon as no
+ * remaining candidate can enter the top results, so a common name costs the same as a rare one.
+ * <p>
+ * Students are stored in append-only slots. Updating a student moves it to a new slot and leaves the postings of the
+ * old slot behind, which are skipped until enough of them pile up to compact the index. Reads run in parallel under a
+ * read lock; writes take the write lock.
+ */
+public class NameIndex {
+
+    static final float EXACT = 1f;
+    static final float PREFIX = 0.8f;
+    static final float FUZZY = 0.5f;
+    static final float GUARDIAN_NAME_WEIGHT = 0.5f;
+
+    static final int MAX_QUERY_WORDS = 5;
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int GUARDIAN_FIELD = 1;
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+
+    // rough per-object sizes for the footprint estimate, on a 64-bit JVM with compressed references
+    private static final int STRING_BYTES = 40;
+    private static final int MAP_ENTRY_BYTES = 48;
+    private static final int ARRAY_BYTES = 16;
+    private static final int SLOT_BYTES = 3 * 8 + 5 * 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long[] ids = new long[0];
+    private long[] versions = new long[0];
+    private long[] schoolIds = new long[0];
+    private String[] rollNumbers = new String[0];
+    private String[] studentNames = new String[0];
+    private String[] guardianNames = new String[0];
+    private String[][] studentNameWords = new String[0][];
+    private String[][] guardianNameWords = new String[0][];
+    private int slotCount;
+
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, List<String>> termsByTrigram = new HashMap<>();
+
+    private long stringBytes;
+    private long postingBytes;
+    private long trigramEntries;
+
+    /**
+     * Adds the student or replaces an older version of it. A copy no newer than the one held is ignored.
+     */
+    public void put(IndexedStudent student) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(student.id());
+            if (slot != null) {
+                if (versions[slot] >= student.version()) {
+                    return;
+                }
+                clear(slot);
+            }
+            add(student);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot != null) {
+                clear(slot);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} students matching every word of the query, best first.
+     * Equal scores keep the order the students were found in.
+     */
+    public List<StudentSearchHit> search(String query, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (words.size() > MAX_QUERY_WORDS) {
+            words = words.subList(0, MAX_QUERY_WORDS);
+        }
+        lock.readLock().lock();
+        try {
+            return collect(words, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate heap held by the index in bytes: slot arrays, names, postings, dictionary and trigram lists.
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long slots = (long) ids.length * SLOT_BYTES + (long) slotCount * 2 * ARRAY_BYTES;
+            long byId = (long) slotsById.size() * (MAP_ENTRY_BYTES + 2 * ARRAY_BYTES);
+            long dictionary = (long) terms.size() * (MAP_ENTRY_BYTES + STRING_BYTES + ARRAY_BYTES + 8);
+            long trigrams = (long) termsByTrigram.size() * (MAP_ENTRY_BYTES + STRING_BYTES + ARRAY_BYTES) + trigramEntries * 4;
+            return slots + byId + stringBytes + postingBytes + dictionary + trigrams;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<StudentSearchHit> collect(List<String> words, int limit) {
+        Map<String, List<MatchClass>> classesByWord = new LinkedHashMap<>();
+        float ceiling = 0;
+        for (String word : words) {
+            List<MatchClass> classes = matchClasses(word);
+            if (classes.isEmpty()) {
+                return List.of();
+            }
+            classesByWord.put(word, classes);
+            ceiling += classes.get(0).weight();
+        }
+        String driver = mostSelective(classesByWord);
+        List<MatchClass> driverClasses = classesByWord.get(driver);
+        float otherWords = ceiling - driverClasses.get(0).weight();
+        PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, Candidate.WORST_FIRST);
+        Set<Integer> seen = new HashSet<>();
+        long order = 0;
+
+        for (MatchClass matchClass : driverClasses) {
+            float bound = matchClass.weight() + otherWords;
+            for (Postings list : matchClass.terms().get()) {
+                for (int i = 0; i < list.size; i++) {
+                    if (top.size() == limit && top.peek().score() >= bound) {
+                        return toHits(top);
+                    }
+                    int slot = list.items[i] >>> 1;
+                    if (ids[slot] == 0 || !seen.add(slot)) {
+                        continue;
+                    }
+                    float score = score(slot, words);
+                    if (score > 0) {
+                        top.add(new Candidate(slot, score, order++));
+                        if (top.size() > limit) {
+                            top.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return toHits(top);
+    }
+
+    private List<StudentSearchHit> toHits(PriorityQueue<Candidate> top) {
+        List<Candidate> best = new ArrayList<>(top);
+        best.sort(Collections.reverseOrder(Candidate.WORST_FIRST));
+        List<StudentSearchHit> hits = new ArrayList<>(best.size());
+        for (Candidate candidate : best) {
+            int slot = candidate.slot();
+            hits.add(new StudentSearchHit(ids[slot], rollNumbers[slot], studentNames[slot], guardianNames[slot],
+                    schoolIds[slot] == 0 ? null : schoolIds[slot], candidate.score()));
+        }
+        return hits;
+    }
+
+    /**
+     * The query word whose best matches have the fewest postings, counting no further than the best so far. Its best
+     * matches are scanned first and usually fill the top results on their own.
+     */
+    private static String mostSelective(Map<String, List<MatchClass>> classesByWord) {
+        String best = null;
+        long bestCount = Long.MAX_VALUE;
+        for (Map.Entry<String, List<MatchClass>> word : classesByWord.entrySet()) {
+            long count = 0;
+            for (Postings postings : word.getValue().get(0).terms().get()) {
+                count += postings.size;
+                if (count >= bestCount) {
+                    break;
+                }
+            }
+            if (best == null || count < bestCount || (count == bestCount && word.getKey().length() > best.length())) {
+                best = word.getKey();
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The terms matching a query word, grouped by how well they match, best first. Fuzzy terms are looked up only when
+     * the scan gets to them, unless the word has no better match.
+     */
+    private List<MatchClass> matchClasses(String word) {
+        List<MatchClass> classes = new ArrayList<>(3);
+        Postings exact = terms.get(word);
+        if (exact != null) {
+            classes.add(new MatchClass(EXACT, () -> List.of(exact)));
+        }
+        Map<String, Postings> longer = terms.subMap(word, false, word + Character.MAX_VALUE, false);
+        if (!longer.isEmpty()) {
+            classes.add(new MatchClass(PREFIX, longer::values));
+        }
+        if (!classes.isEmpty()) {
+            classes.add(new MatchClass(FUZZY, () -> fuzzyPostings(word)));
+            return classes;
+        }
+        List<Postings> fuzzy = fuzzyPostings(word);
+        if (!fuzzy.isEmpty()) {
+            classes.add(new MatchClass(FUZZY, () -> fuzzy));
+        }
+        return classes;
+    }
+
+    private List<Postings> fuzzyPostings(String word) {
+        return fuzzyTerms(word).stream().filter(term -> !term.startsWith(word)).map(terms::get).toList();
+    }
+
+    /**
+     * Terms within {@link #maxEdits} of the word. Each edit changes at most three of a word's padded trigrams, so a term
+     * sharing fewer trigrams than that allows cannot be close enough and is not compared.
+     */
+    private List<String> fuzzyTerms(String word) {
+        int edits = maxEdits(word);
+        if (edits == 0) {
+            return List.of();
+        }
+        List<String> grams = trigrams(word);
+        int required = Math.max(1, grams.size() - 3 * edits);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            for (String term : termsByTrigram.getOrDefault(gram, List.of())) {
+                if (Math.abs(term.length() - word.length()) <= edits) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        List<String> matches = new ArrayList<>();
+        shared.forEach((term, count) -> {
+            if (count >= required && !term.equals(word) && distance(word, term, edits) <= edits) {
+                matches.add(term);
+            }
+        });
+        matches.sort(Comparator.naturalOrder());
+        return matches;
+    }
+
+    /**
+     * Sum of the best match of every query word, or 0 if some word matches neither name.
+     */
+    private float score(int slot, List<String> words) {
+        float total = 0;
+        for (String word : words) {
+            float best = Math.max(match(word, studentNameWords[slot]), match(word, guardianNameWords[slot]) * GUARDIAN_NAME_WEIGHT);
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    private static float match(String word, String[] nameWords) {
+        float best = 0;
+        int edits = maxEdits(word);
+        for (String nameWord : nameWords) {
+            if (nameWord.equals(word)) {
+                return EXACT;
+            }
+            if (nameWord.startsWith(word)) {
+                best = PREFIX;
+            } else if (best == 0 && edits > 0 && Math.abs(nameWord.length() - word.length()) <= edits
+                    && distance(word, nameWord, edits) <= edits) {
+                best = FUZZY;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Words shorter than four letters only match exactly or as a prefix; longer ones tolerate one typo, and words of
+     * eight letters or more two.
+     */
+    static int maxEdits(String word) {
+        return word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein distance, giving up with {@code max + 1} as soon as it must exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Lower-cased words of a name or query, accents removed.
+     */
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+        return Arrays.stream(SEPARATORS.split(folded)).filter(word -> !word.isEmpty()).distinct().toList();
+    }
+
+    private static List<String> trigrams(String word) {
+        String padded = "$" + word + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private void add(IndexedStudent student) {
+        int slot = slotCount++;
+        ensureCapacity(slotCount);
+        ids[slot] = student.id();
+        versions[slot] = student.version();
+        schoolIds[slot] = student.schoolId() == null ? 0 : student.schoolId();
+        rollNumbers[slot] = student.rollNumber();
+        studentNames[slot] = student.studentName();
+        guardianNames[slot] = student.guardianName();
+        studentNameWords[slot] = post(slot, 0, student.studentName());
+        guardianNameWords[slot] = post(slot, GUARDIAN_FIELD, student.guardianName());
+        slotsById.put(student.id(), slot);
+        stringBytes += stringBytes(slot);
+    }
+
+    /**
+     * Adds the slot to the postings of every word of the name and returns the words, sharing the dictionary's strings.
+     */
+    private String[] post(int slot, int field, String name) {
+        List<String> words = words(name);
+        String[] shared = new String[words.size()];
+        for (int i = 0; i < shared.length; i++) {
+            String word = words.get(i);
+            Postings postings = terms.get(word);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(word, postings);
+                for (String gram : trigrams(word)) {
+                    termsByTrigram.computeIfAbsent(gram, key -> new ArrayList<>()).add(word);
+                    trigramEntries++;
+                }
+                stringBytes += STRING_BYTES + word.length();
+            }
+            postingBytes += postings.add(slot << 1 | field);
+            shared[i] = terms.ceilingKey(word);
+        }
+        return shared;
+    }
+
+    private void clear(int slot) {
+        stringBytes -= stringBytes(slot);
+        ids[slot] = 0;
+        rollNumbers[slot] = null;
+        studentNames[slot] = null;
+        guardianNames[slot] = null;
+        studentNameWords[slot] = null;
+        guardianNameWords[slot] = null;
+    }
+
+    private long stringBytes(int slot) {
+        return 3L * STRING_BYTES + length(rollNumbers[slot]) + length(studentNames[slot]) + length(guardianNames[slot])
+                + 4L * (studentNameWords[slot].length + guardianNameWords[slot].length);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Rebuilds slots, postings and dictionary from the live students once dead slots outnumber them.
+     */
+    private void compactIfSparse() {
+        int dead = slotCount - slotsById.size();
+        if (dead < MIN_COMPACTION_SLOTS || dead < slotsById.size()) {
+            return;
+        }
+        List<IndexedStudent> live = new ArrayList<>(slotsById.size());
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (ids[slot] != 0) {
+                live.add(new IndexedStudent(ids[slot], versions[slot], studentNames[slot], guardianNames[slot],
+                        rollNumbers[slot], schoolIds[slot] == 0 ? null : schoolIds[slot]));
+            }
+        }
+        slotCount = 0;
+        slotsById.clear();
+        terms.clear();
+        termsByTrigram.clear();
+        stringBytes = 0;
+        postingBytes = 0;
+        trigramEntries = 0;
+        allocate(live.size());
+        live.forEach(this::add);
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        versions = new long[capacity];
+        schoolIds = new long[capacity];
+        rollNumbers = new String[capacity];
+        studentNames = new String[capacity];
+        guardianNames = new String[capacity];
+        studentNameWords = new String[capacity][];
+        guardianNameWords = new String[capacity][];
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(slots, Math.max(16, ids.length + (ids.length >> 1)));
+        ids = Arrays.copyOf(ids, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        schoolIds = Arrays.copyOf(schoolIds, capacity);
+        rollNumbers = Arrays.copyOf(rollNumbers, capacity);
+        studentNames = Arrays.copyOf(studentNames, capacity);
+        guardianNames = Arrays.copyOf(guardianNames, capacity);
+        studentNameWords = Arrays.copyOf(studentNameWords, capacity);
+        guardianNameWords = Arrays.copyOf(guardianNameWords, capacity);
+    }
+
+    /**
+     * Growable list of {@code slot << 1 | field} entries.
+     */
+    private static final class Postings {
+
+        private int[] items = new int[2];
+        private int size;
+
+        /**
+         * @return the bytes the list grew by
+         */
+        private long add(int item) {
+            long grown = 0;
+            if (size == items.length) {
+                int[] larger = Arrays.copyOf(items, items.length * 2);
+                grown = 4L * (larger.length - items.length);
+                items = larger;
+            }
+            items[size++] = item;
+            return grown;
+        }
+    }
+
+    private record MatchClass(float weight, Supplier<Collection<Postings>> terms) {
+    }
+
+    private record Candidate(int slot, float score, long order) {
+
+        /**
+         * Lowest score first and, among equal scores, the candidate found last, so the heap drops it first.
+         */
+        private static final Comparator<Candidate> WORST_FIRST = Comparator.comparingDouble(Candidate::score)
+                .thenComparing(Comparator.comparingLong(Candidate::order).reversed());
+    }
+}
@@ -0,0 +1,118 @@
+package com.rak.student.search;
+
+import com.rak.student.domain.Student;
+import com.rak.student.dto.StudentSearchHit;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.DoubleBuffer;
+import com.rak.student.shard.ShardRouter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Name search over every student, served from a {@link NameIndex} held in memory.
+ * <p>
+ * The index is built from the student table once the application is ready and kept up to date by the student service
+ * after every committed create, update and delete. A rebuild fills a new index as a {@link DoubleBuffer}; writes carry
+ * the student's version so the rebuild cannot put back an older copy, and deletes committed during the rebuild are
+ * applied again before the swap. The footprint and size of the index are published as
+ * {@code student.search.index.*} gauges and the time spent in the index as {@code student.search.query}.
+ */
+@Slf4j
+@Component
+public class StudentSearchIndex {
+
+    private final StudentRepository studentRepository;
+    private final DoubleBuffer<NameIndex> indexes;
+    private final Timer queryTimer;
+    private final Set<Long> removedWhileBuilding = ConcurrentHashMap.newKeySet();
+
+    public StudentSearchIndex(StudentRepository studentRepository, ShardRouter shardRouter, PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry) {
+        this.studentRepository = studentRepository;
+        this.indexes = new DoubleBuffer<>(shardRouter, transactionManager);
+        this.queryTimer = Timer.builder("student.search.query")
+                .description("time spent searching the in-memory name index")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        gauge(meterRegistry, "student.search.index.bytes", "estimated heap held by the name index", NameIndex::estimatedBytes);
+        gauge(meterRegistry, "student.search.index.students", "students in the name index", NameIndex::size);
+        gauge(meterRegistry, "student.search.index.terms", "distinct name words in the name index", NameIndex::termCount);
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String description, ToDoubleFunction<NameIndex> value) {
+        Gauge.builder(name, indexes, buffer -> buffer.current() == null ? 0 : value.applyAsDouble(buffer.current()))
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the best matches of the query, best first.
+     *
+     * @throws ResponseStatusException with 503 while the index is first being built.
+     */
+    public List<StudentSearchHit> search(String query, int limit) {
+        NameIndex index = indexes.current();
+        if (index == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "student search index is being built");
+        }
+        return queryTimer.record(() -> index.search(query, limit));
+    }
+
+    /**
+     * Adds or refreshes committed students.
+     */
+    public void index(Collection<Student> students) {
+        students.forEach(student -> put(new IndexedStudent(student.getId(), student.getVersion(), student.getStudentName(),
+                student.getGuardianName(), student.getRollNumber(), student.getSchool() == null ? null : student.getSchool().getId())));
+    }
+
+    /**
+     * Drops a committed delete.
+     */
+    public void remove(Long studentId) {
+        if (indexes.isBuilding()) {
+            removedWhileBuilding.add(studentId);
+        }
+        indexes.apply(index -> index.remove(studentId));
+    }
+
+    private void put(IndexedStudent student) {
+        indexes.apply(index -> index.put(student));
+    }
+
+    public boolean isReady() {
+        return indexes.current() != null;
+    }
+
+    /**
+     * Builds a new index from the student table of every shard and swaps it in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        NameIndex next = new NameIndex();
+        removedWhileBuilding.clear();
+        indexes.rebuild(next, index -> {
+            try (Stream<IndexedStudent> students = studentRepository.streamIndexedStudents()) {
+                students.filter(student -> !removedWhileBuilding.contains(student.id())).forEach(index::put);
+            }
+        }, index -> removedWhileBuilding.forEach(index::remove));
+        log.info("student search index built with {} students and {} terms in {} ms, about {} MB", next.size(), next.termCount(),
+                (System.nanoTime() - started) / 1_000_000, next.estimatedBytes() / (1024 * 1024));
+    }
+}
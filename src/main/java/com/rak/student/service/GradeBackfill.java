@@ -0,0 +1,98 @@
+package com.rak.student.service;
+
+import com.rak.student.domain.Student;
+import com.rak.student.shard.ShardRouter;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores the grade of students written before grades were kept in their canonical case, such as {@code g3}, as
+ * {@code G3}, so that the grade filter, which looks up the canonical value, finds them.
+ * <p>
+ * Runs once at startup when {@code student.grade-backfill.enabled} is set, and may be run again safely: only rows whose
+ * grade is not in upper case are touched. Every shard is walked by keyset in chunks of
+ * {@code student.grade-backfill.chunk-size}, each read and written in a short transaction of its own. Unlike the
+ * {@link MobileKeyBackfill}, the rows' version is incremented, since the grade is part of a student's body and clients
+ * holding its ETag must see the change. Updated students are evicted from the second-level cache.
+ */
+@Slf4j
+@Component
+public class GradeBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final boolean enabled;
+    private final int chunkSize;
+
+    public GradeBackfill(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, EntityManagerFactory entityManagerFactory,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${student.grade-backfill.enabled:false}") boolean enabled,
+                         @Value("${student.grade-backfill.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnStartup() {
+        if (enabled) {
+            CompletableFuture.runAsync(this::run).exceptionally(e -> {
+                log.error("grade backfill failed, restart to resume it", e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Backfills every shard and returns the number of students updated.
+     */
+    public synchronized long run() {
+        long started = System.nanoTime();
+        long updated = 0;
+        for (int shard : shardRouter.allShards()) {
+            updated += backfill(shard);
+        }
+        log.info("grade backfill updated {} students in {} ms", updated, (System.nanoTime() - started) / 1_000_000);
+        return updated;
+    }
+
+    /**
+     * Backfills the students of the shard, one chunk per transaction.
+     */
+    private long backfill(int shard) {
+        long updated = 0;
+        long cursor = 0;
+        while (true) {
+            long after = cursor;
+            List<Long> chunk = shardRouter.on(shard, () -> chunkTransaction.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(
+                        "select id from student where id > ? and grade <> upper(grade) order by id fetch first ? rows only",
+                        Long.class, after, chunkSize);
+                jdbcTemplate.batchUpdate("update student set grade = upper(grade), version = version + 1 where id = ? and grade <> upper(grade)",
+                        ids.stream().map(id -> new Object[]{id}).toList());
+                return ids;
+            }));
+            chunk.forEach(id -> entityManagerFactory.getCache().evict(Student.class, id));
+            updated += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return updated;
+            }
+            cursor = chunk.get(chunk.size() - 1);
+        }
+    }
+}
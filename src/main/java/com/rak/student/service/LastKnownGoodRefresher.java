@@ -0,0 +1,88 @@
+package com.rak.student.service;
+
+import com.rak.student.async.BoundedExecutor;
+import com.rak.student.cache.LastKnownGoodStore;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.ShardRouter;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Refreshes the {@link LastKnownGoodStore} in the background when the roll number circuit breaker half-opens.
+ * <p>
+ * Each chunk of roll numbers is re-read with one {@code IN (...)} query run through the breaker, so the refresh
+ * doubles as its half-open trial calls: success helps close the breaker and the first failure stops the refresh.
+ * Roll numbers that no longer exist are dropped from the store.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastKnownGoodRefresher {
+
+    static final String CIRCUIT_BREAKER = "getStudentApiCircuitBreaker";
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final StudentRepository studentRepository;
+    private final LastKnownGoodStore lastKnownGoodStore;
+    private final BoundedExecutor studentQueryExecutor;
+    private final ShardRouter shardRouter;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    @PostConstruct
+    void subscribe() {
+        circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER).getEventPublisher().onStateTransition(event -> {
+            if (event.getStateTransition().getToState() == CircuitBreaker.State.HALF_OPEN) {
+                studentQueryExecutor.execute(this::refresh);
+            }
+        });
+    }
+
+    /**
+     * Re-reads every roll number held in the store. Does nothing if a refresh is already running.
+     */
+    void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(CIRCUIT_BREAKER);
+        List<String> rollNumbers = lastKnownGoodStore.rollNumbers();
+        int refreshed = 0;
+        try {
+            for (int from = 0; from < rollNumbers.size(); from += StudentServiceImpl.LOOKUP_CHUNK_SIZE) {
+                List<String> chunk = rollNumbers.subList(from, Math.min(rollNumbers.size(), from + StudentServiceImpl.LOOKUP_CHUNK_SIZE));
+                List<StudentDTO> students = circuitBreaker.executeSupplier(() -> findByRollNumbers(chunk));
+                students.forEach(lastKnownGoodStore::put);
+                Set<String> found = students.stream().map(StudentDTO::getRollNumber).collect(Collectors.toSet());
+                chunk.stream().filter(rollNo -> !found.contains(rollNo)).forEach(lastKnownGoodStore::invalidate);
+                refreshed += chunk.size();
+            }
+            log.info("refreshed {} last known good students", refreshed);
+        } catch (Exception e) {
+            log.warn("stopped last known good refresh after {} of {} students: {}", refreshed, rollNumbers.size(), e.toString());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Looks the roll numbers up on the shards they were allocated on, one query per shard.
+     */
+    private List<StudentDTO> findByRollNumbers(List<String> rollNumbers) {
+        List<StudentDTO> students = new ArrayList<>();
+        shardRouter.groupByShard(rollNumbers, shardRouter::shardOfRollNumber).forEach((shard, keys) ->
+                students.addAll(shardRouter.on(shard, () -> studentRepository.findDtosByRollNumberIn(keys))));
+        return students;
+    }
+}
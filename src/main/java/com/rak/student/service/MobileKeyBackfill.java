@@ -0,0 +1,126 @@
+package com.rak.student.service;
+
+import com.rak.student.domain.Student;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.util.MobileNumbers;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fills in the mobile key of students written before the column existed.
+ * <p>
+ * Runs once at startup when {@code student.mobile-key-backfill.enabled} is set, and may be run again safely: only rows
+ * whose key is still null are touched. On every shard the ids of those rows are split into
+ * {@code student.mobile-key-backfill.parallelism} ranges, each walked by keyset in chunks of
+ * {@code student.mobile-key-backfill.chunk-size}. Every chunk is read and written in a short transaction of its own,
+ * so only the chunk's rows are locked and only while it commits. The rows are updated with plain JDBC, leaving their
+ * version alone so that clients' ETags stay valid, and only where the key is still null, so a concurrent update,
+ * which derives the key itself, always wins. Updated students are evicted from the second-level cache.
+ */
+@Slf4j
+@Component
+public class MobileKeyBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate chunkTransaction;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public MobileKeyBackfill(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, EntityManagerFactory entityManagerFactory,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${student.mobile-key-backfill.enabled:false}") boolean enabled,
+                             @Value("${student.mobile-key-backfill.chunk-size:500}") int chunkSize,
+                             @Value("${student.mobile-key-backfill.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.entityManagerFactory = entityManagerFactory;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void runOnStartup() {
+        if (enabled) {
+            CompletableFuture.runAsync(this::run).exceptionally(e -> {
+                log.error("mobile key backfill failed, restart to resume it", e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Backfills every shard and returns the number of students updated.
+     */
+    public synchronized long run() {
+        long started = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("mobile-key-backfill-"));
+        try {
+            List<CompletableFuture<Long>> ranges = new ArrayList<>();
+            for (int shard : shardRouter.allShards()) {
+                Map<String, Object> bounds = shardRouter.on(shard, () -> jdbcTemplate.queryForMap(
+                        "select min(id) as low, max(id) as high from student where mobile_key is null"));
+                if (bounds.get("low") == null) {
+                    continue;
+                }
+                long low = ((Number) bounds.get("low")).longValue() - 1;
+                long high = ((Number) bounds.get("high")).longValue();
+                long step = Math.max(1, (high - low + parallelism - 1) / parallelism);
+                for (long from = low; from < high; from += step) {
+                    long after = from;
+                    long upTo = Math.min(high, from + step);
+                    ranges.add(CompletableFuture.supplyAsync(() -> backfill(shard, after, upTo), workers));
+                }
+            }
+            long updated = ranges.stream().mapToLong(CompletableFuture::join).sum();
+            log.info("mobile key backfill updated {} students in {} ms", updated, (System.nanoTime() - started) / 1_000_000);
+            return updated;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Backfills the students of the shard with ids in {@code (after, upTo]}, one chunk per transaction.
+     */
+    private long backfill(int shard, long after, long upTo) {
+        long updated = 0;
+        long cursor = after;
+        while (true) {
+            long from = cursor;
+            List<Object[]> chunk = shardRouter.on(shard, () -> chunkTransaction.execute(status -> {
+                List<Object[]> rows = jdbcTemplate.query(
+                        "select id, mobile_number from student where id > ? and id <= ? and mobile_key is null order by id fetch first ? rows only",
+                        (rs, rowNum) -> new Object[]{rs.getLong(1), MobileNumbers.key(rs.getString(2))}, from, upTo, chunkSize);
+                jdbcTemplate.batchUpdate("update student set mobile_key = ? where id = ? and mobile_key is null",
+                        rows.stream().map(row -> new Object[]{row[1], row[0]}).toList());
+                return rows;
+            }));
+            chunk.forEach(row -> entityManagerFactory.getCache().evict(Student.class, row[0]));
+            updated += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return updated;
+            }
+            cursor = (Long) chunk.get(chunk.size() - 1)[0];
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.rak.student.service;
+
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hands out unique roll numbers backed by the {@code roll_number_seq} database sequence.
+ * <p>
+ * Each call to the sequence reserves a block of {@link #BLOCK_SIZE} consecutive numbers. Numbers within a block
+ * are handed out lock-free from an {@link AtomicLong}; only the thread that finds the block exhausted takes a
+ * lock to fetch the next one. Since the sequence never returns the same block twice, roll numbers are unique
+ * across threads and application instances without a SELECT-then-INSERT check, and the unique constraint on
+ * {@code student.rollNumber} backs that guarantee. Numbers left in a block on shutdown are skipped.
+ * <p>
+ * When sharded, every shard has its own sequence and its own current block, and roll numbers carry the shard they were
+ * allocated on (see {@link ShardRouter#rollNumber}), which keeps them unique across shards.
+ */
+@Component
+@Slf4j
+public class RollNumberAllocator {
+
+    /**
+     * Must match {@code INCREMENT BY} of {@code roll_number_seq} in schema.sql.
+     */
+    static final int BLOCK_SIZE = 100;
+
+    private final StudentRepository studentRepository;
+    private final ShardRouter shardRouter;
+    private final AtomicReferenceArray<Block> current;
+
+    public RollNumberAllocator(StudentRepository studentRepository, ShardRouter shardRouter) {
+        this.studentRepository = studentRepository;
+        this.shardRouter = shardRouter;
+        this.current = new AtomicReferenceArray<>(shardRouter.shardCount());
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            current.set(shard, Block.EMPTY);
+        }
+    }
+
+    /**
+     * Allocates the next roll number on the given shard.
+     */
+    public String next(int shard) {
+        while (true) {
+            Block block = current.get(shard);
+            long value = block.cursor.getAndIncrement();
+            if (value < block.end) {
+                return shardRouter.rollNumber(value, shard);
+            }
+            refill(shard, block);
+        }
+    }
+
+    /**
+     * Allocates {@code count} roll numbers on the given shard, taking whole ranges out of the current block at a time.
+     */
+    public List<String> next(int shard, int count) {
+        List<String> rollNumbers = new ArrayList<>(count);
+        while (rollNumbers.size() < count) {
+            Block block = current.get(shard);
+            int wanted = count - rollNumbers.size();
+            long start = block.cursor.getAndAdd(wanted);
+            for (long value = start; value < Math.min(block.end, start + wanted); value++) {
+                rollNumbers.add(shardRouter.rollNumber(value, shard));
+            }
+            if (rollNumbers.size() < count) {
+                refill(shard, block);
+            }
+        }
+        return rollNumbers;
+    }
+
+    private synchronized void refill(int shard, Block exhausted) {
+        if (current.get(shard) == exhausted) {
+            long start = shardRouter.on(shard, studentRepository::nextRollNumberBlock);
+            log.debug("allocated roll number block starting at {} on shard {}", start, shard);
+            current.set(shard, new Block(start, start + BLOCK_SIZE));
+        }
+    }
+
+    private static final class Block {
+        private static final Block EMPTY = new Block(0L, 0L);
+
+        private final AtomicLong cursor;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package com.rak.student.service;
 
+import com.rak.student.dto.CollectionVersion;
+import com.rak.student.dto.CursorPage;
 import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.dto.SchoolSummaryDTO;
+import com.rak.student.dto.StudentDTO;
 
 import java.util.List;
 
 public interface SchoolService {
 
-    List<SchoolDTO> getAllSchools();
+    CursorPage<SchoolDTO> getAllSchools(Long after, Integer limit);
+
+    CollectionVersion getSchoolsVersion();
 
     SchoolDTO getSchoolById(Long schoolId);
 
+    Long getSchoolVersion(Long schoolId);
+
+    SchoolSummaryDTO getSchoolSummary(Long schoolId);
+
+    CursorPage<StudentDTO> getSchoolStudents(Long schoolId, Long after, Integer limit);
+
+    List<SchoolStatsDTO> getSchoolsStats();
+
+    SchoolStatsDTO getSchoolStats(Long schoolId);
+
     SchoolDTO createSchool(SchoolDTO schoolDTO);
 
     SchoolDTO updateSchool(Long schoolId, SchoolDTO updatedSchoolDTO);
@@ -1,36 +1,69 @@
 package com.rak.student.service;
 
 import com.rak.student.domain.School;
+import com.rak.student.dto.CollectionVersion;
+import com.rak.student.dto.CursorPage;
 import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.dto.SchoolSummaryDTO;
+import com.rak.student.dto.StudentCriteria;
+import com.rak.student.dto.StudentDTO;
 import com.rak.student.mapper.SchoolMapper;
 import com.rak.student.repository.SchoolRepository;
+import com.rak.student.shard.SchoolReplicator;
+import com.rak.student.stats.StudentCounters;
+import com.rak.student.util.Utility;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("school.service")
 @RequiredArgsConstructor
 @Slf4j
 public class SchoolServiceImpl implements SchoolService {
 
+    static final int STUDENT_PREVIEW_SIZE = 10;
+
     private final SchoolRepository schoolRepository;
     private final SchoolMapper mapper;
+    private final SchoolReplicator schoolReplicator;
+    private final StudentService studentService;
+    private final StudentCounters studentCounters;
 
     /**
-     * Retrieves all schools from the database and converts them to DTOs.
+     * Retrieves one page of schools ordered by id, starting after the given cursor, and converts them to DTOs.
      *
-     * @return List of SchoolDTOs
+     * @param after The id of the last school of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link Utility#MAX_PAGE_SIZE}.
+     * @return A CursorPage of SchoolDTOs with the cursor of the next page.
      */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<SchoolDTO> getAllSchools(Long after, Integer limit) {
+        int pageSize = Utility.resolvePageSize(limit);
+        List<School> schools = schoolRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize + 1));
+        List<SchoolDTO> rows = schools.stream().map(mapper::toDTO).collect(Collectors.toList());
+        return CursorPage.of(rows, pageSize, SchoolDTO::getId);
+    }
 
+    /**
+     * Retrieves the version of the whole school table, served from the query cache until a school is written.
+     *
+     * @return The count, highest id and version sum of all schools.
+     */
     @Override
-    public List<SchoolDTO> getAllSchools() {
-        List<School> schools = schoolRepository.findAll();
-        return schools.stream().map(mapper::toDTO).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CollectionVersion getSchoolsVersion() {
+        return schoolRepository.findCollectionVersion();
     }
 
     /**
@@ -40,14 +73,92 @@ public class SchoolServiceImpl implements SchoolService {
      * @return The SchoolDTO object representing the retrieved school, or null if not found.
      */
     @Override
+    @Transactional(readOnly = true)
     public SchoolDTO getSchoolById(Long schoolId) {
         return schoolRepository.findById(schoolId)
                 .map(mapper::toDTO)
                 .orElse(null);
     }
 
+    /**
+     * Retrieves the version of a school without converting it, usually from the second-level cache.
+     *
+     * @param schoolId The ID of the school.
+     * @return The school's version, or null if not found.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Long getSchoolVersion(Long schoolId) {
+        return schoolRepository.findById(schoolId)
+                .map(School::getVersion)
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves a school with a preview of its students: the first {@link #STUDENT_PREVIEW_SIZE} by id, read with the
+     * same keyset query as {@link #getSchoolStudents(Long, Long, Integer)}, never through {@link School#getStudents()}.
+     *
+     * @param schoolId The ID of the school to retrieve.
+     * @return The school with the first page of its students, or null if not found.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SchoolSummaryDTO getSchoolSummary(Long schoolId) {
+        return schoolRepository.findById(schoolId)
+                .map(school -> new SchoolSummaryDTO(mapper.toDTO(school), listStudents(schoolId, null, STUDENT_PREVIEW_SIZE)))
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves one page of a school's students ordered by id, starting after the given cursor. The page is read by a
+     * keyset query on the {@code (schoolId, id)} index of the school's shard, so only the page is loaded however many
+     * students the school has.
+     *
+     * @param schoolId The ID of the school.
+     * @param after    The id of the last student of the previous page, or null for the first page.
+     * @param limit    The requested page size, capped at {@link Utility#MAX_PAGE_SIZE}.
+     * @return A CursorPage of StudentDTOs with the cursor of the next page.
+     * @throws ResponseStatusException if the school is not found.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<StudentDTO> getSchoolStudents(Long schoolId, Long after, Integer limit) {
+        if (schoolRepository.findById(schoolId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "School not found with id: " + schoolId);
+        }
+        return listStudents(schoolId, after, limit);
+    }
+
+    private CursorPage<StudentDTO> listStudents(Long schoolId, Long after, Integer limit) {
+        return studentService.getAllStudents(new StudentCriteria(schoolId, null, null, StudentCriteria.SORT_BY_ID), after, limit);
+    }
+
+    /**
+     * Retrieves the student counts of every school with students, from the in-memory counters without querying the database.
+     *
+     * @return The total and per grade student counts of each school, in school id order.
+     * @throws ResponseStatusException with 503 while the counters are first being built.
+     */
+    @Override
+    public List<SchoolStatsDTO> getSchoolsStats() {
+        return studentCounters.allStats();
+    }
+
+    /**
+     * Retrieves the student counts of a school, from the in-memory counters without querying the database.
+     *
+     * @param schoolId The ID of the school.
+     * @return The total and per grade student counts, all zero for a school without students or an unknown one.
+     * @throws ResponseStatusException with 503 while the counters are first being built.
+     */
+    @Override
+    public SchoolStatsDTO getSchoolStats(Long schoolId) {
+        return studentCounters.statsOf(schoolId);
+    }
+
     /**
      * Creates a new school with the given details.
+     * When sharded, the school is also copied to the shard its students will live on, or repaired later if that fails.
      *
      * @param schoolDTO The details of the school to be created.
      * @return The newly created school.
@@ -56,15 +167,18 @@ public class SchoolServiceImpl implements SchoolService {
     public SchoolDTO createSchool(SchoolDTO schoolDTO) {
         School school = mapper.toEntity(schoolDTO);
         School savedSchool = schoolRepository.save(school);
+        schoolReplicator.copy(savedSchool);
         return mapper.toDTO(savedSchool);
     }
 
     /**
      * Updates a school with the given schoolId using the information from the updatedSchoolDTO.
      * If the school with the given schoolId does not exist, a ResponseStatusException is thrown.
-     * Returns the updated school as a SchoolDTO object.
+     * Returns the updated school as a SchoolDTO object. When sharded, the copy on the school's home shard is updated too,
+     * once the school has committed. Runs in a read-write transaction, so that the school is read from the primary.
      */
     @Override
+    @Transactional
     public SchoolDTO updateSchool(Long schoolId, SchoolDTO updatedSchoolDTO) {
         School existingSchool = schoolRepository.findById(schoolId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "School not found with id:" + schoolId));
@@ -73,7 +187,8 @@ public class SchoolServiceImpl implements SchoolService {
         existingSchool.setLogoUrl(updatedSchoolDTO.getLogoUrl());
         existingSchool.setAddress(updatedSchoolDTO.getAddress());
 
-        School updatedSchool = schoolRepository.save(existingSchool);
+        School updatedSchool = schoolRepository.saveAndFlush(existingSchool);
+        schoolReplicator.copy(updatedSchool);
         return mapper.toDTO(updatedSchool);
     }
 
@@ -81,11 +196,17 @@ public class SchoolServiceImpl implements SchoolService {
      * This is an implementation of the deleteSchool method in the SchoolService interface.
      * It deletes a school with the specified schoolId from the school repository.
      * If the school is not found, it throws a ResponseStatusException with a BAD_REQUEST status and an error message.
+     * When sharded, the copy on the school's home shard is deleted first, which fails while the school has students there.
+     * If the school then cannot be deleted, its copy is restored by the next repair. Runs in a read-write transaction,
+     * so that the school is read from the primary.
      */
     @Override
+    @Transactional
     public void deleteSchool(Long schoolId) {
         schoolRepository.findById(schoolId).ifPresentOrElse(x -> {
-            schoolRepository.deleteById(x.getId());
+            schoolReplicator.delete(x.getId());
+            schoolRepository.delete(x);
+            schoolRepository.flush();
         }, () -> {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "School not found with id: " + schoolId);
         });
@@ -1,22 +1,54 @@
 package com.rak.student.service;
 
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.StudentCriteria;
 import com.rak.student.dto.StudentDTO;
-
+import com.rak.student.dto.StudentImportSummary;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.dto.StudentSearchHit;
+import com.rak.student.dto.StudentTicket;
+import com.rak.student.dto.StudentVersion;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 public interface StudentService {
 
-    List<StudentDTO> getAllStudents();
+    CursorPage<StudentDTO> getAllStudents(Long after, Integer limit);
+
+    CursorPage<StudentDTO> getAllStudents(StudentCriteria criteria, Long after, Integer limit);
 
     StudentDTO getStudentById(Long studentId);
 
+    StudentVersion getStudentVersion(Long studentId);
+
     StudentDTO createStudent(StudentDTO studentDTO);
 
+    List<BatchItemResult> createStudents(List<StudentDTO> studentDTOs);
+
+    StudentTicket createStudentAsync(StudentDTO studentDTO);
+
+    StudentTicket getStudentTicket(Long studentId);
+
     StudentDTO updateStudent(Long studentId, StudentDTO updatedStudentDTO);
 
     void deleteStudent(Long studentId);
 
     CompletableFuture<StudentDTO> getStudentByRollNo(String rollNo) throws InterruptedException;
+
+    void exportStudents(OutputStream outputStream) throws IOException;
+
+    StudentImportSummary importStudents(InputStream csv, OutputStream report) throws IOException;
+
+    List<StudentLookupResult> lookupStudents(StudentLookupRequest lookupRequest);
+
+    List<StudentDTO> getStudentsByMobileNumber(String mobileNumber);
+
+    List<StudentSearchHit> searchStudents(String query, Integer limit);
 }
 
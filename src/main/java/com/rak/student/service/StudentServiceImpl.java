@@ -1,42 +1,202 @@
 package com.rak.student.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rak.student.async.BoundedExecutor;
+import com.rak.student.async.SingleFlight;
+import com.rak.student.cache.LastKnownGoodStore;
+import com.rak.student.cache.RollNumberCache;
 import com.rak.student.domain.School;
 import com.rak.student.domain.Student;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.StaleStudentDTO;
+import com.rak.student.dto.StudentCriteria;
 import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentImportSummary;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.dto.StudentSearchHit;
+import com.rak.student.dto.StudentTicket;
+import com.rak.student.dto.StudentVersion;
+import com.rak.student.enums.Grade;
+import com.rak.student.exception.StudentLookupUnavailableException;
+import com.rak.student.exception.StudentNotFoundException;
+import com.rak.student.ingest.StudentImport;
+import com.rak.student.ingest.StudentIngest;
 import com.rak.student.mapper.StudentMapper;
 import com.rak.student.repository.SchoolRepository;
 import com.rak.student.repository.StudentRepository;
+import com.rak.student.repository.StudentSpecifications;
+import com.rak.student.search.StudentSearchIndex;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.stats.StudentCounters;
+import com.rak.student.util.MobileNumbers;
 import com.rak.student.util.Utility;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
+@Timed("student.service")
 @RequiredArgsConstructor
 @Slf4j
 public class StudentServiceImpl implements StudentService {
 
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final int MAX_LOOKUP_KEYS = 1_000;
+    static final int LOOKUP_CHUNK_SIZE = 500;
+    static final int DEFAULT_SEARCH_LIMIT = 10;
+    static final int MAX_SEARCH_LIMIT = 100;
+    static final String INVALID_GRADE = "invalid grade value must be like G1 to G10";
+
     private final StudentRepository studentRepository;
     private final SchoolRepository schoolRepository;
     private final StudentMapper studentMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final RollNumberAllocator rollNumberAllocator;
+    private final RollNumberCache rollNumberCache;
+    private final LastKnownGoodStore lastKnownGoodStore;
+    private final BoundedExecutor studentQueryExecutor;
+    private final SingleFlight<String, StudentDTO> rollNumberLookups;
+    private final ShardRouter shardRouter;
+    private final StudentSearchIndex studentSearchIndex;
+    private final StudentCounters studentCounters;
+    private final StudentIngest studentIngest;
+    private final StudentImport studentImport;
+
+    /**
+     * Retrieves one page of students ordered by id, starting after the given cursor.
+     * Uses a keyset predicate ({@code id > after}) rather than an offset, so every page costs the same
+     * index range scan regardless of how deep the client has paged. Rows are projected straight into StudentDTOs
+     * from one student join school select, so a page costs exactly one SQL round trip. When sharded, every shard is asked for
+     * a page in parallel and the pages are merged by id.
+     *
+     * @param after The id of the last student of the previous page, or null for the first page.
+     * @param limit The requested page size, capped at {@link Utility#MAX_PAGE_SIZE}.
+     * @return A CursorPage of StudentDTOs with the cursor of the next page.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<StudentDTO> getAllStudents(Long after, Integer limit) {
+        int pageSize = Utility.resolvePageSize(limit);
+        long from = after == null ? 0L : after;
+        List<StudentDTO> rows = shardRouter.scatter(shardRouter.allShards(), shard -> studentRepository.findDtosByIdGreaterThan(from, Limit.of(pageSize + 1)))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(StudentDTO::getId))
+                .limit(pageSize + 1)
+                .collect(Collectors.toList());
+        return CursorPage.of(rows, pageSize, StudentDTO::getId);
+    }
 
     /**
-     * It retrieves all students from the student repository, maps them to StudentDTO objects using the studentMapper,
-     * and returns a list of StudentDTOs.
+     * Retrieves one page of the students matching the criteria, in the requested order, starting after the given cursor.
+     * Each filter and sort order is served by one of the student indexes: {@code (schoolId, grade, studentName, id)},
+     * {@code (schoolId, studentName, id)}, {@code (grade, studentName, id)} and {@code (studentName, id)}, with the name
+     * prefix matched as a range. Pages are keyset paginated like {@link #getAllStudents(Long, Integer)}; when sorted by
+     * name the cursor student's name is read back, usually from the second-level cache, to continue after it. When
+     * sharded, a school filter sends the query to the school's shard only, otherwise every shard is asked in parallel
+     * and the pages are merged in the requested order.
+     *
+     * @param criteria The filters and sort order.
+     * @param after    The id of the last student of the previous page, or null for the first page.
+     * @param limit    The requested page size, capped at {@link Utility#MAX_PAGE_SIZE}.
+     * @return A CursorPage of StudentDTOs with the cursor of the next page.
+     * @throws ResponseStatusException if the grade or sort order is unknown, or the cursor student no longer exists
+     *                                 when sorting by name.
      */
     @Override
-    public List<StudentDTO> getAllStudents() {
-        List<Student> students = studentRepository.findAll();
-        return students.stream().map(studentMapper::toDTO).collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<StudentDTO> getAllStudents(StudentCriteria criteria, Long after, Integer limit) {
+        String sort = criteria.getSort() == null || criteria.getSort().isBlank() ? StudentCriteria.SORT_BY_ID : criteria.getSort();
+        if (!sort.equals(StudentCriteria.SORT_BY_ID) && !sort.equals(StudentCriteria.SORT_BY_STUDENT_NAME)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be " + StudentCriteria.SORT_BY_ID + " or " + StudentCriteria.SORT_BY_STUDENT_NAME);
+        }
+        if (criteria.getGrade() != null && !Grade.isValid(criteria.getGrade())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "grade values are G1 to G10");
+        }
+        boolean byName = sort.equals(StudentCriteria.SORT_BY_STUDENT_NAME);
+        boolean hasName = criteria.getName() != null && !criteria.getName().isEmpty();
+        if (!byName && criteria.getSchoolId() == null && criteria.getGrade() == null && !hasName) {
+            return getAllStudents(after, limit);
+        }
+
+        Specification<Student> specification = StudentSpecifications.all();
+        if (criteria.getSchoolId() != null) {
+            specification = specification.and(StudentSpecifications.inSchool(criteria.getSchoolId()));
+        }
+        if (criteria.getGrade() != null) {
+            specification = specification.and(StudentSpecifications.inGrade(Grade.of(criteria.getGrade()).getGrade()));
+        }
+        if (hasName) {
+            specification = specification.and(StudentSpecifications.nameStartsWith(criteria.getName()));
+        }
+        Sort order;
+        Comparator<StudentDTO> comparator;
+        if (byName) {
+            order = Sort.by(Sort.Order.asc("studentName"), Sort.Order.asc("id"));
+            comparator = Comparator.comparing(StudentDTO::getStudentName).thenComparing(StudentDTO::getId);
+            if (after != null) {
+                Student cursor = findStudent(after).orElseThrow(() ->
+                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "student " + after + " of the cursor no longer exists, start from the first page"));
+                specification = specification.and(StudentSpecifications.nameAfter(cursor.getStudentName(), after));
+            }
+        } else {
+            order = Sort.by(Sort.Order.asc("id"));
+            comparator = Comparator.comparing(StudentDTO::getId);
+            specification = specification.and(StudentSpecifications.idAfter(after == null ? 0L : after));
+        }
+
+        int pageSize = Utility.resolvePageSize(limit);
+        Specification<Student> query = specification;
+        List<Integer> shards = criteria.getSchoolId() == null ? shardRouter.allShards() : List.of(shardRouter.shardOfSchool(criteria.getSchoolId()));
+        List<StudentDTO> rows = shardRouter.scatter(shards, shard -> studentRepository.findDtos(query, order, Limit.of(pageSize + 1)))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(comparator)
+                .limit(pageSize + 1)
+                .collect(Collectors.toList());
+        return CursorPage.of(rows, pageSize, StudentDTO::getId);
     }
 
     /**
@@ -47,96 +207,488 @@ public class StudentServiceImpl implements StudentService {
      * @throws ResponseStatusException if the student is not found.
      */
     @Override
+    @Transactional(readOnly = true)
     public StudentDTO getStudentById(Long studentId) {
-        return studentRepository.findById(studentId)
+        return findStudent(studentId)
                 .map(studentMapper::toDTO)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "student not found against studentId" + studentId));
     }
 
     /**
-     * Creates a new student.
+     * Retrieves the version of a student and of its school without converting it, usually from the second-level cache.
+     *
+     * @param studentId The ID of the student.
+     * @return The student's version and its school's.
+     * @throws ResponseStatusException if the student is not found.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public StudentVersion getStudentVersion(Long studentId) {
+        return findStudent(studentId)
+                .map(student -> new StudentVersion(student.getVersion(), student.getSchool().getVersion()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "student not found against studentId" + studentId));
+    }
+
+    /**
+     * Creates a new student on the shard of its school. Runs in a read-write transaction, so that the school is read
+     * from the primary along with the insert.
      *
      * @param studentDTO The StudentDTO object representing the student to create.
      * @return The StudentDTO object representing the created student.
+     * @throws ResponseStatusException if the grade is unknown or the school is not found.
      */
     @Override
+    @Transactional
     public StudentDTO createStudent(StudentDTO studentDTO) {
-        Student student = studentMapper.toEntity(studentDTO);
-        student.setSchool(getSchoolOrThrowException(studentDTO.getSchoolId()));
-        student.setRollNumber(String.valueOf(Utility.generateRandom4DigitNumber()));
-        Student savedStudent = studentRepository.save(student);
-        return studentMapper.toDTO(savedStudent);
+        checkGrade(studentDTO);
+        int shard = shardRouter.shardOfSchool(studentDTO.getSchoolId());
+        return shardRouter.inTransaction(shard, false, () -> {
+            Student student = studentMapper.toEntity(studentDTO);
+            student.setSchool(getSchoolOrThrowException(studentDTO.getSchoolId()));
+            student.setRollNumber(rollNumberAllocator.next(shard));
+            Student savedStudent = studentRepository.save(student);
+            registerRollNumbers(List.of(savedStudent.getRollNumber()));
+            afterCommit(() -> {
+                studentSearchIndex.index(List.of(savedStudent));
+                studentCounters.added(List.of(savedStudent));
+            });
+            return studentMapper.toDTO(savedStudent);
+        });
     }
 
     /**
-     * Updates an existing student.
+     * Creates many students in one transaction.
+     * Every distinct school is loaded once and roll numbers are allocated for the whole batch up front.
+     * Inserts are sent as JDBC batches, which the pooled sequence id generator makes possible.
+     * Items that fail validation or reference an unknown school are rejected individually and do not
+     * prevent the rest of the batch from being created. When sharded, the students of each shard are created
+     * in a transaction of their own on that shard, so the batch is atomic per shard only.
+     *
+     * @param studentDTOs The students to create.
+     * @return One BatchItemResult per requested student, in request order.
+     * @throws ResponseStatusException if the batch is larger than {@link #MAX_BATCH_SIZE}.
+     */
+    @Override
+    @Transactional
+    public List<BatchItemResult> createStudents(List<StudentDTO> studentDTOs) {
+        if (studentDTOs.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch size must not exceed " + MAX_BATCH_SIZE);
+        }
+
+        BatchItemResult[] results = new BatchItemResult[studentDTOs.size()];
+        Map<Integer, List<Integer>> indexesByShard = shardRouter.groupByShard(IntStream.range(0, studentDTOs.size()).boxed().toList(),
+                i -> shardRouter.shardOfSchool(studentDTOs.get(i) == null ? null : studentDTOs.get(i).getSchoolId()));
+        int created = 0;
+        for (Map.Entry<Integer, List<Integer>> group : indexesByShard.entrySet()) {
+            created += shardRouter.inTransaction(group.getKey(), false, () -> createStudents(group.getKey(), group.getValue(), studentDTOs, results));
+        }
+        log.info("batch created {} of {} students", created, studentDTOs.size());
+        return List.of(results);
+    }
+
+    /**
+     * Creates the students at the given indexes of the batch, which all belong on the given shard, and fills in their results.
+     *
+     * @return The number of students created.
+     */
+    private int createStudents(int shard, List<Integer> indexes, List<StudentDTO> studentDTOs, BatchItemResult[] results) {
+        Set<Long> schoolIds = indexes.stream().map(studentDTOs::get).filter(Objects::nonNull).map(StudentDTO::getSchoolId)
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, School> schools = schoolRepository.findAllById(schoolIds).stream()
+                .collect(Collectors.toMap(School::getId, Function.identity()));
+
+        List<Integer> acceptedIndexes = new ArrayList<>();
+        List<Student> students = new ArrayList<>();
+        for (int i : indexes) {
+            StudentDTO studentDTO = studentDTOs.get(i);
+            String error = validate(studentDTO, schools);
+            if (error != null) {
+                results[i] = BatchItemResult.rejected(i, error);
+                continue;
+            }
+            Student student = studentMapper.toEntity(studentDTO);
+            student.setSchool(schools.get(studentDTO.getSchoolId()));
+            acceptedIndexes.add(i);
+            students.add(student);
+        }
+
+        List<String> rollNumbers = rollNumberAllocator.next(shard, students.size());
+        IntStream.range(0, students.size()).forEach(i -> students.get(i).setRollNumber(rollNumbers.get(i)));
+
+        List<Student> savedStudents = studentRepository.saveAll(students);
+        registerRollNumbers(rollNumbers);
+        afterCommit(() -> {
+            studentSearchIndex.index(savedStudents);
+            studentCounters.added(savedStudents);
+        });
+        for (int i = 0; i < savedStudents.size(); i++) {
+            int index = acceptedIndexes.get(i);
+            results[index] = BatchItemResult.created(index, studentMapper.toDTO(savedStudents.get(i)));
+        }
+        return savedStudents.size();
+    }
+
+    /**
+     * Accepts a student for creation in the background and returns straight away. The school is checked, usually from
+     * the second-level cache, and the student is given its id and roll number before being journaled and queued for the
+     * ingest writer.
+     *
+     * @param studentDTO The StudentDTO object representing the student to create.
+     * @return The pending ticket of the student, carrying its id and roll number.
+     * @throws ResponseStatusException if the grade is unknown or the school is not found, with 429 when the ingest
+     *                                 queue is full.
+     */
+    @Override
+    public StudentTicket createStudentAsync(StudentDTO studentDTO) {
+        checkGrade(studentDTO);
+        int shard = shardRouter.shardOfSchool(studentDTO.getSchoolId());
+        shardRouter.run(shard, () -> getSchoolOrThrowException(studentDTO.getSchoolId()));
+        return studentIngest.submit(shard, studentDTO, rollNumberAllocator.next(shard));
+    }
+
+    /**
+     * Retrieves the progress of a student accepted for creation in the background.
+     *
+     * @param studentId The ticket, which is the id the student was given on acceptance.
+     * @return The ticket, pending until the student is written, then created or failed.
+     * @throws ResponseStatusException if there is no such ticket, or a failed ticket has expired.
+     */
+    @Override
+    public StudentTicket getStudentTicket(Long studentId) {
+        StudentTicket ticket = studentIngest.ticket(studentId);
+        if (ticket != null) {
+            return ticket;
+        }
+        return findStudent(studentId)
+                .map(student -> StudentTicket.created(student.getId(), student.getRollNumber()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "ticket not found: " + studentId));
+    }
+
+    /**
+     * Updates an existing student. Runs in a read-write transaction, so that the student is read from the primary it is
+     * written to, and the caches and the in-memory views are updated once it has committed.
      *
      * @param studentId         The ID of the student to update.
      * @param updatedStudentDTO The updated StudentDTO object.
      * @return The StudentDTO object representing the updated student.
      * @throws EntityNotFoundException if the student is not found.
+     * @throws ResponseStatusException if the grade is unknown, or the new school lives on another shard, since a
+     *                                 student's id and roll number pin it to its shard.
      */
     @Override
+    @Transactional
     public StudentDTO updateStudent(Long studentId, StudentDTO updatedStudentDTO) {
+        checkGrade(updatedStudentDTO);
+        int shard = shardRouter.shardOfStudent(studentId);
+        if (shard < 0) {
+            throw new EntityNotFoundException("Student not found with id: " + studentId);
+        }
+        return shardRouter.inTransaction(shard, false, () -> updateStudent(shard, studentId, updatedStudentDTO));
+    }
+
+    private StudentDTO updateStudent(int shard, Long studentId, StudentDTO updatedStudentDTO) {
         Student existingStudent = studentRepository.findById(studentId)
                 .orElseThrow(() -> new EntityNotFoundException("Student not found with id: " + studentId));
+        Long previousSchoolId = existingStudent.getSchool().getId();
+        String previousGrade = existingStudent.getGrade();
 
         existingStudent.setStudentName(updatedStudentDTO.getStudentName());
         existingStudent.setGrade(updatedStudentDTO.getGrade());
         existingStudent.setMobileNumber(updatedStudentDTO.getMobileNumber());
 
         if (!existingStudent.getSchool().getId().equals(updatedStudentDTO.getSchoolId())) {
+            if (shardRouter.shardOfSchool(updatedStudentDTO.getSchoolId()) != shard) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "student cannot move to school " + updatedStudentDTO.getSchoolId() + " on another shard");
+            }
             existingStudent.setSchool(getSchoolOrThrowException(updatedStudentDTO.getSchoolId()));
         }
 
-        Student updatedStudent = studentRepository.save(existingStudent);
+        Student updatedStudent = studentRepository.saveAndFlush(existingStudent);
+        afterCommit(() -> {
+            rollNumberCache.invalidate(existingStudent.getRollNumber());
+            lastKnownGoodStore.invalidate(existingStudent.getRollNumber());
+            studentSearchIndex.index(List.of(updatedStudent));
+            studentCounters.moved(previousSchoolId, previousGrade, updatedStudent.getSchool().getId(), updatedStudent.getGrade());
+        });
         return studentMapper.toDTO(updatedStudent);
     }
 
     /**
-     * Deletes a student by their ID.
+     * Deletes a student by their ID, in a read-write transaction like {@link #updateStudent}.
      *
      * @param studentId The ID of the student to delete.
      * @throws ResponseStatusException if the student is not found.
      */
     @Override
+    @Transactional
     public void deleteStudent(Long studentId) {
-        studentRepository.findById(studentId).ifPresentOrElse(x -> {
-            schoolRepository.deleteById(x.getId());
-        }, () -> {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "student not found with id: " + studentId);
+        int shard = shardRouter.shardOfStudent(studentId);
+        Optional<Student> student = shard < 0 ? Optional.empty() : shardRouter.inTransaction(shard, false, () -> {
+            Optional<Student> found = studentRepository.findById(studentId);
+            found.ifPresent(x -> {
+                studentRepository.delete(x);
+                studentRepository.flush();
+            });
+            return found;
+        });
+        Student x = student.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "student not found with id: " + studentId));
+        afterCommit(() -> {
+            rollNumberCache.invalidate(x.getRollNumber());
+            lastKnownGoodStore.invalidate(x.getRollNumber());
+            studentSearchIndex.remove(studentId);
+            studentCounters.removed(x.getSchool().getId(), x.getGrade());
         });
     }
 
     /**
-     * Retrieves a student by their roll number asynchronously.
+     * Retrieves a student by their roll number asynchronously on the student query executor.
+     * Concurrent lookups of the same roll number share one in-flight query.
+     * Roll numbers already resolved once are looked up by primary key through the {@link RollNumberCache}, on the shard
+     * the roll number was allocated on. Roll numbers of no shard or recently found missing fail straight away without a
+     * query. A miss is a {@link StudentNotFoundException}, which neither retries nor counts against the circuit breaker. Every student found is kept in the
+     * {@link LastKnownGoodStore} for the fallback.
      *
      * @param rollNo The roll number of the student to retrieve.
      * @return A CompletableFuture containing the StudentDTO object representing the student.
-     * @throws ResponseStatusException if the student is not found.
+     * @throws StudentNotFoundException if the student is not found.
      */
     @Override
     @CircuitBreaker(name = "getStudentApiCircuitBreaker", fallbackMethod = "fallbackStudentInfo")
     @Retry(name = "getStudentApiRetry", fallbackMethod = "fallbackStudentInfo")
     public CompletableFuture<StudentDTO> getStudentByRollNo(String rollNo) {
-        return CompletableFuture.supplyAsync(() -> {
-            // Simulate some processing time
-//            try {
-//                Thread.sleep(5000L);
-//            } catch (InterruptedException e) {
-//                // Handle interruption
-//
-//                Thread.currentThread().interrupt();
-//            }
-            // simulate circuit breaker
-//            throw new RuntimeException("Simulated failure");
-
-            return studentRepository.findFirstByRollNumber(rollNo)
+        int shard = shardRouter.shardOfRollNumber(rollNo);
+        if (shard < 0 || rollNumberCache.isKnownMissing(rollNo)) {
+            return CompletableFuture.failedFuture(StudentNotFoundException.forRollNo(rollNo));
+        }
+        return rollNumberLookups.execute(rollNo, () -> CompletableFuture.supplyAsync(() -> {
+            StudentDTO student = shardRouter.on(shard, () -> findByRollNumber(rollNo))
                     .map(studentMapper::toDTO)
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "student not found against rollNo: " + rollNo));
+                    .orElseThrow(() -> {
+                        rollNumberCache.putMissing(rollNo);
+                        return StudentNotFoundException.forRollNo(rollNo);
+                    });
+            lastKnownGoodStore.put(student);
+            return student;
+        }, studentQueryExecutor));
+    }
+
+    /**
+     * Retrieves the students registered with a mobile number, such as the children of a guardian calling in.
+     * The number is reduced to its {@link MobileNumbers#key digits}, so any formatting matches, and looked up through
+     * the index on the mobile key. When sharded, every shard is asked in parallel.
+     *
+     * @param mobileNumber The mobile number, in any format.
+     * @return The matching students ordered by id, at most {@link Utility#MAX_PAGE_SIZE}.
+     * @throws ResponseStatusException if the number has no digits.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentDTO> getStudentsByMobileNumber(String mobileNumber) {
+        String mobileKey = MobileNumbers.key(mobileNumber);
+        if (mobileKey == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "mobile number must contain digits");
+        }
+        return shardRouter.scatter(shardRouter.allShards(), shard -> studentRepository.findDtosByMobileKey(mobileKey, Limit.of(Utility.MAX_PAGE_SIZE)))
+                .stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(StudentDTO::getId))
+                .limit(Utility.MAX_PAGE_SIZE)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Searches students by name. Every word of the query must match a word of the student's name or guardian name,
+     * exactly, as a prefix or within a few typos. Served from the {@link StudentSearchIndex} without a query.
+     *
+     * @param query The words to search for.
+     * @param limit The number of hits wanted, {@link #DEFAULT_SEARCH_LIMIT} when null and at most {@link #MAX_SEARCH_LIMIT}.
+     * @return The best matching students, best first.
+     * @throws ResponseStatusException if the query has no words, or while the index is first being built.
+     */
+    @Override
+    public List<StudentSearchHit> searchStudents(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "search query must not be blank");
+        }
+        int resolvedLimit = limit == null || limit <= 0 ? DEFAULT_SEARCH_LIMIT : Math.min(limit, MAX_SEARCH_LIMIT);
+        return studentSearchIndex.search(query, resolvedLimit);
+    }
+
+    /**
+     * Makes new roll numbers visible to roll number lookups once their insert has committed,
+     * or straight away when there is no surrounding transaction.
+     */
+    private void registerRollNumbers(List<String> rollNumbers) {
+        afterCommit(() -> rollNumbers.forEach(rollNumberCache::invalidateMissing));
+    }
+
+    /**
+     * Runs the action once the surrounding transaction has committed, or straight away when there is none.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
         });
     }
 
+    /**
+     * Finds a student by id on the shard the id was generated on.
+     */
+    private Optional<Student> findStudent(Long studentId) {
+        int shard = shardRouter.shardOfStudent(studentId);
+        return shard < 0 ? Optional.empty() : shardRouter.on(shard, () -> studentRepository.findById(studentId));
+    }
+
+    /**
+     * Finds a student by roll number, going through the rollNumber to id cache first.
+     * A stale cache entry (student deleted or roll number reused) is dropped and the roll number is looked up again.
+     */
+    private Optional<Student> findByRollNumber(String rollNo) {
+        Long cachedId = rollNumberCache.get(rollNo);
+        if (cachedId != null) {
+            Optional<Student> student = studentRepository.findById(cachedId)
+                    .filter(x -> rollNo.equals(x.getRollNumber()));
+            if (student.isPresent()) {
+                return student;
+            }
+            rollNumberCache.invalidate(rollNo);
+        }
+        Optional<Student> student = studentRepository.findFirstByRollNumber(rollNo);
+        student.ifPresent(x -> rollNumberCache.put(rollNo, x.getId()));
+        return student;
+    }
+
+    /**
+     * Writes every student to the given stream as newline delimited JSON, one StudentDTO per line.
+     * Rows are streamed from the database and the persistence context is cleared after every fetch-size
+     * chunk, so memory use stays flat regardless of the number of students. When sharded, every shard is streamed
+     * in parallel and the rows are merged by id, so the output is in id order either way.
+     *
+     * @param outputStream The stream to write to. It is flushed but not closed.
+     * @throws IOException if writing to the stream fails.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportStudents(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(StudentDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            long[] count = {0};
+            shardRouter.mergeOrdered(shard -> streamStudentDtos(), Comparator.comparing(StudentDTO::getId), student -> {
+                try {
+                    writer.writeValue(generator, student);
+                    if (++count[0] % StudentRepository.EXPORT_FETCH_SIZE == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (count[0] > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            log.info("exported {} students", count[0]);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Imports students from CSV with a header naming the columns studentName, grade, mobileNumber, guardianName and
+     * schoolId. Rows are checked in parallel with the same rules as createStudent and created in chunks, each in a
+     * transaction of its own, so rows of earlier chunks stay created when a later one fails.
+     *
+     * @param csv    The CSV to read. It is read once, as a stream.
+     * @param report The stream to write the report to, as newline delimited JSON: one rejected BatchItemResult per
+     *               rejected row, indexed by the row's line in the CSV, then the StudentImportSummary. It is flushed
+     *               after every chunk but not closed.
+     * @return The totals of the import.
+     * @throws ResponseStatusException if the CSV is empty or its header lacks a column, before anything is written.
+     * @throws IOException             if reading the CSV or writing the report fails.
+     */
+    @Override
+    public StudentImportSummary importStudents(InputStream csv, OutputStream report) throws IOException {
+        return studentImport.run(csv, report);
+    }
+
+    /**
+     * Streams every student of the current shard as StudentDTOs, clearing the persistence context after every
+     * fetch-size chunk. Must be consumed inside a transaction and closed afterwards.
+     */
+    private Stream<StudentDTO> streamStudentDtos() {
+        long[] count = {0};
+        return studentRepository.streamAllBy().map(student -> {
+            StudentDTO studentDTO = studentMapper.toDTO(student);
+            if (++count[0] % StudentRepository.EXPORT_FETCH_SIZE == 0) {
+                entityManager.clear();
+            }
+            return studentDTO;
+        });
+    }
+
+    /**
+     * Looks up many students by id or by roll number.
+     * Distinct keys are queried in chunks of {@link #LOOKUP_CHUNK_SIZE} with one student join school
+     * {@code IN (...)} select per chunk. When sharded, the keys are split by the shard they were generated on
+     * and the shards are queried in parallel.
+     *
+     * @param lookupRequest The ids or the roll numbers to look up, exactly one of the two.
+     * @return One StudentLookupResult per requested key, in request order, marking keys that were not found.
+     * @throws ResponseStatusException if both or neither key list is given, or more than {@link #MAX_LOOKUP_KEYS} keys.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<StudentLookupResult> lookupStudents(StudentLookupRequest lookupRequest) {
+        List<Long> ids = lookupRequest.getIds() == null ? List.of() : lookupRequest.getIds();
+        List<String> rollNumbers = lookupRequest.getRollNumbers() == null ? List.of() : lookupRequest.getRollNumbers();
+        if (ids.isEmpty() == rollNumbers.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "exactly one of ids or rollNumbers is mandatory");
+        }
+        if (ids.size() + rollNumbers.size() > MAX_LOOKUP_KEYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lookup must not exceed " + MAX_LOOKUP_KEYS + " keys");
+        }
+
+        if (!ids.isEmpty()) {
+            Map<Long, StudentDTO> byId = findOnShards(ids, shardRouter::shardOfStudent, studentRepository::findDtosByIdIn, StudentDTO::getId);
+            return ids.stream().map(id -> toLookupResult(String.valueOf(id), byId.get(id))).collect(Collectors.toList());
+        }
+        Map<String, StudentDTO> byRollNumber = findOnShards(rollNumbers, shardRouter::shardOfRollNumber,
+                studentRepository::findDtosByRollNumberIn, StudentDTO::getRollNumber);
+        return rollNumbers.stream().map(rollNo -> toLookupResult(rollNo, byRollNumber.get(rollNo))).collect(Collectors.toList());
+    }
+
+    private <K> Map<K, StudentDTO> findOnShards(List<K> keys, Function<K, Integer> shardOf, Function<Collection<K>, List<StudentDTO>> finder,
+                                                Function<StudentDTO, K> keyExtractor) {
+        List<K> distinctKeys = keys.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<Integer, List<K>> keysByShard = shardRouter.groupByShard(distinctKeys, shardOf);
+        Map<K, StudentDTO> found = new HashMap<>();
+        shardRouter.scatter(keysByShard.keySet(), shard -> findInChunks(keysByShard.get(shard), finder, keyExtractor)).forEach(found::putAll);
+        return found;
+    }
+
+    private <K> Map<K, StudentDTO> findInChunks(List<K> keys, Function<Collection<K>, List<StudentDTO>> finder, Function<StudentDTO, K> keyExtractor) {
+        Map<K, StudentDTO> found = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<K> chunk = keys.subList(from, Math.min(keys.size(), from + LOOKUP_CHUNK_SIZE));
+            finder.apply(chunk).forEach(student -> found.put(keyExtractor.apply(student), student));
+        }
+        return found;
+    }
+
+    private static StudentLookupResult toLookupResult(String key, StudentDTO student) {
+        return student == null ? StudentLookupResult.notFound(key) : StudentLookupResult.found(key, student);
+    }
+
     /**
      * Retrieves a school by its ID or throws an exception if not found.
      *
@@ -150,13 +702,62 @@ public class StudentServiceImpl implements StudentService {
     }
 
     /**
-     * Fallback method for the getStudentByRollNo method.
+     * Checks one item of a batch, returning the reason it is rejected or null when it can be created.
+     */
+    private String validate(StudentDTO studentDTO, Map<Long, School> schools) {
+        if (studentDTO == null) {
+            return "student is mandatory";
+        }
+        Set<ConstraintViolation<StudentDTO>> violations = validator.validate(studentDTO);
+        if (!violations.isEmpty()) {
+            return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining(", "));
+        }
+        if (!Grade.isValid(studentDTO.getGrade())) {
+            return INVALID_GRADE;
+        }
+        if (!schools.containsKey(studentDTO.getSchoolId())) {
+            return "School not found with id: " + studentDTO.getSchoolId();
+        }
+        return null;
+    }
+
+    /**
+     * Rejects a student whose grade is not one of G1 to G10.
+     */
+    private static void checkGrade(StudentDTO studentDTO) {
+        if (!Grade.isValid(studentDTO.getGrade())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_GRADE);
+        }
+    }
+
+    /**
+     * Fallback method for the getStudentByRollNo method when the student does not exist.
+     * The miss is passed on to the caller unchanged rather than hidden behind a null student.
      *
-     * @param e The exception that triggered the fallback.
-     * @return A CompletableFuture containing null as a fallback value.
+     * @param rollNo The roll number that was looked up.
+     * @param e      The not found exception.
+     * @return A CompletableFuture failed with the given exception.
      */
-    private CompletableFuture<StudentDTO> fallbackStudentInfo(Exception e) {
-        return CompletableFuture.completedFuture(null);
+    private CompletableFuture<StudentDTO> fallbackStudentInfo(String rollNo, StudentNotFoundException e) {
+        return CompletableFuture.failedFuture(e);
+    }
+
+    /**
+     * Fallback method for the getStudentByRollNo method when the circuit breaker is open or the lookup failed.
+     * Serves the last known good copy of the student, marked as a {@link StaleStudentDTO}.
+     *
+     * @param rollNo The roll number that was looked up.
+     * @param e      The exception that triggered the fallback.
+     * @return A CompletableFuture containing the stale student, or failed with a
+     * {@link StudentLookupUnavailableException} if no copy is held.
+     */
+    private CompletableFuture<StudentDTO> fallbackStudentInfo(String rollNo, Exception e) {
+        Optional<StaleStudentDTO> stale = lastKnownGoodStore.getStale(rollNo);
+        if (stale.isPresent()) {
+            log.warn("serving stale student for rollNo {} after {}", rollNo, e.toString());
+            return CompletableFuture.completedFuture(stale.get());
+        }
+        return CompletableFuture.failedFuture(new StudentLookupUnavailableException("student lookup unavailable for rollNo: " + rollNo, e));
     }
 }
 
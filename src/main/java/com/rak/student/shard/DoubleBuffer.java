@@ -0,0 +1,96 @@
+package com.rak.student.shard;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory view of the student tables that is rebuilt from every shard while the previous build keeps serving.
+ * <p>
+ * A {@link #rebuild} fills a new view while the current one keeps serving, and swaps it in once every shard has been
+ * read. Writes committed meanwhile must be {@link #apply applied}, which hands them to the view being built as well
+ * as the current one, so that none is lost by the swap. Shards are read from the primary, in a read-write transaction
+ * of their own, since a lagging replica would leave out the newest rows until the next rebuild.
+ *
+ * @param <T> the view, which must take writes from several threads at once
+ */
+public class DoubleBuffer<T> {
+
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transaction;
+
+    private volatile T current;
+    private volatile T building;
+
+    public DoubleBuffer(ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.shardRouter = shardRouter;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * The view being served, or null until the first rebuild has finished.
+     */
+    public T current() {
+        return current;
+    }
+
+    /**
+     * Whether a rebuild is filling a new view.
+     */
+    public boolean isBuilding() {
+        return building != null;
+    }
+
+    /**
+     * Applies a committed write to the view being built first, then to the current one.
+     */
+    public void apply(Consumer<T> write) {
+        T next = building;
+        if (next != null) {
+            write.accept(next);
+        }
+        T view = current;
+        if (view != null) {
+            write.accept(view);
+        }
+    }
+
+    /**
+     * Runs the work on every shard, in a read-write transaction of its own, and returns the results in shard order.
+     */
+    public <R> List<R> onEveryShard(Supplier<R> work) {
+        return shardRouter.allShards().stream()
+                .map(shard -> shardRouter.on(shard, () -> transaction.execute(status -> work.get())))
+                .toList();
+    }
+
+    /**
+     * Fills the new view from every shard and swaps it in. If a shard cannot be read, the current view keeps serving.
+     *
+     * @param readShard fills the view from the shard bound to the current thread
+     */
+    public void rebuild(T next, Consumer<T> readShard) {
+        rebuild(next, readShard, view -> {
+        });
+    }
+
+    /**
+     * @param beforeSwap runs once every shard has been read, while writes still go to the new view as well
+     */
+    public synchronized void rebuild(T next, Consumer<T> readShard, Consumer<T> beforeSwap) {
+        building = next;
+        try {
+            onEveryShard(() -> {
+                readShard.accept(next);
+                return null;
+            });
+            beforeSwap.accept(next);
+            current = next;
+        } finally {
+            building = null;
+        }
+    }
+}
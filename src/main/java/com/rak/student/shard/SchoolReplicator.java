@@ -0,0 +1,223 @@
+package com.rak.student.shard;
+
+import com.rak.student.domain.School;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a copy of each school on the shard holding its students.
+ * <p>
+ * Schools themselves are written on shard 0 only, where every school read goes. The copy on a school's home shard
+ * ({@link ShardRouter#shardOfSchool}) is what its students reference and join to there. Copies are written with plain
+ * JDBC rather than through Hibernate, so they leave the second-level cache alone. Nothing is copied when unsharded or
+ * when the school's home shard is shard 0.
+ * <p>
+ * The copy is written after the school has committed, so it can fail while the school stands. Such a school is
+ * marked out of sync rather than failing the request, and every {@code student.sharding.school-repair-interval} the
+ * copies of the marked schools are made to match shard 0 again: written if the school exists there, deleted if it does
+ * not. Writing a copy never takes it back to an older version, so a repair may run any number of times. Once the
+ * application is ready, every shard is compared with shard 0 to find the copies that went missing or stale while it
+ * was down. The schools out of sync are counted by the {@code school.replication.unsynced} gauge.
+ */
+@Slf4j
+@Component
+public class SchoolReplicator {
+
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration repairInterval;
+    private final Set<Long> unsynced = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("school-repair-"));
+
+    public SchoolReplicator(ShardRouter shardRouter, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                            @Value("${student.sharding.school-repair-interval:1m}") Duration repairInterval) {
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.repairInterval = repairInterval;
+        Gauge.builder("school.replication.unsynced", unsynced, Set::size)
+                .description("schools whose copy on their home shard is waiting to be repaired")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compares the shards with shard 0, repairs what differs and then keeps repairing every interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!shardRouter.isSharded()) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("could not compare the school copies with shard 0", e);
+        }
+        scheduler.scheduleWithFixedDelay(this::repair, repairInterval.toMillis(), repairInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Writes the school's current state, including its version, to its home shard, inserting it if it is not there yet,
+     * once the surrounding transaction has committed. If that fails the school is marked out of sync instead.
+     */
+    public void copy(School school) {
+        int shard = shardRouter.shardOfSchool(school.getId());
+        if (shard == 0) {
+            return;
+        }
+        Runnable copy = () -> {
+            try {
+                write(shard, school.getId(), school.getName(), school.getLogoUrl(), school.getAddress(), school.getVersion());
+            } catch (DataAccessException | TransactionException e) {
+                markUnsynced(school.getId(), e);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            copy.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                copy.run();
+            }
+        });
+    }
+
+    /**
+     * Deletes the copy of the school from its home shard, straight away. Fails, like deleting the school itself, while
+     * the school has students. If the surrounding transaction, which deletes the school, then does not commit, the
+     * school is {@link #markUnsynced marked} so that its copy comes back.
+     */
+    public void delete(Long schoolId) {
+        int shard = shardRouter.shardOfSchool(schoolId);
+        if (shard == 0) {
+            return;
+        }
+        shardRouter.inTransaction(shard, false, () -> jdbcTemplate.update("delete from school where id = ?", schoolId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        markUnsynced(schoolId, null);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Marks the school for the next repair.
+     */
+    public void markUnsynced(Long schoolId, Exception cause) {
+        if (shardRouter.shardOfSchool(schoolId) != 0 && unsynced.add(schoolId)) {
+            log.warn("copy of school {} is out of sync with shard 0, repairing it later", schoolId, cause);
+        }
+    }
+
+    /**
+     * The number of schools waiting to be repaired.
+     */
+    public int unsynced() {
+        return unsynced.size();
+    }
+
+    /**
+     * Marks every school whose copy is missing, older than on shard 0 or left behind by a deleted school, and repairs
+     * them.
+     */
+    public void reconcile() {
+        Map<Long, Long> versions = versions(0);
+        versions.keySet().removeIf(id -> shardRouter.shardOfSchool(id) == 0);
+        for (int shard = 1; shard < shardRouter.shardCount(); shard++) {
+            for (Map.Entry<Long, Long> copy : versions(shard).entrySet()) {
+                Long version = versions.remove(copy.getKey());
+                if (version == null || !version.equals(copy.getValue())) {
+                    markUnsynced(copy.getKey(), null);
+                }
+            }
+        }
+        versions.keySet().forEach(id -> markUnsynced(id, null));
+        repair();
+    }
+
+    private Map<Long, Long> versions(int shard) {
+        Map<Long, Long> versions = new HashMap<>();
+        shardRouter.inTransaction(shard, true, () -> {
+            jdbcTemplate.query("select id, version from school", row -> {
+                versions.put(row.getLong(1), row.getLong(2));
+            });
+            return null;
+        });
+        return versions;
+    }
+
+    /**
+     * Makes the copy of every marked school match shard 0, keeping the ones that still fail marked.
+     */
+    public void repair() {
+        for (Long schoolId : List.copyOf(unsynced)) {
+            try {
+                sync(schoolId);
+                unsynced.remove(schoolId);
+                log.info("repaired copy of school {}", schoolId);
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("could not repair copy of school {}", schoolId, e);
+            }
+        }
+    }
+
+    private void sync(Long schoolId) {
+        int shard = shardRouter.shardOfSchool(schoolId);
+        List<Map<String, Object>> school = shardRouter.inTransaction(0, true,
+                () -> jdbcTemplate.queryForList("select name, logo_url, address, version from school where id = ?", schoolId));
+        if (school.isEmpty()) {
+            delete(schoolId);
+        } else {
+            Map<String, Object> row = school.get(0);
+            write(shard, schoolId, (String) row.get("name"), (String) row.get("logo_url"), (String) row.get("address"),
+                    ((Number) row.get("version")).longValue());
+        }
+    }
+
+    private void write(int shard, Long id, String name, String logoUrl, String address, Long version) {
+        shardRouter.inTransaction(shard, false, () -> {
+            int updated = jdbcTemplate.update("update school set name = ?, logo_url = ?, address = ?, version = ? where id = ? and version <= ?",
+                    name, logoUrl, address, version, id, version);
+            if (updated == 0) {
+                jdbcTemplate.update("insert into school (id, name, logo_url, address, version) select ?, ?, ?, ?, ? " +
+                                "where not exists (select 1 from school where id = ?)",
+                        id, name, logoUrl, address, version, id);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,348 @@
+package com.rak.student.shard;
+
+import com.rak.student.config.AsyncConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Decides which shard a student lives on and runs work against it.
+ * <p>
+ * Students are placed by school, on shard {@code schoolId mod shardCount}, so a school's students always share a
+ * database. Student ids and roll numbers carry their shard in their last two decimal digits ({@code value * 100 + shard}),
+ * so a point lookup goes straight to one shard without asking the others. Work runs against a shard by binding it to
+ * the current thread, which the {@link ShardRoutingDataSource} reads when a connection is needed.
+ * <p>
+ * With a single unsharded database every method is a pass-through: keys are not encoded and work runs inline in the
+ * caller's transaction.
+ */
+@Component
+public class ShardRouter {
+
+    /**
+     * Keys keep their shard in two decimal digits, which caps the number of shards.
+     */
+    public static final int MAX_SHARDS = 100;
+
+    private static final int MERGE_BUFFER = 256;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int shardCount;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final Executor queryExecutor;
+    private final Executor streamExecutor;
+
+    @Autowired
+    public ShardRouter(ObjectProvider<ShardRoutingDataSource> shardRoutingDataSource, PlatformTransactionManager transactionManager,
+                       @Qualifier(AsyncConfig.STUDENT_QUERY_EXECUTOR) Executor queryExecutor,
+                       @Qualifier(AsyncConfig.SHARD_STREAM_EXECUTOR) Executor streamExecutor) {
+        this(shardRoutingDataSource.stream().mapToInt(ShardRoutingDataSource::size).findFirst().orElse(1),
+                transactionManager, queryExecutor, streamExecutor);
+    }
+
+    /**
+     * @param transactionManager opens the per-shard transactions, unused with a single shard
+     * @param queryExecutor      runs scatter-gather queries, unused with a single shard
+     * @param streamExecutor     runs the per-shard streams of an ordered merge, unused with a single shard. Must not bound
+     *                           its concurrency: a merge needs all of its streams running to make progress, so merges
+     *                           sharing a bounded executor could wait on each other forever.
+     */
+    public ShardRouter(int shardCount, PlatformTransactionManager transactionManager, Executor queryExecutor, Executor streamExecutor) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("shard count must be between 1 and " + MAX_SHARDS + ": " + shardCount);
+        }
+        this.shardCount = shardCount;
+        this.queryExecutor = queryExecutor;
+        this.streamExecutor = streamExecutor;
+        if (shardCount > 1) {
+            this.writeTransaction = new TransactionTemplate(transactionManager);
+            this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.readTransaction = new TransactionTemplate(transactionManager, writeTransaction);
+            this.readTransaction.setReadOnly(true);
+        } else {
+            this.writeTransaction = null;
+            this.readTransaction = null;
+        }
+    }
+
+    /**
+     * A router over a single unsharded database.
+     */
+    public static ShardRouter unsharded() {
+        return new ShardRouter(1, null, null, null);
+    }
+
+    /**
+     * The shard bound to the current thread, shard 0 when none is.
+     */
+    public static int currentShard() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Appends the shard to a sequence value.
+     */
+    public static long encode(long value, int shard) {
+        return value * MAX_SHARDS + shard;
+    }
+
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public List<Integer> allShards() {
+        return IntStream.range(0, shardCount).boxed().toList();
+    }
+
+    public int shardOfSchool(Long schoolId) {
+        return !isSharded() || schoolId == null ? 0 : (int) Math.floorMod(schoolId, (long) shardCount);
+    }
+
+    /**
+     * The shard a student id was generated on, or -1 if the id cannot exist on any shard.
+     */
+    public int shardOfStudent(Long studentId) {
+        if (!isSharded() || studentId == null) {
+            return 0;
+        }
+        return decode(studentId);
+    }
+
+    /**
+     * The shard a roll number was allocated on, or -1 if the roll number cannot exist on any shard.
+     */
+    public int shardOfRollNumber(String rollNumber) {
+        if (!isSharded() || rollNumber == null) {
+            return 0;
+        }
+        try {
+            return decode(Long.parseLong(rollNumber));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int decode(long key) {
+        int shard = (int) Math.floorMod(key, (long) MAX_SHARDS);
+        return key > 0 && shard < shardCount ? shard : -1;
+    }
+
+    /**
+     * Formats a roll number allocated on the given shard.
+     */
+    public String rollNumber(long value, int shard) {
+        return String.valueOf(isSharded() ? encode(value, shard) : value);
+    }
+
+    /**
+     * Runs the work with the given shard bound to the current thread. Transactions the work opens use that shard;
+     * a transaction already holding a connection keeps it.
+     */
+    public <T> T on(int shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void run(int shard, Runnable work) {
+        on(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the work in a transaction of its own on the given shard, suspending any surrounding transaction.
+     * Unsharded, the work runs inline and takes part in the caller's transaction.
+     */
+    public <T> T inTransaction(int shard, boolean readOnly, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        TransactionTemplate transaction = readOnly ? readTransaction : writeTransaction;
+        return on(shard, () -> transaction.execute(status -> work.get()));
+    }
+
+    /**
+     * Runs the work on every given shard in parallel, each in a read-only transaction of its own,
+     * and returns the results in the order of the shards. Unsharded, the work runs inline in the caller's transaction.
+     */
+    public <T> List<T> scatter(Collection<Integer> shards, IntFunction<T> work) {
+        if (!isSharded()) {
+            return shards.stream().map(work::apply).toList();
+        }
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> inTransaction(shard, true, () -> work.apply(shard)), queryExecutor))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Splits the keys by the shard they live on, dropping keys that cannot exist on any shard.
+     */
+    public <K> Map<Integer, List<K>> groupByShard(Collection<K> keys, Function<K, Integer> shardOf) {
+        return keys.stream().filter(key -> shardOf.apply(key) >= 0)
+                .collect(Collectors.groupingBy(shardOf, TreeMap::new, Collectors.toList()));
+    }
+
+    /**
+     * Streams the query from every shard in parallel and hands the rows to the sink in the order of the comparator,
+     * which must be the order each shard returns its rows in. Each shard streams in a read-only transaction of its own
+     * into a small buffer, so memory use stays flat however many rows there are. Unsharded, the query runs inline in the
+     * caller's transaction. The sink runs on the calling thread.
+     */
+    public <T> void mergeOrdered(IntFunction<Stream<T>> query, Comparator<T> comparator, Consumer<T> sink) {
+        if (!isSharded()) {
+            try (Stream<T> rows = query.apply(0)) {
+                rows.forEach(sink);
+            }
+            return;
+        }
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<ShardStream<T>> streams = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                int current = shard;
+                ShardStream<T> stream = new ShardStream<>();
+                stream.producer = CompletableFuture.runAsync(() -> inTransaction(current, true, () -> {
+                    try (Stream<T> rows = query.apply(current)) {
+                        rows.takeWhile(row -> !cancelled.get()).forEach(stream::put);
+                    }
+                    return null;
+                }), streamExecutor).whenComplete((ignored, failure) -> stream.finish(failure));
+                streams.add(stream);
+            }
+            PriorityQueue<ShardStream<T>> heads = new PriorityQueue<>(Comparator.comparing((ShardStream<T> stream) -> stream.head, comparator));
+            for (ShardStream<T> stream : streams) {
+                if (stream.advance()) {
+                    heads.add(stream);
+                }
+            }
+            while (!heads.isEmpty()) {
+                ShardStream<T> stream = heads.poll();
+                sink.accept(stream.head);
+                if (stream.advance()) {
+                    heads.add(stream);
+                }
+            }
+        } finally {
+            cancelled.set(true);
+            streams.forEach(ShardStream::drain);
+        }
+    }
+
+    /**
+     * Rows of one shard on their way from the producing query to the merge.
+     */
+    private static final class ShardStream<T> {
+
+        private static final Object END = new Object();
+
+        private final BlockingQueue<Object> rows = new ArrayBlockingQueue<>(MERGE_BUFFER);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Throwable failure;
+        private CompletableFuture<Void> producer;
+        private T head;
+
+        private void put(Object row) {
+            try {
+                rows.put(row);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while streaming a shard", e);
+            }
+        }
+
+        private void finish(Throwable failure) {
+            this.failure = failure;
+            put(END);
+            done.countDown();
+        }
+
+        /**
+         * Takes the shard's next row as its head, or returns false once the shard has no more rows.
+         */
+        @SuppressWarnings("unchecked")
+        private boolean advance() {
+            Object row;
+            try {
+                row = rows.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while merging shards", e);
+            }
+            if (row != END) {
+                head = (T) row;
+                return true;
+            }
+            if (failure == null) {
+                return false;
+            }
+            throw failure instanceof CompletionException && failure.getCause() instanceof RuntimeException cause
+                    ? cause : new IllegalStateException("shard query failed", failure);
+        }
+
+        /**
+         * Keeps the buffer clear until the producer has seen the cancellation and ended, so it never blocks on a full buffer.
+         */
+        private void drain() {
+            try {
+                do {
+                    rows.clear();
+                } while (!done.await(10, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.rak.student.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.Action;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the schema on every shard but shard 0, which gets it the usual way through {@code spring.jpa.hibernate.ddl-auto}
+ * and {@code spring.sql.init}. Runs as a Hibernate {@link Integrator}, the one place the mapping metadata is handed out,
+ * and creates the tables from it with Hibernate's schema tooling followed by the given SQL scripts.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements Integrator {
+
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ShardRouter shardRouter;
+    private final Resource[] scripts;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource shardRoutingDataSource, Resource... scripts) {
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        this.shardRouter = new ShardRouter(shardRoutingDataSource.size(), null, null, null);
+        this.scripts = scripts;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        Map<String, Object> settings = new HashMap<>(bootstrapContext.getServiceRegistry().requireService(ConfigurationService.class).getSettings());
+        settings.put(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, Action.CREATE_ONLY);
+        for (int shard = 1; shard < shardRoutingDataSource.size(); shard++) {
+            shardRouter.run(shard, () -> SchemaManagementToolCoordinator.process(metadata, bootstrapContext.getServiceRegistry(), settings, action -> {
+            }));
+            if (scripts.length > 0) {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(scripts), shardRoutingDataSource.shard(shard));
+            }
+            log.info("created schema on shard {}", shard);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.rak.student.shard;
+
+import org.hibernate.boot.model.relational.Database;
+import org.hibernate.boot.model.relational.SqlStringGenerationContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Sequence id generator that keeps one pooled sequence per shard and appends the shard to every id it hands out.
+ * <p>
+ * Every shard has its own copy of the sequence, so ids drawn from it are only unique within a shard until the shard is
+ * appended ({@link ShardRouter#encode}). The shard is the one bound to the current thread, which is also the shard the
+ * insert goes to. Takes the same parameters as {@link SequenceStyleGenerator}, which does all the work, one instance
+ * per shard so that every shard keeps its own pool of values. With a single shard ids are not encoded.
+ */
+public class ShardedSequenceGenerator implements IdentifierGenerator {
+
+    /**
+     * Hibernate setting holding the number of shards, 1 when unset.
+     */
+    public static final String SHARDS = "student.sharding.shards";
+
+    private final List<SequenceStyleGenerator> shards = new ArrayList<>();
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        int shardCount = serviceRegistry.requireService(ConfigurationService.class).getSetting(SHARDS, StandardConverters.INTEGER, 1);
+        for (int shard = 0; shard < shardCount; shard++) {
+            SequenceStyleGenerator generator = new SequenceStyleGenerator();
+            generator.configure(type, parameters, serviceRegistry);
+            shards.add(generator);
+        }
+    }
+
+    /**
+     * Every delegate resolves the same sequence, which the database model holds once.
+     */
+    @Override
+    public void registerExportables(Database database) {
+        shards.forEach(generator -> generator.registerExportables(database));
+    }
+
+    @Override
+    public void initialize(SqlStringGenerationContext context) {
+        shards.forEach(generator -> generator.initialize(context));
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (shards.size() == 1) {
+            return shards.get(0).generate(session, object);
+        }
+        int shard = ShardRouter.currentShard();
+        long value = ((Number) shards.get(shard).generate(session, object)).longValue();
+        return ShardRouter.encode(value, shard);
+    }
+}
@@ -0,0 +1,7 @@
+package com.rak.student.stats;
+
+/**
+ * The number of students of one school in one grade, as counted by the database.
+ */
+public record SchoolGradeCount(Long schoolId, String grade, long students) {
+}
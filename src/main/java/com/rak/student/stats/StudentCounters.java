@@ -0,0 +1,174 @@
+package com.rak.student.stats;
+
+import com.rak.student.domain.Student;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.enums.Grade;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.DoubleBuffer;
+import com.rak.student.shard.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The number of students of every school in every grade, held in memory so that stats never query the database.
+ * <p>
+ * The counts are kept in a single array with one row of {@link Grade} columns per school, the row being the school's
+ * id, which the school sequence keeps dense. They are built at startup from one {@code group by} per shard and kept up
+ * to date by the student service after every committed create, update and delete. A rebuild fills a new matrix as a
+ * {@link DoubleBuffer}. A write committed in the instant between the count starting and the write being applied is
+ * counted twice until the next rebuild.
+ */
+@Slf4j
+@Component
+public class StudentCounters {
+
+    private static final int GRADES = Grade.values().length;
+
+    private final StudentRepository studentRepository;
+    private final DoubleBuffer<Matrix> matrices;
+
+    public StudentCounters(StudentRepository studentRepository, ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.matrices = new DoubleBuffer<>(shardRouter, transactionManager);
+    }
+
+    /**
+     * Returns the counts of the school, all zero for a school without students or an unknown one.
+     *
+     * @throws ResponseStatusException with 503 while the counters are first being built.
+     */
+    public SchoolStatsDTO statsOf(Long schoolId) {
+        return stats(ready(), schoolId);
+    }
+
+    /**
+     * Returns the counts of every school with students, in school id order.
+     *
+     * @throws ResponseStatusException with 503 while the counters are first being built.
+     */
+    public List<SchoolStatsDTO> allStats() {
+        Matrix matrix = ready();
+        List<SchoolStatsDTO> stats = new ArrayList<>();
+        for (long schoolId = 0; schoolId < matrix.schools(); schoolId++) {
+            SchoolStatsDTO school = stats(matrix, schoolId);
+            if (school.getStudents() > 0) {
+                stats.add(school);
+            }
+        }
+        return stats;
+    }
+
+    private Matrix ready() {
+        Matrix matrix = matrices.current();
+        if (matrix == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "student counters are being built");
+        }
+        return matrix;
+    }
+
+    private SchoolStatsDTO stats(Matrix matrix, Long schoolId) {
+        Map<String, Integer> grades = new LinkedHashMap<>();
+        long students = 0;
+        for (Grade grade : Grade.values()) {
+            int count = matrix.get(schoolId, grade);
+            grades.put(grade.getGrade(), count);
+            students += count;
+        }
+        return new SchoolStatsDTO(schoolId, students, grades);
+    }
+
+    /**
+     * Counts committed new students.
+     */
+    public void added(Collection<Student> students) {
+        students.forEach(student -> count(student.getSchool() == null ? null : student.getSchool().getId(), student.getGrade(), 1));
+    }
+
+    /**
+     * Moves a committed student from one school and grade to another.
+     */
+    public void moved(Long fromSchoolId, String fromGrade, Long toSchoolId, String toGrade) {
+        if (!fromSchoolId.equals(toSchoolId) || Grade.of(fromGrade) != Grade.of(toGrade)) {
+            count(fromSchoolId, fromGrade, -1);
+            count(toSchoolId, toGrade, 1);
+        }
+    }
+
+    /**
+     * Drops a committed delete.
+     */
+    public void removed(Long schoolId, String grade) {
+        count(schoolId, grade, -1);
+    }
+
+    private void count(Long schoolId, String grade, int delta) {
+        Grade known = Grade.of(grade);
+        if (schoolId == null || known == null) {
+            return;
+        }
+        matrices.apply(matrix -> matrix.add(schoolId, known, delta));
+    }
+
+    public boolean isReady() {
+        return matrices.current() != null;
+    }
+
+    /**
+     * Counts the students of every shard and swaps the counts in.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long started = System.nanoTime();
+        Matrix next = new Matrix();
+        matrices.rebuild(next, matrix -> studentRepository.countBySchoolAndGrade().forEach(count -> {
+            Grade grade = Grade.of(count.grade());
+            if (count.schoolId() != null && grade != null) {
+                matrix.add(count.schoolId(), grade, Math.toIntExact(count.students()));
+            }
+        }));
+        log.info("student counters built for {} schools in {} ms", next.schools(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Student counts indexed by {@code schoolId * GRADES + grade.ordinal()}. Reads take no lock; writes are serialized so
+     * that none is lost while the array grows.
+     */
+    private static final class Matrix {
+
+        private volatile AtomicIntegerArray cells = new AtomicIntegerArray(0);
+
+        int get(long schoolId, Grade grade) {
+            AtomicIntegerArray counts = cells;
+            long cell = schoolId * GRADES + grade.ordinal();
+            return schoolId < 0 || cell >= counts.length() ? 0 : counts.get((int) cell);
+        }
+
+        synchronized void add(long schoolId, Grade grade, int delta) {
+            int cell = Math.toIntExact(schoolId * GRADES + grade.ordinal());
+            if (cell >= cells.length()) {
+                AtomicIntegerArray grown = new AtomicIntegerArray(Math.max(Math.toIntExact((schoolId + 1) * GRADES), cells.length() * 2));
+                for (int i = 0; i < cells.length(); i++) {
+                    grown.set(i, cells.get(i));
+                }
+                cells = grown;
+            }
+            cells.addAndGet(cell, delta);
+        }
+
+        long schools() {
+            return cells.length() / GRADES;
+        }
+    }
+}
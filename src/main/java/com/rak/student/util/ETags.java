@@ -0,0 +1,59 @@
+package com.rak.student.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Strong ETags built from entity versions, so a conditional GET can be answered before the body is loaded.
+ */
+@UtilityClass
+public class ETags {
+
+    /**
+     * ETag of one entity: changes whenever Hibernate increments its {@code @Version}.
+     */
+    public static String of(String kind, Long id, long version) {
+        return "\"" + kind + "-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * ETag of an entity whose body also shows fields of an entity it references: changes whenever either version does.
+     */
+    public static String of(String kind, Long id, long version, long referencedVersion) {
+        return "\"" + kind + "-" + id + "-" + version + "-" + referencedVersion + "\"";
+    }
+
+    /**
+     * ETag of a listing: built from parts that together change whenever any row of it is inserted, updated or
+     * deleted, plus the request parameters that select the page.
+     */
+    public static String ofCollection(String kind, Object... parts) {
+        StringBuilder etag = new StringBuilder("\"").append(kind);
+        for (Object part : parts) {
+            etag.append('-').append(part);
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the current ETag, using the weak comparison RFC 9110
+     * prescribes for If-None-Match: a {@code W/} prefix is ignored and {@code *} matches any ETag.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
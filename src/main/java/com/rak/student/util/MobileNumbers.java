@@ -0,0 +1,31 @@
+package com.rak.student.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Canonical keys of the free-form mobile numbers clients send, so the same number matches however it was typed.
+ */
+@UtilityClass
+public class MobileNumbers {
+
+    /**
+     * The digits of the number, without a leading {@code 00} international call prefix, so {@code +92 (300) 123-4567}
+     * and {@code 0092 300 1234567} share the key {@code 923001234567}. Null when the number has no digits.
+     */
+    public static String key(String mobileNumber) {
+        if (mobileNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(mobileNumber.length());
+        for (int i = 0; i < mobileNumber.length(); i++) {
+            char c = mobileNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.length() > 2 && digits.charAt(0) == '0' && digits.charAt(1) == '0' && mobileNumber.strip().startsWith("00")) {
+            digits.delete(0, 2);
+        }
+        return digits.isEmpty() ? null : digits.toString();
+    }
+}
@@ -6,8 +6,29 @@ import java.util.Random;
 
 @UtilityClass
 public class Utility {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * Only 9000 distinct values, so collisions are certain once a few hundred students exist.
+     *
+     * @deprecated roll numbers are allocated by {@link com.rak.student.service.RollNumberAllocator}.
+     */
+    @Deprecated
     public static int generateRandom4DigitNumber() {
         Random random = new Random();
         return 1000 + random.nextInt(9000);
     }
+
+    /**
+     * Resolves the page size requested by a client, falling back to {@link #DEFAULT_PAGE_SIZE}
+     * and never exceeding {@link #MAX_PAGE_SIZE}.
+     */
+    public static int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
 }
@@ -0,0 +1,2 @@
+-- Roll numbers are handed out in blocks by RollNumberAllocator; INCREMENT BY must match RollNumberAllocator.BLOCK_SIZE.
+CREATE SEQUENCE IF NOT EXISTS roll_number_seq START WITH 100000 INCREMENT BY 100;
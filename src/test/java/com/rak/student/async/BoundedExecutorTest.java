@@ -0,0 +1,91 @@
+package com.rak.student.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedExecutorTest {
+
+    private MeterRegistry meterRegistry;
+    private BoundedExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new BoundedExecutor("test", Executors.newVirtualThreadPerTaskExecutor(), 3, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.close();
+    }
+
+    @Test
+    public void testNeverRunsMoreThanMaxConcurrencyTasks() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }, executor));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertTrue(peak.get() <= 3, "peak concurrency " + peak.get());
+        assertEquals(50, meterRegistry.get("executor.bounded.execution").tag("name", "test").timer().count());
+        assertEquals(0, executor.getQueued());
+    }
+
+    @Test
+    public void testQueuedTasksAreReported() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, executor));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.bounded.active").gauge().value() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(3.0, meterRegistry.get("executor.bounded.active").tag("name", "test").gauge().value());
+        assertEquals(2.0, meterRegistry.get("executor.bounded.queued").tag("name", "test").gauge().value());
+
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testRejectsNonPositiveConcurrency() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BoundedExecutor("invalid", Executors.newVirtualThreadPerTaskExecutor(), 0, meterRegistry));
+    }
+}
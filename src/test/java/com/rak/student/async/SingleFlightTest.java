@@ -0,0 +1,89 @@
+package com.rak.student.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest {
+
+    private MeterRegistry meterRegistry;
+    private SingleFlight<String, String> singleFlight;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("test", meterRegistry);
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(singleFlight.execute("100000", () -> {
+                loads.incrementAndGet();
+                return pending;
+            }));
+        }
+
+        pending.complete("John");
+
+        for (CompletableFuture<String> result : results) {
+            assertEquals("John", result.get());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("singleflight.calls").tag("result", "leader").counter().count());
+        assertEquals(9.0, meterRegistry.get("singleflight.calls").tag("result", "coalesced").counter().count());
+        assertEquals(0.0, meterRegistry.get("singleflight.inflight").gauge().value());
+    }
+
+    @Test
+    public void testKeyIsReleasedOnceTheLoadCompletes() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("100000", () -> CompletableFuture.completedFuture("v" + loads.incrementAndGet())).get();
+        String second = singleFlight.execute("100000", () -> CompletableFuture.completedFuture("v" + loads.incrementAndGet())).get();
+
+        assertEquals("v2", second);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testFailuresReachEveryCallerUnwrapped() {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute("100000", () -> pending);
+        CompletableFuture<String> second = singleFlight.execute("100000", () -> pending);
+
+        pending.completeExceptionally(new IllegalStateException("db down"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, second::get);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertThrows(ExecutionException.class, first::get);
+    }
+
+    @Test
+    public void testCancellingOneCallerDoesNotAffectOthers() throws Exception {
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = singleFlight.execute("100000", () -> pending);
+        CompletableFuture<String> second = singleFlight.execute("100000", () -> pending);
+
+        first.cancel(true);
+        pending.complete("John");
+
+        assertEquals("John", second.get());
+        assertFalse(pending.isCancelled());
+    }
+}
@@ -0,0 +1,30 @@
+package com.rak.student.benchmark;
+
+import com.rak.student.enums.Grade;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Grade#isValid(String)}, which runs on every StudentDTO grade assignment.
+ * G1 matches first, G10 last and X1 scans every constant without a match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GradeBenchmark {
+
+    @Param({"G1", "g10", "X1"})
+    private String grade;
+
+    @Benchmark
+    public boolean isValid() {
+        return Grade.isValid(grade);
+    }
+}
@@ -0,0 +1,64 @@
+package com.rak.student.benchmark;
+
+import com.rak.student.domain.School;
+import com.rak.student.domain.Student;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.mapper.SchoolMapper;
+import com.rak.student.mapper.StudentMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the MapStruct conversions done on every read and write of a student or school.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+
+    private final StudentMapper studentMapper = Mappers.getMapper(StudentMapper.class);
+    private final SchoolMapper schoolMapper = Mappers.getMapper(SchoolMapper.class);
+
+    private Student student;
+    private StudentDTO studentDTO;
+    private School school;
+    private SchoolDTO schoolDTO;
+
+    @Setup
+    public void setup() {
+        school = new School(1L, "Skiply School", new ArrayList<>(), "https://cdn.skiply.ae/logo.png", "Dubai");
+        student = new Student(1L, "John Doe", "G1", "100000", "+92090078601", "Ali", school);
+        studentDTO = studentMapper.toDTO(student);
+        schoolDTO = schoolMapper.toDTO(school);
+    }
+
+    @Benchmark
+    public StudentDTO studentToDto() {
+        return studentMapper.toDTO(student);
+    }
+
+    @Benchmark
+    public Student studentToEntity() {
+        return studentMapper.toEntity(studentDTO);
+    }
+
+    @Benchmark
+    public SchoolDTO schoolToDto() {
+        return schoolMapper.toDTO(school);
+    }
+
+    @Benchmark
+    public School schoolToEntity() {
+        return schoolMapper.toEntity(schoolDTO);
+    }
+}
@@ -0,0 +1,59 @@
+package com.rak.student.benchmark;
+
+import com.rak.student.dto.StudentSearchHit;
+import com.rak.student.search.IndexedStudent;
+import com.rak.student.search.NameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Ali", "Sara", "Omar", "Fatima", "Ahmed", "Aisha", "Jonathan",
+            "Maria", "Mohammed", "Layla", "Yusuf", "Zainab", "Hassan", "Noor", "Ibrahim", "Mariam", "Khalid", "Hana"};
+
+    @Param("1000000")
+    private int students;
+
+    private NameIndex index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        index = new NameIndex();
+        for (int i = 1; i <= students; i++) {
+            // a few thousand distinct surnames, like the names of a real school district
+            String surname = "Family" + Integer.toString(random.nextInt(5_000), 36);
+            index.put(new IndexedStudent((long) i, 0, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + surname,
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + surname, String.valueOf(100_000 + i), (long) random.nextInt(100)));
+        }
+        System.out.printf("%n%d students, %d terms, about %d MB%n", index.size(), index.termCount(), index.estimatedBytes() >> 20);
+    }
+
+    @Benchmark
+    public List<StudentSearchHit> commonFirstName() {
+        return index.search("john", 10);
+    }
+
+    @Benchmark
+    public List<StudentSearchHit> prefix() {
+        return index.search("fatima fam", 10);
+    }
+
+    @Benchmark
+    public List<StudentSearchHit> typo() {
+        return index.search("jonathon family1a", 10);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rak.student.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.rak.student.dto.StudentDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing a list of StudentDTOs with an ObjectMapper configured the way Spring MVC configures it.
+ * The sizes cover a single lookup, the default page size and the maximum page size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"1", "50", "500"})
+    private int size;
+
+    private ObjectWriter writer;
+    private List<StudentDTO> students;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(new TypeReference<List<StudentDTO>>() {
+        });
+        students = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            students.add(StudentDTO.builder()
+                    .id((long) i)
+                    .studentName("Student " + i)
+                    .grade("G" + (i % 10 + 1))
+                    .rollNumber(String.valueOf(100_000 + i))
+                    .mobileNumber("+9209007" + (8600 + i % 1000))
+                    .schoolId((long) (i % 10))
+                    .schoolName("School " + i % 10)
+                    .guardianName("Guardian " + i)
+                    .schoolLogoUrl("https://cdn.skiply.ae/logo-" + i % 10 + ".png")
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public byte[] writeStudents() throws JsonProcessingException {
+        return writer.writeValueAsBytes(students);
+    }
+}
@@ -0,0 +1,121 @@
+package com.rak.student.benchmark;
+
+import com.rak.student.StudentApplication;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.service.SchoolService;
+import com.rak.student.service.StudentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end cost of the StudentService read and create paths against the embedded H2 database,
+ * going through the same Spring proxies (transactions, retry, circuit breaker) as a request would.
+ * The application context is started once per fork and seeded with {@link #SCHOOLS} schools and
+ * {@link #STUDENTS} students; keys are drawn from a fixed seed so every run reads the same rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StudentServiceBenchmark {
+
+    private static final int SCHOOLS = 10;
+    private static final int STUDENTS = 10_000;
+    private static final int KEYS = 1_024;
+
+    private ConfigurableApplicationContext context;
+    private StudentService studentService;
+
+    private final long[] studentIds = new long[KEYS];
+    private final String[] rollNumbers = new String[KEYS];
+    private long schoolId;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(StudentApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark")
+                .run();
+        studentService = context.getBean(StudentService.class);
+        SchoolService schoolService = context.getBean(SchoolService.class);
+
+        List<Long> schoolIds = new ArrayList<>();
+        for (int i = 0; i < SCHOOLS; i++) {
+            schoolIds.add(schoolService.createSchool(new SchoolDTO("School " + i, null, "https://cdn.skiply.ae/logo.png", "Dubai")).getId());
+        }
+        schoolId = schoolIds.get(0);
+
+        List<StudentDTO> students = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            students.add(newStudent(schoolIds.get(i % SCHOOLS), i));
+        }
+        List<StudentDTO> created = studentService.createStudents(students).stream().map(BatchItemResult::getStudent).toList();
+
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            StudentDTO student = created.get(random.nextInt(created.size()));
+            studentIds[i] = student.getId();
+            rollNumbers[i] = student.getRollNumber();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public StudentDTO getStudentById() {
+        return studentService.getStudentById(studentIds[nextKey()]);
+    }
+
+    @Benchmark
+    public StudentDTO getStudentByRollNo() throws InterruptedException {
+        return studentService.getStudentByRollNo(rollNumbers[nextKey()]).join();
+    }
+
+    @Benchmark
+    public CursorPage<StudentDTO> getAllStudentsPage() {
+        return studentService.getAllStudents(studentIds[nextKey()], null);
+    }
+
+    @Benchmark
+    public StudentDTO createStudent() {
+        return studentService.createStudent(newStudent(schoolId, cursor));
+    }
+
+    private int nextKey() {
+        cursor = (cursor + 1) & (KEYS - 1);
+        return cursor;
+    }
+
+    private static StudentDTO newStudent(long schoolId, int i) {
+        return StudentDTO.builder()
+                .studentName("Student " + i)
+                .grade("G" + (i % 10 + 1))
+                .mobileNumber("+9209007" + (8600 + i % 1000))
+                .schoolId(schoolId)
+                .guardianName("Guardian " + i)
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.rak.student.benchmark;
+
+import com.rak.student.util.Utility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UtilityBenchmark {
+
+    private Integer limit = 1_000;
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public int generateRandom4DigitNumber() {
+        return Utility.generateRandom4DigitNumber();
+    }
+
+    @Benchmark
+    public int resolvePageSize() {
+        return Utility.resolvePageSize(limit);
+    }
+}
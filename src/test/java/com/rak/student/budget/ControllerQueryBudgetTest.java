@@ -0,0 +1,182 @@
+package com.rak.student.budget;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentLookupRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Statement and latency budgets of every route, going through the full MVC stack including filters,
+ * conditional GETs and asynchronous request handling. Unless a test says otherwise it runs with cold
+ * second-level and query caches.
+ */
+public class ControllerQueryBudgetTest extends QueryBudgetSupport {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    public void testGetStudents() throws Exception {
+        evictCaches();
+        MvcResult result = assertBudget("GET /students", 1, PAGE_READ, () -> perform(get("/students").param("after", "40000")));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetStudentById() throws Exception {
+        evictCaches();
+        // version and body both come from the one select that puts the student in the second-level cache
+        MvcResult result = assertBudget("GET /students/{id}", 1, POINT_READ, () -> perform(get("/students/4321")));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetStudentByIdNotModified() throws Exception {
+        String etag = perform(get("/students/4322")).getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult result = assertBudget("GET /students/{id} (304)", 0, POINT_READ,
+                () -> perform(get("/students/4322").header(HttpHeaders.IF_NONE_MATCH, etag)));
+        assertEquals(304, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetStudentByRollNo() throws Exception {
+        evictCaches();
+        MvcResult result = assertBudget("GET /students/rollNo/{rollNo}", 2, POINT_READ,
+                () -> performAsync(get("/students/rollNo/" + (FIRST_ROLL_NUMBER + 7_000))));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testPostStudent() throws Exception {
+        evictCaches();
+        MvcResult result = assertBudget("POST /students", 4, WRITE,
+                () -> perform(post("/students").contentType(MediaType.APPLICATION_JSON).content(json(newStudent(11L, 1)))));
+        assertEquals(201, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testPostStudentsBatch() throws Exception {
+        evictCaches();
+        List<StudentDTO> students = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            students.add(newStudent(i % SCHOOLS + 1L, i));
+        }
+        // schools, 1 roll number block, 2 id blocks and 2 insert batches
+        MvcResult result = assertBudget("POST /students/batch (100)", 6, BULK,
+                () -> perform(post("/students/batch").contentType(MediaType.APPLICATION_JSON).content(json(students))));
+        assertEquals(201, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testPostStudentsLookup() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(70_001, 71_000).boxed().toList();
+        MvcResult result = assertBudget("POST /students/lookup (1000)", 2, BULK,
+                () -> perform(post("/students/lookup").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new StudentLookupRequest(ids, null)))));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testPutStudent() throws Exception {
+        evictCaches();
+        MvcResult result = assertBudget("PUT /students/{id}", 3, WRITE,
+                () -> perform(put("/students/6000").contentType(MediaType.APPLICATION_JSON).content(json(newStudent(12L, 2)))));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testExportStudents() throws Exception {
+        MvcResult result = assertBudget("GET /students/export", 1, FULL_SCAN, () -> performAsync(get("/students/export")));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetSchools() throws Exception {
+        evictCaches();
+        // collection version for the ETag and the page
+        MvcResult result = assertBudget("GET /schools", 2, PAGE_READ, () -> perform(get("/schools")));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetSchoolsNotModified() throws Exception {
+        String etag = perform(get("/schools").param("limit", "10")).getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult result = assertBudget("GET /schools (304)", 0, POINT_READ,
+                () -> perform(get("/schools").param("limit", "10").header(HttpHeaders.IF_NONE_MATCH, etag)));
+        assertEquals(304, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetSchoolById() throws Exception {
+        evictCaches();
+        MvcResult result = assertBudget("GET /schools/{id}", 1, POINT_READ, () -> perform(get("/schools/13")));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testGetSchoolByIdNotModified() throws Exception {
+        String etag = perform(get("/schools/14")).getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult result = assertBudget("GET /schools/{id} (304)", 0, POINT_READ,
+                () -> perform(get("/schools/14").header(HttpHeaders.IF_NONE_MATCH, etag)));
+        assertEquals(304, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testPostSchool() throws Exception {
+        MvcResult result = assertBudget("POST /schools", 2, WRITE, () -> perform(post("/schools")
+                .contentType(MediaType.APPLICATION_JSON).content(json(new SchoolDTO("Route School", null, null, "Fujairah")))));
+        assertEquals(201, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testPutSchool() throws Exception {
+        evictCaches();
+        MvcResult result = assertBudget("PUT /schools/{id}", 2, WRITE, () -> perform(put("/schools/15")
+                .contentType(MediaType.APPLICATION_JSON).content(json(new SchoolDTO("Renamed Route School", null, null, "Dubai")))));
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn();
+    }
+
+    /**
+     * Performs a request answered asynchronously and dispatches its result, so statements run on the executors
+     * count towards the budget.
+     */
+    private MvcResult performAsync(RequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request).andReturn();
+        started.getAsyncResult();
+        return mockMvc.perform(asyncDispatch(started)).andReturn();
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private static StudentDTO newStudent(long schoolId, int i) {
+        return StudentDTO.builder()
+                .studentName("Route Student " + i)
+                .grade("G" + (i % 10 + 1))
+                .mobileNumber("+97156" + (1_000_000 + i))
+                .schoolId(schoolId)
+                .guardianName("Route Guardian " + i)
+                .build();
+    }
+}
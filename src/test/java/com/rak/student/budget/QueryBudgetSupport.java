@@ -0,0 +1,153 @@
+package com.rak.student.budget;
+
+import com.rak.student.metrics.SqlStatementCounter;
+import com.rak.student.service.MobileKeyBackfill;
+import com.rak.student.stats.StudentCounters;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Base class of the query budget tests. Starts the application against its own in-memory database, seeded once per
+ * context with {@link #SCHOOLS} schools and {@link #STUDENTS} students, and asserts how many JDBC statements and how
+ * much wall time an operation may take, as counted by the {@link SqlStatementCounter} on the proxied data source.
+ * <p>
+ * Statement budgets are exact upper bounds: an operation that needs one more round trip fails its test. Latency
+ * budgets are coarse and only meant to catch an operation that suddenly scans or loads the whole table.
+ */
+@Slf4j
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:budget",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+abstract class QueryBudgetSupport {
+
+    static final int SCHOOLS = 50;
+    static final int STUDENTS = 100_000;
+    static final long FIRST_ROLL_NUMBER = 100_000;
+
+    static final Duration POINT_READ = Duration.ofMillis(250);
+    static final Duration PAGE_READ = Duration.ofMillis(500);
+    static final Duration WRITE = Duration.ofSeconds(1);
+    static final Duration BULK = Duration.ofSeconds(3);
+    static final Duration FULL_SCAN = Duration.ofSeconds(30);
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    @Autowired
+    protected SqlStatementCounter sqlStatementCounter;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    protected MobileKeyBackfill mobileKeyBackfill;
+
+    @Autowired
+    protected StudentCounters studentCounters;
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @BeforeEach
+    public void seed() throws Exception {
+        synchronized (QueryBudgetSupport.class) {
+            Integer schools = jdbcTemplate.queryForObject("select count(*) from school", Integer.class);
+            if (schools != null && schools > 0) {
+                return;
+            }
+            seedSchools();
+            seedStudents();
+            // keep ids and roll numbers handed out by the application clear of the seeded ones
+            jdbcTemplate.execute("alter sequence school_seq restart with " + (SCHOOLS + 1_000));
+            jdbcTemplate.execute("alter sequence student_seq restart with " + (STUDENTS + 1_000));
+            jdbcTemplate.execute("alter sequence roll_number_seq restart with " + (FIRST_ROLL_NUMBER + STUDENTS));
+            // the seed leaves mobile keys null, like rows written before the column existed
+            mobileKeyBackfill.run();
+            studentCounters.rebuild();
+            warmUp();
+        }
+    }
+
+    /**
+     * Takes one-off costs such as dispatcher servlet initialisation and class loading out of the first measured request.
+     */
+    private void warmUp() throws Exception {
+        mockMvc.perform(get("/schools")).andReturn();
+        mockMvc.perform(get("/students/1")).andReturn();
+        mockMvc.perform(get("/students")).andReturn();
+    }
+
+    private void seedSchools() {
+        List<Object[]> rows = new ArrayList<>(SCHOOLS);
+        for (long id = 1; id <= SCHOOLS; id++) {
+            rows.add(new Object[]{id, "School " + id, "https://cdn.skiply.ae/logo-" + id + ".png", "Street " + id + ", Dubai"});
+        }
+        jdbcTemplate.batchUpdate("insert into school (id, name, logo_url, address, version) values (?, ?, ?, ?, 0)", rows);
+    }
+
+    private void seedStudents() {
+        List<Object[]> rows = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long id = 1; id <= STUDENTS; id++) {
+            rows.add(new Object[]{id, "Student " + id, "G" + (id % 10 + 1), String.valueOf(FIRST_ROLL_NUMBER + id - 1),
+                    "+97150" + (1_000_000 + id), "Guardian " + id, id % SCHOOLS + 1});
+            if (rows.size() == SEED_BATCH_SIZE) {
+                insertStudents(rows);
+                rows.clear();
+            }
+        }
+        insertStudents(rows);
+    }
+
+    private void insertStudents(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("insert into student (id, student_name, grade, roll_number, mobile_number, guardian_name, school_id, version) " +
+                "values (?, ?, ?, ?, ?, ?, ?, 0)", rows);
+    }
+
+    /**
+     * Empties the second-level and query caches, so the next operation has to go to the database.
+     */
+    protected void evictCaches() {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    /**
+     * Runs the operation and asserts it executed at most {@code maxStatements} JDBC statements, including those run
+     * on the async executors on its behalf, and completed within {@code maxLatency}.
+     */
+    protected <T> T assertBudget(String operation, int maxStatements, Duration maxLatency, Callable<T> call) throws Exception {
+        SqlStatementCounter.Scope scope = sqlStatementCounter.start();
+        long startedAt = System.nanoTime();
+        T result;
+        try {
+            result = call.call();
+        } finally {
+            sqlStatementCounter.stop();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+        log.info("{}: {} statements in {} ms", operation, scope.getStatements(), elapsed.toMillis());
+        assertTrue(scope.getStatements() <= maxStatements, () -> operation + " executed " + scope.getStatements()
+                + " statements, budget is " + maxStatements);
+        assertTrue(elapsed.compareTo(maxLatency) <= 0, () -> operation + " took " + elapsed.toMillis()
+                + " ms, budget is " + maxLatency.toMillis() + " ms");
+        return result;
+    }
+}
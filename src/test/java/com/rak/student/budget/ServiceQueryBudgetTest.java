@@ -0,0 +1,280 @@
+package com.rak.student.budget;
+
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.dto.SchoolSummaryDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.service.SchoolService;
+import com.rak.student.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statement and latency budgets of every StudentService and SchoolService method, called through their Spring proxies.
+ * Unless a test says otherwise it runs with cold second-level and query caches.
+ */
+public class ServiceQueryBudgetTest extends QueryBudgetSupport {
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    @Test
+    public void testGetAllStudentsFirstPage() throws Exception {
+        evictCaches();
+        CursorPage<StudentDTO> page = assertBudget("getAllStudents(first)", 1, PAGE_READ,
+                () -> studentService.getAllStudents(null, 100));
+        assertEquals(100, page.getItems().size());
+    }
+
+    @Test
+    public void testGetAllStudentsDeepPage() throws Exception {
+        evictCaches();
+        CursorPage<StudentDTO> page = assertBudget("getAllStudents(deep)", 1, PAGE_READ,
+                () -> studentService.getAllStudents(90_000L, 100));
+        assertEquals(100, page.getItems().size());
+    }
+
+    @Test
+    public void testGetStudentByIdCold() throws Exception {
+        evictCaches();
+        StudentDTO student = assertBudget("getStudentById(cold)", 1, POINT_READ, () -> studentService.getStudentById(1_234L));
+        assertNotNull(student.getSchoolName());
+    }
+
+    @Test
+    public void testGetStudentByIdCached() throws Exception {
+        studentService.getStudentById(1_235L);
+        assertBudget("getStudentById(cached)", 0, POINT_READ, () -> studentService.getStudentById(1_235L));
+    }
+
+    @Test
+    public void testGetStudentVersionCached() throws Exception {
+        studentService.getStudentVersion(1_236L);
+        assertBudget("getStudentVersion(cached)", 0, POINT_READ, () -> studentService.getStudentVersion(1_236L));
+    }
+
+    @Test
+    public void testGetStudentByRollNo() throws Exception {
+        evictCaches();
+        String rollNo = String.valueOf(FIRST_ROLL_NUMBER + 5_000);
+        // the student, then its school while the school is not in the second-level cache
+        StudentDTO student = assertBudget("getStudentByRollNo(cold)", 2, POINT_READ,
+                () -> studentService.getStudentByRollNo(rollNo).join());
+        assertEquals(rollNo, student.getRollNumber());
+    }
+
+    @Test
+    public void testGetStudentByUnknownRollNo() throws Exception {
+        // the first miss is looked up and the next ones hit the miss cache
+        assertBudget("getStudentByRollNo(unknown)", 1, POINT_READ,
+                () -> studentService.getStudentByRollNo("unknown").handle((student, e) -> e).join());
+        assertBudget("getStudentByRollNo(known missing)", 0, POINT_READ,
+                () -> studentService.getStudentByRollNo("unknown").handle((student, e) -> e).join());
+    }
+
+    @Test
+    public void testGetStudentByRollNoCreatedByAnotherInstance() throws Exception {
+        evictCaches();
+        String rollNo = String.valueOf(FIRST_ROLL_NUMBER - 1);
+        jdbcTemplate.update("insert into student (id, student_name, grade, roll_number, mobile_number, guardian_name, school_id, version) " +
+                "values (?, 'Elsewhere', 'G1', ?, '+971500000000', 'Guardian', 1, 0)", STUDENTS + 500, rollNo);
+        try {
+            StudentDTO student = assertBudget("getStudentByRollNo(created elsewhere)", 2, POINT_READ,
+                    () -> studentService.getStudentByRollNo(rollNo).join());
+
+            assertEquals("Elsewhere", student.getStudentName());
+        } finally {
+            // keeps the seeded totals the other tests count on
+            jdbcTemplate.update("delete from student where id = ?", STUDENTS + 500);
+        }
+    }
+
+    @Test
+    public void testCreateStudent() throws Exception {
+        evictCaches();
+        // school, roll number block, id block and insert
+        StudentDTO student = assertBudget("createStudent(cold)", 4, WRITE, () -> studentService.createStudent(newStudent(7L, 1)));
+        assertNotNull(student.getRollNumber());
+    }
+
+    @Test
+    public void testCreateStudentWarm() throws Exception {
+        studentService.createStudent(newStudent(9L, 3));
+        // school cached, roll number and id taken from the blocks already reserved
+        assertBudget("createStudent(warm)", 1, WRITE, () -> studentService.createStudent(newStudent(9L, 4)));
+    }
+
+    @Test
+    public void testCreateStudents() throws Exception {
+        evictCaches();
+        List<StudentDTO> students = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            students.add(newStudent(i % SCHOOLS + 1L, i));
+        }
+        // schools, 5 roll number blocks, 10 id blocks and 10 insert batches
+        List<BatchItemResult> results = assertBudget("createStudents(500)", 26, BULK, () -> studentService.createStudents(students));
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemResult.Status.CREATED));
+    }
+
+    @Test
+    public void testUpdateStudent() throws Exception {
+        evictCaches();
+        StudentDTO update = newStudent(8L, 2);
+        StudentDTO student = assertBudget("updateStudent", 3, WRITE, () -> studentService.updateStudent(2_000L, update));
+        assertEquals(update.getStudentName(), student.getStudentName());
+    }
+
+    @Test
+    public void testDeleteStudent() throws Exception {
+        evictCaches();
+        assertBudget("deleteStudent", 2, WRITE, () -> {
+            studentService.deleteStudent(3_000L);
+            return null;
+        });
+    }
+
+    @Test
+    public void testLookupStudentsByIds() throws Exception {
+        List<Long> ids = LongStream.rangeClosed(50_001, 51_000).boxed().toList();
+        List<StudentLookupResult> results = assertBudget("lookupStudents(1000 ids)", 2, BULK,
+                () -> studentService.lookupStudents(new StudentLookupRequest(ids, null)));
+        assertEquals(1_000, results.size());
+    }
+
+    @Test
+    public void testLookupStudentsByRollNumbers() throws Exception {
+        List<String> rollNumbers = LongStream.range(0, 1_000).mapToObj(i -> String.valueOf(FIRST_ROLL_NUMBER + 60_000 + i)).toList();
+        List<StudentLookupResult> results = assertBudget("lookupStudents(1000 roll numbers)", 2, BULK,
+                () -> studentService.lookupStudents(new StudentLookupRequest(null, rollNumbers)));
+        assertTrue(results.stream().allMatch(StudentLookupResult::isFound));
+    }
+
+    @Test
+    public void testGetStudentsByMobileNumber() throws Exception {
+        List<StudentDTO> students = assertBudget("getStudentsByMobileNumber", 1, POINT_READ,
+                () -> studentService.getStudentsByMobileNumber("00971 50 100 1234"));
+        assertEquals(1, students.size());
+        assertEquals(Long.valueOf(1_234L), students.get(0).getId());
+    }
+
+    @Test
+    public void testExportStudents() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertBudget("exportStudents", 1, FULL_SCAN, () -> {
+            studentService.exportStudents(out);
+            return null;
+        });
+        assertTrue(out.size() > 0);
+    }
+
+    @Test
+    public void testGetAllSchools() throws Exception {
+        evictCaches();
+        CursorPage<SchoolDTO> page = assertBudget("getAllSchools(cold)", 1, PAGE_READ, () -> schoolService.getAllSchools(null, 20));
+        assertEquals(20, page.getItems().size());
+    }
+
+    @Test
+    public void testGetAllSchoolsCached() throws Exception {
+        schoolService.getAllSchools(20L, 20);
+        assertBudget("getAllSchools(cached)", 0, PAGE_READ, () -> schoolService.getAllSchools(20L, 20));
+    }
+
+    @Test
+    public void testGetSchoolsVersion() throws Exception {
+        evictCaches();
+        assertBudget("getSchoolsVersion(cold)", 1, POINT_READ, schoolService::getSchoolsVersion);
+        assertBudget("getSchoolsVersion(cached)", 0, POINT_READ, schoolService::getSchoolsVersion);
+    }
+
+    @Test
+    public void testGetSchoolById() throws Exception {
+        evictCaches();
+        assertBudget("getSchoolById(cold)", 1, POINT_READ, () -> schoolService.getSchoolById(3L));
+        assertBudget("getSchoolById(cached)", 0, POINT_READ, () -> schoolService.getSchoolById(3L));
+    }
+
+    @Test
+    public void testGetSchoolStudents() throws Exception {
+        evictCaches();
+        CursorPage<StudentDTO> first = assertBudget("getSchoolStudents(first)", 2, PAGE_READ, () -> schoolService.getSchoolStudents(3L, null, 100));
+        assertEquals(100, first.getItems().size());
+        CursorPage<StudentDTO> deep = assertBudget("getSchoolStudents(deep)", 1, PAGE_READ,
+                () -> schoolService.getSchoolStudents(3L, 90_000L, 100));
+        assertTrue(deep.getItems().stream().allMatch(student -> student.getId() > 90_000L && student.getSchoolId() == 3L));
+    }
+
+    @Test
+    public void testGetSchoolSummary() throws Exception {
+        evictCaches();
+        SchoolSummaryDTO school = assertBudget("getSchoolSummary(cold)", 2, PAGE_READ, () -> schoolService.getSchoolSummary(3L));
+        assertEquals(10, school.getStudents().getItems().size());
+        assertNotNull(school.getStudents().getNext());
+    }
+
+    @Test
+    public void testGetSchoolStats() throws Exception {
+        Long students = jdbcTemplate.queryForObject("select count(*) from student where school_id = 3", Long.class);
+        SchoolStatsDTO school = assertBudget("getSchoolStats", 0, POINT_READ, () -> schoolService.getSchoolStats(3L));
+        assertEquals(students, school.getStudents());
+        List<SchoolStatsDTO> schools = assertBudget("getSchoolsStats", 0, POINT_READ, schoolService::getSchoolsStats);
+        assertEquals(jdbcTemplate.queryForObject("select count(*) from student", Long.class),
+                schools.stream().mapToLong(SchoolStatsDTO::getStudents).sum());
+    }
+
+    @Test
+    public void testGetSchoolVersion() throws Exception {
+        evictCaches();
+        assertBudget("getSchoolVersion(cold)", 1, POINT_READ, () -> schoolService.getSchoolVersion(4L));
+    }
+
+    @Test
+    public void testCreateSchool() throws Exception {
+        SchoolDTO school = assertBudget("createSchool", 2, WRITE,
+                () -> schoolService.createSchool(new SchoolDTO("Budget School", null, null, "Abu Dhabi")));
+        assertNotNull(school.getId());
+    }
+
+    @Test
+    public void testUpdateSchool() throws Exception {
+        evictCaches();
+        assertBudget("updateSchool", 2, WRITE,
+                () -> schoolService.updateSchool(5L, new SchoolDTO("Renamed School", null, null, "Sharjah")));
+    }
+
+    @Test
+    public void testDeleteSchool() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Closing School", null, null, "Ajman")).getId();
+        evictCaches();
+        assertBudget("deleteSchool", 2, WRITE, () -> {
+            schoolService.deleteSchool(schoolId);
+            return null;
+        });
+    }
+
+    private static StudentDTO newStudent(long schoolId, int i) {
+        return StudentDTO.builder()
+                .studentName("Budget Student " + i)
+                .grade("G" + (i % 10 + 1))
+                .mobileNumber("+97155" + (1_000_000 + i))
+                .schoolId(schoolId)
+                .guardianName("Budget Guardian " + i)
+                .build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.rak.student.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.rak.student.dto.StaleStudentDTO;
+import com.rak.student.dto.StudentDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LastKnownGoodStoreTest {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final Instant now = Instant.parse("2024-02-01T10:00:00Z");
+    private LastKnownGoodStore store;
+
+    @BeforeEach
+    public void setup() {
+        Ticker ticker = nanos::get;
+        store = new LastKnownGoodStore(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10), ticker, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testGetStaleReturnsMarkedCopy() {
+        store.put(new StudentDTO(1L, "John", "G1", "100000", "+92090078601", 1L, "School 1", "Teacher 1", null));
+
+        Optional<StaleStudentDTO> stale = store.getStale("100000");
+
+        assertTrue(stale.isPresent());
+        assertEquals(1L, stale.get().getId());
+        assertEquals("John", stale.get().getStudentName());
+        assertEquals(now, stale.get().getStoredAt());
+        assertEquals(List.of("100000"), store.rollNumbers());
+    }
+
+    @Test
+    public void testEntriesExpireAfterTtl() {
+        store.put(new StudentDTO(1L, "John", "G1", "100000", "+92090078601", 1L, "School 1", "Teacher 1", null));
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        assertTrue(store.getStale("100000").isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.rak.student.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RollNumberCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private RollNumberCache rollNumberCache;
+    private FakeTicker ticker;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ticker = new FakeTicker();
+        rollNumberCache = new RollNumberCache(meterRegistry, 100, 100, Duration.ofSeconds(30), ticker);
+    }
+
+    @Test
+    public void testPutGetAndInvalidate() {
+        rollNumberCache.put("100000", 1L);
+
+        assertEquals(1L, rollNumberCache.get("100000"));
+
+        rollNumberCache.invalidate("100000");
+
+        assertNull(rollNumberCache.get("100000"));
+    }
+
+    @Test
+    public void testHitsAndMissesArePublished() {
+        rollNumberCache.put("100000", 1L);
+        rollNumberCache.get("100000");
+        rollNumberCache.get("100001");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", RollNumberCache.NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", RollNumberCache.NAME).tag("result", "miss").functionCounter().count());
+        assertEquals(0.0, meterRegistry.get("cache.evictions").tag("cache", RollNumberCache.NAME).functionCounter().count());
+    }
+
+    @Test
+    public void testMissesExpireAfterTtl() {
+        rollNumberCache.putMissing("999999");
+
+        assertTrue(rollNumberCache.isKnownMissing("999999"));
+
+        ticker.advance(Duration.ofSeconds(31));
+
+        assertFalse(rollNumberCache.isKnownMissing("999999"));
+    }
+
+    @Test
+    public void testPutClearsMiss() {
+        rollNumberCache.putMissing("100000");
+        rollNumberCache.put("100000", 1L);
+
+        assertFalse(rollNumberCache.isKnownMissing("100000"));
+    }
+
+    private static class FakeTicker implements Ticker {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advance(Duration duration) {
+            nanos.addAndGet(duration.toNanos());
+        }
+    }
+}
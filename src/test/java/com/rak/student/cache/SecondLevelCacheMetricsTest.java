@@ -0,0 +1,35 @@
+package com.rak.student.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SecondLevelCacheMetricsTest {
+
+    @Test
+    public void testEstimatedBytesIsZeroForEmptyCache() {
+        Cache<Long, String> cache = Caffeine.newBuilder().build();
+
+        assertEquals(0.0, SecondLevelCacheMetrics.estimatedBytes(cache));
+    }
+
+    @Test
+    public void testEstimatedBytesScalesWithEntryCount() {
+        Cache<Long, String> cache = Caffeine.newBuilder().build();
+        for (long i = 0; i < 10; i++) {
+            cache.put(i, "school " + i);
+        }
+        double tenEntries = SecondLevelCacheMetrics.estimatedBytes(cache);
+
+        for (long i = 10; i < 1_000; i++) {
+            cache.put(i, "school " + i);
+        }
+        double thousandEntries = SecondLevelCacheMetrics.estimatedBytes(cache);
+
+        assertTrue(tenEntries > 0);
+        assertTrue(thousandEntries > tenEntries * 50, tenEntries + " vs " + thousandEntries);
+    }
+}
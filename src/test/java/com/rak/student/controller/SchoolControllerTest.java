@@ -1,7 +1,12 @@
 package com.rak.student.controller;
 
 import com.rak.student.domain.School;
+import com.rak.student.dto.CollectionVersion;
+import com.rak.student.dto.CursorPage;
 import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.dto.SchoolSummaryDTO;
+import com.rak.student.dto.StudentDTO;
 import com.rak.student.service.SchoolService;
 import org.junit.Before;
 import org.junit.Test;
@@ -10,6 +15,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,6 +25,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -49,14 +56,16 @@ public class SchoolControllerTest {
 
         expectedDTOs.add(new SchoolDTO("American School", 2L, imageUrl,address));
 
-        when(schoolService.getAllSchools()).thenReturn(expectedDTOs);
+        when(schoolService.getSchoolsVersion()).thenReturn(new CollectionVersion(2, 2, 0));
+        when(schoolService.getAllSchools(null, null)).thenReturn(new CursorPage<>(expectedDTOs, null, 50));
 
-        ResponseEntity<List<SchoolDTO>> response = schoolController.getAllSchools();
+        ResponseEntity<CursorPage<SchoolDTO>> response = schoolController.getAllSchools(null, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(expectedDTOs.size(), response.getBody().size());
-        verify(schoolService, times(1)).getAllSchools();
+        assertEquals(expectedDTOs.size(), response.getBody().getItems().size());
+        assertNull(response.getBody().getNext());
+        verify(schoolService, times(1)).getAllSchools(null, null);
 
 
     }
@@ -66,12 +75,81 @@ public class SchoolControllerTest {
         Long schoolId = 1L;
         SchoolDTO school = new SchoolDTO("Skiply", schoolId, imageUrl,address);
 
+        when(schoolService.getSchoolVersion(schoolId)).thenReturn(3L);
         when(schoolService.getSchoolById(schoolId)).thenReturn(school);
 
-        ResponseEntity<SchoolDTO> response = schoolController.getSchoolById(schoolId);
+        ResponseEntity<SchoolDTO> response = schoolController.getSchoolById(schoolId, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(school, response.getBody());
+        assertEquals("\"school-1-3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testGetSchoolByIdNotModified() {
+        when(schoolService.getSchoolVersion(1L)).thenReturn(3L);
+
+        ResponseEntity<SchoolDTO> response = schoolController.getSchoolById(1L, null, "\"school-1-3\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(schoolService, never()).getSchoolById(any());
+    }
+
+    @Test
+    public void testGetSchoolSummary() {
+        CursorPage<StudentDTO> preview = new CursorPage<>(new ArrayList<>(), null, 10);
+        SchoolSummaryDTO school = new SchoolSummaryDTO(new SchoolDTO("Skiply", 1L, imageUrl, address), preview);
+        when(schoolService.getSchoolSummary(1L)).thenReturn(school);
+
+        ResponseEntity<SchoolDTO> response = schoolController.getSchoolById(1L, "summary", "\"school-1-3\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(school, response.getBody());
+        assertNull(response.getHeaders().getETag());
+        verify(schoolService, never()).getSchoolVersion(any());
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void testGetSchoolRejectsUnknownInclude() {
+        schoolController.getSchoolById(1L, "all", null);
+    }
+
+    @Test
+    public void testGetSchoolStudents() {
+        CursorPage<StudentDTO> page = new CursorPage<>(new ArrayList<>(), 42L, 20);
+        when(schoolService.getSchoolStudents(1L, 7L, 20)).thenReturn(page);
+
+        ResponseEntity<CursorPage<StudentDTO>> response = schoolController.getSchoolStudents(1L, 7L, 20);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    public void testGetSchoolStats() {
+        SchoolStatsDTO stats = new SchoolStatsDTO(1L, 3, null);
+        when(schoolService.getSchoolStats(1L)).thenReturn(stats);
+        when(schoolService.getSchoolsStats()).thenReturn(List.of(stats));
+
+        assertEquals(stats, schoolController.getSchoolStats(1L).getBody());
+        assertEquals(List.of(stats), schoolController.getSchoolsStats().getBody());
+    }
+
+    @Test
+    public void testGetAllSchoolsNotModifiedUntilTableChanges() {
+        when(schoolService.getSchoolsVersion()).thenReturn(new CollectionVersion(2, 2, 0));
+
+        String etag = schoolController.getAllSchools(null, null, null).getHeaders().getETag();
+        ResponseEntity<CursorPage<SchoolDTO>> unchanged = schoolController.getAllSchools(null, null, etag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+
+        when(schoolService.getSchoolsVersion()).thenReturn(new CollectionVersion(2, 2, 1));
+        ResponseEntity<CursorPage<SchoolDTO>> updated = schoolController.getAllSchools(null, null, etag);
+
+        assertEquals(HttpStatus.OK, updated.getStatusCode());
+        verify(schoolService, times(2)).getAllSchools(null, null);
     }
 
     @Test
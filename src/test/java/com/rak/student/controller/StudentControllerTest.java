@@ -1,15 +1,35 @@
 package com.rak.student.controller;
 
+import com.rak.student.config.AsyncConfig;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.StaleStudentDTO;
+import com.rak.student.dto.StudentCriteria;
 import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.dto.StudentSearchHit;
+import com.rak.student.dto.StudentTicket;
+import com.rak.student.dto.StudentVersion;
 import com.rak.student.service.StudentService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -19,6 +39,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -44,18 +68,20 @@ public class StudentControllerTest {
         expectedStudents.add(new StudentDTO(1L, "John", "G1", "2022", "+92090078601", 1L, "School 1", "Teacher 1", imageUrl));
         expectedStudents.add(new StudentDTO(2L, "Doe", "G2", "2022", "+92090078602", 2L, "School 2", "Teacher 2", imageUrl));
 
-        when(studentService.getAllStudents()).thenReturn(expectedStudents);
+        StudentCriteria criteria = new StudentCriteria(1L, "G1", "Jo", StudentCriteria.SORT_BY_STUDENT_NAME);
+        when(studentService.getAllStudents(criteria, null, 2)).thenReturn(new CursorPage<>(expectedStudents, 2L, 2));
 
 
-        ResponseEntity<List<StudentDTO>> responseEntity = studentController.getAllStudents();
+        ResponseEntity<CursorPage<StudentDTO>> responseEntity = studentController.getAllStudents(null, 2, criteria);
 
 
         assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
         assertNotNull(responseEntity.getBody());
-        assertEquals(expectedStudents.size(), responseEntity.getBody().size());
-        assertEquals(expectedStudents, responseEntity.getBody());
+        assertEquals(expectedStudents.size(), responseEntity.getBody().getItems().size());
+        assertEquals(expectedStudents, responseEntity.getBody().getItems());
+        assertEquals(Long.valueOf(2L), responseEntity.getBody().getNext());
 
-        verify(studentService, times(1)).getAllStudents();
+        verify(studentService, times(1)).getAllStudents(criteria, null, 2);
     }
 
     @Test
@@ -64,10 +90,11 @@ public class StudentControllerTest {
         Long studentId = 1L;
         StudentDTO expectedStudent = new StudentDTO(studentId, "John", "G1", "2022", "+92090078601", 1L, "School 1", "Teacher 1", imageUrl);
 
+        when(studentService.getStudentVersion(studentId)).thenReturn(new StudentVersion(0, 0));
         when(studentService.getStudentById(studentId)).thenReturn(expectedStudent);
 
 
-        StudentDTO result = studentController.getStudentById(studentId);
+        StudentDTO result = studentController.getStudentById(studentId, null).getBody();
 
 
         assertNotNull(result);
@@ -76,6 +103,56 @@ public class StudentControllerTest {
         verify(studentService, times(1)).getStudentById(studentId);
     }
 
+    @Test
+    public void testGetStudentByIdNotModified() {
+        when(studentService.getStudentVersion(1L)).thenReturn(new StudentVersion(4, 2));
+
+        ResponseEntity<StudentDTO> response = studentController.getStudentById(1L, "W/\"student-1-4-2\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"student-1-4-2\"", response.getHeaders().getETag());
+        verify(studentService, never()).getStudentById(any());
+    }
+
+    @Test
+    public void testGetStudentByIdAfterSchoolRenamed() {
+        StudentDTO renamed = new StudentDTO(1L, "John", "G1", "2022", "+92090078601", 1L, "Renamed School", "Teacher 1", imageUrl);
+        when(studentService.getStudentVersion(1L)).thenReturn(new StudentVersion(4, 3));
+        when(studentService.getStudentById(1L)).thenReturn(renamed);
+
+        ResponseEntity<StudentDTO> response = studentController.getStudentById(1L, "\"student-1-4-2\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"student-1-4-3\"", response.getHeaders().getETag());
+        assertEquals("Renamed School", response.getBody().getSchoolName());
+    }
+
+    @Test
+    public void testCreateStudentAsync() {
+        StudentDTO inputStudent = new StudentDTO(null, "John", "G1", null, "+92090078601", 1L, null, "Teacher 1", null);
+        when(studentService.createStudentAsync(inputStudent)).thenReturn(StudentTicket.pending(7L, "100007"));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("POST", "/students/async")));
+        try {
+            ResponseEntity<StudentTicket> response = studentController.createStudentAsync(inputStudent);
+
+            assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+            assertEquals("http://localhost/students/async/7", response.getHeaders().getLocation().toString());
+            assertEquals(StudentTicket.Status.PENDING, response.getBody().getStatus());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    public void testGetStudentTicket() {
+        when(studentService.getStudentTicket(7L)).thenReturn(StudentTicket.created(7L, "100007"));
+
+        ResponseEntity<StudentTicket> response = studentController.getStudentTicket(7L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(StudentTicket.Status.CREATED, response.getBody().getStatus());
+    }
+
     @Test
     public void testCreateStudent() {
 
@@ -142,11 +219,11 @@ public class StudentControllerTest {
 
         when(studentService.getStudentByRollNo(rollNo)).thenReturn(CompletableFuture.completedFuture(expectedStudent));
 
-        CompletableFuture<StudentDTO> responseFuture = studentController.getStudentByRollNo(rollNo);
+        CompletableFuture<ResponseEntity<StudentDTO>> responseFuture = studentController.getStudentByRollNo(rollNo);
 
         assertNotNull(responseFuture);
 
-        StudentDTO actualStudent = responseFuture.get();
+        StudentDTO actualStudent = responseFuture.get().getBody();
 
         assertNotNull(actualStudent);
         assertEquals(expectedStudent, actualStudent);
@@ -160,7 +237,7 @@ public class StudentControllerTest {
 
         when(studentService.getStudentByRollNo(rollNo)).thenReturn(CompletableFuture.failedFuture(new RuntimeException("Error")));
 
-        CompletableFuture<StudentDTO> responseFuture = studentController.getStudentByRollNo(rollNo);
+        CompletableFuture<ResponseEntity<StudentDTO>> responseFuture = studentController.getStudentByRollNo(rollNo);
 
         assertNotNull(responseFuture);
 
@@ -168,4 +245,107 @@ public class StudentControllerTest {
 
         verify(studentService, times(1)).getStudentByRollNo(rollNo);
     }
+
+    @Test
+    public void testGetStudentByRollNoMarksStaleStudent() throws InterruptedException, ExecutionException {
+        String rollNo = "12345";
+        StudentDTO student = new StudentDTO(1L, "John", "G1", rollNo, "+92090078601", 1L, "School 1", "Teacher 1", imageUrl);
+        StaleStudentDTO staleStudent = new StaleStudentDTO(student, Instant.now().minusSeconds(90));
+
+        when(studentService.getStudentByRollNo(rollNo)).thenReturn(CompletableFuture.completedFuture(staleStudent));
+
+        ResponseEntity<StudentDTO> response = studentController.getStudentByRollNo(rollNo).get();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(StudentController.STALE_WARNING, response.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertTrue(Long.parseLong(response.getHeaders().getFirst(HttpHeaders.AGE)) >= 90);
+        assertEquals(rollNo, response.getBody().getRollNumber());
+    }
+
+    @Test
+    public void testExportStudentsStreamsNdjson() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        ResponseEntity<StreamingResponseBody> response = studentController.exportStudents(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(true, request.getAttribute(AsyncConfig.LONG_STREAM_ATTRIBUTE));
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertNotNull(response.getBody());
+
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        verify(studentService, times(1)).exportStudents(any());
+    }
+
+    @Test
+    public void testImportStudentsStreamsTheUploadedFile() throws IOException {
+        MockMultipartFile file = new MockMultipartFile("file", "roster.csv", "text/csv", "studentName,grade\n".getBytes());
+
+        ResponseEntity<StreamingResponseBody> response = studentController.importStudents(file, new MockHttpServletRequest());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        response.getBody().writeTo(report);
+
+        verify(studentService, times(1)).importStudents(any(), eq(report));
+    }
+
+    @Test
+    public void testCreateStudentsPartialSuccess() {
+        StudentDTO inputStudent = new StudentDTO(null, "John", "G1", null, "+92090078601", 1L, null, "Teacher 1", null);
+        StudentDTO createdStudent = new StudentDTO(1L, "John", "G1", "2022", "+92090078601", 1L, "School 1", "Teacher 1", imageUrl);
+        List<StudentDTO> request = List.of(inputStudent, new StudentDTO());
+        List<BatchItemResult> results = List.of(BatchItemResult.created(0, createdStudent), BatchItemResult.rejected(1, "studentName is mandatory"));
+
+        when(studentService.createStudents(request)).thenReturn(results);
+
+        ResponseEntity<List<BatchItemResult>> response = studentController.createStudents(request);
+
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        assertEquals(results, response.getBody());
+        verify(studentService, times(1)).createStudents(request);
+    }
+
+    @Test
+    public void testLookupStudents() {
+        StudentDTO student = new StudentDTO(1L, "John", "G1", "2022", "+92090078601", 1L, "School 1", "Teacher 1", imageUrl);
+        StudentLookupRequest request = new StudentLookupRequest(null, List.of("2022", "9999"));
+        List<StudentLookupResult> results = List.of(StudentLookupResult.found("2022", student), StudentLookupResult.notFound("9999"));
+
+        when(studentService.lookupStudents(request)).thenReturn(results);
+
+        ResponseEntity<List<StudentLookupResult>> response = studentController.lookupStudents(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+        verify(studentService, times(1)).lookupStudents(request);
+    }
+
+    @Test
+    public void testSearchStudents() {
+        List<StudentSearchHit> hits = List.of(new StudentSearchHit(1L, "2022", "John", "Teacher 1", 1L, 1f));
+
+        when(studentService.searchStudents("john", 5)).thenReturn(hits);
+
+        ResponseEntity<List<StudentSearchHit>> response = studentController.searchStudents("john", 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(hits, response.getBody());
+        verify(studentService, times(1)).searchStudents("john", 5);
+    }
+
+    @Test
+    public void testGetStudentsByMobileNumber() {
+        List<StudentDTO> students = List.of(new StudentDTO(1L, "John", "G1", "2022", "+92090078601", 1L, "School 1", "Teacher 1", imageUrl));
+
+        when(studentService.getStudentsByMobileNumber("+92090078601")).thenReturn(students);
+
+        ResponseEntity<List<StudentDTO>> response = studentController.getStudentsByMobileNumber("+92090078601");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(students, response.getBody());
+        verify(studentService, times(1)).getStudentsByMobileNumber("+92090078601");
+    }
 }
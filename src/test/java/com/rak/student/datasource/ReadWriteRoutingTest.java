@@ -0,0 +1,233 @@
+package com.rak.student.datasource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.service.SchoolService;
+import com.rak.student.service.StudentService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.Cookie;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Runs the application against two H2 instances, one standing in for the primary and one for a replica.
+ * Replication is simulated by copying the primary into the replica with H2's {@code SCRIPT}, so anything written
+ * afterwards exists on the primary only, as on a replica that has not caught up yet.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "student.datasource.routing.enabled=true",
+        "student.datasource.routing.replicas[0].url=" + ReadWriteRoutingTest.REPLICA_URL,
+        "student.datasource.routing.replicas[0].username=sa",
+        "student.datasource.routing.replicas[0].password=password",
+        "student.datasource.routing.replicas[0].lag-query=select lag_seconds from replica_lag",
+        "student.datasource.routing.max-replica-lag=5s",
+        "student.datasource.routing.lag-check-interval=1h"
+})
+public class ReadWriteRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+
+    private long schoolId;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        MvcResult school = mockMvc.perform(post("/schools").contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("schoolName", "Primary School", "address", "Dubai")))).andReturn();
+        schoolId = read(school).get("schoolId").asLong();
+        replicate();
+        setReplicaLag(0);
+    }
+
+    @Test
+    public void testWritesGoToPrimaryAndReadsToReplica() throws Exception {
+        long studentId = createStudent().id();
+
+        assertEquals(1, count(jdbcTemplate, studentId));
+        assertEquals(0, count(replica, studentId));
+
+        double replicaReads = routed("replica-0");
+        evictCaches();
+        // the replica has not caught up with the insert yet
+        assertEquals(400, mockMvc.perform(get("/students/" + studentId)).andReturn().getResponse().getStatus());
+        assertTrue(routed("replica-0") > replicaReads);
+
+        replicate();
+        evictCaches();
+        assertEquals(200, mockMvc.perform(get("/students/" + studentId)).andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    public void testUpdatesAndDeletesReadFromPrimaryWhileReplicaLags() throws Exception {
+        long studentId = createStudent().id();
+
+        evictCaches();
+        MvcResult updated = mockMvc.perform(put("/students/" + studentId).contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("studentName", "Renamed Student", "grade", "G4", "mobileNumber", "+971500000000",
+                        "schoolId", schoolId, "guardianName", "Routed Guardian")))).andReturn();
+        assertEquals(200, updated.getResponse().getStatus());
+        assertEquals("Renamed Student", jdbcTemplate.queryForObject("select student_name from student where id = ?", String.class, studentId));
+
+        evictCaches();
+        studentService.deleteStudent(studentId);
+        assertEquals(0, count(jdbcTemplate, studentId));
+
+        long newSchoolId = schoolService.createSchool(new SchoolDTO("Unreplicated School", null, null, "Dubai")).getId();
+        evictCaches();
+        schoolService.updateSchool(newSchoolId, new SchoolDTO("Renamed School", null, null, "Sharjah"));
+        evictCaches();
+        schoolService.deleteSchool(newSchoolId);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from school where id = ?", Integer.class, newSchoolId));
+    }
+
+    @Test
+    public void testStudentOfASchoolNotYetOnTheReplicaIsCreated() throws Exception {
+        MvcResult school = mockMvc.perform(post("/schools").contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("schoolName", "Fresh School", "address", "Dubai")))).andReturn();
+        schoolId = read(school).get("schoolId").asLong();
+        evictCaches();
+
+        createStudent();
+    }
+
+    @Test
+    public void testClientReadsItsOwnWritesFromPrimary() throws Exception {
+        CreatedStudent student = createStudent();
+        assertNotNull(student.cookie());
+        assertTrue(Long.parseLong(student.cookie().getValue()) > System.currentTimeMillis());
+
+        evictCaches();
+        MvcResult result = mockMvc.perform(get("/students/" + student.id()).cookie(student.cookie())).andReturn();
+
+        assertEquals(200, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testExpiredWindowReadsReplica() throws Exception {
+        long studentId = createStudent().id();
+        Cookie expired = new Cookie(ReadYourWritesFilter.COOKIE, String.valueOf(System.currentTimeMillis() - 1));
+
+        evictCaches();
+        MvcResult result = mockMvc.perform(get("/students/" + studentId).cookie(expired)).andReturn();
+
+        assertEquals(400, result.getResponse().getStatus());
+    }
+
+    @Test
+    public void testLaggingReplicaIsTakenOutOfRotation() throws Exception {
+        long studentId = createStudent().id();
+        setReplicaLag(60);
+
+        evictCaches();
+        double replicaReads = routed("replica-0");
+        MvcResult result = mockMvc.perform(get("/students/" + studentId)).andReturn();
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(replicaReads, routed("replica-0"));
+        assertEquals(60.0, meterRegistry.get("datasource.replica.lag").tag("replica", "replica-0").gauge().value());
+    }
+
+    @Test
+    public void testReadsDoNotOpenReadYourWritesWindow() throws Exception {
+        MvcResult result = mockMvc.perform(get("/schools/" + schoolId)).andReturn();
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(null, result.getResponse().getCookie(ReadYourWritesFilter.COOKIE));
+    }
+
+    private CreatedStudent createStudent() throws Exception {
+        MvcResult result = mockMvc.perform(post("/students").contentType(MediaType.APPLICATION_JSON)
+                .content(json(Map.of("studentName", "Routed Student", "grade", "G3", "mobileNumber", "+971500000000",
+                        "schoolId", schoolId, "guardianName", "Routed Guardian")))).andReturn();
+        assertEquals(201, result.getResponse().getStatus());
+        return new CreatedStudent(read(result).get("studentId").asLong(), result.getResponse().getCookie(ReadYourWritesFilter.COOKIE));
+    }
+
+    /**
+     * Brings the replica up to date with the primary.
+     */
+    private void replicate() {
+        replica.execute("drop all objects");
+        jdbcTemplate.queryForList("script", String.class).stream()
+                .filter(statement -> !statement.startsWith("--"))
+                .forEach(replica::execute);
+        replica.execute("create table replica_lag (lag_seconds int)");
+        replica.update("insert into replica_lag values (0)");
+    }
+
+    private void setReplicaLag(int seconds) {
+        replica.update("update replica_lag set lag_seconds = ?", seconds);
+        routingDataSource.getReplicaLagMonitor().check();
+    }
+
+    private void evictCaches() {
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    private double routed(String target) {
+        return meterRegistry.get("datasource.routing").tag("target", target).counter().count();
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate, long studentId) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from student where id = ?", Integer.class, studentId);
+        return count == null ? 0 : count;
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    private JsonNode read(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private record CreatedStudent(long id, Cookie cookie) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.rak.student.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvReaderTest {
+
+    @Test
+    public void testReadsPlainAndQuotedFields() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b,c\r\n\"x, y\",\"say \"\"hi\"\"\",\n"));
+
+        assertEquals(List.of("a", "b", "c"), reader.next());
+        assertEquals(1, reader.recordLine());
+        assertEquals(List.of("x, y", "say \"hi\"", ""), reader.next());
+        assertEquals(2, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testQuotedLineBreaksAndBlankLinesKeepLineNumbers() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,\"one\ntwo\"\n\n\r\nb,c"));
+
+        assertEquals(List.of("a", "one\ntwo"), reader.next());
+        assertEquals(1, reader.recordLine());
+        assertEquals(List.of("b", "c"), reader.next());
+        assertEquals(5, reader.recordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testUnclosedQuoteIsRejected() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\nc,\"d\ne\n"));
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertThrows(IllegalArgumentException.class, reader::next);
+        assertEquals(2, reader.recordLine());
+    }
+}
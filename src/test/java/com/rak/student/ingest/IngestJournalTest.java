@@ -0,0 +1,101 @@
+package com.rak.student.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IngestJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testUnwrittenLinesAreReplayed() throws Exception {
+        Path path = directory.resolve("journal");
+        try (IngestJournal journal = IngestJournal.open(path, 10)) {
+            IngestJournal.Segment segment = journal.append("first", "-");
+            journal.append("second", "-");
+            journal.written(segment, 1);
+        }
+
+        try (IngestJournal journal = IngestJournal.open(path, 10)) {
+            assertEquals(List.of("first", "second"), texts(journal.replay()));
+            journal.append("third", "-");
+        }
+        try (IngestJournal journal = IngestJournal.open(path, 10)) {
+            assertEquals(List.of("first", "second", "third"), texts(journal.replay()));
+        }
+    }
+
+    @Test
+    public void testSegmentsAreDeletedOnceEverythingInThemIsWritten() throws Exception {
+        Path path = directory.resolve("journal");
+        try (IngestJournal journal = IngestJournal.open(path, 2)) {
+            IngestJournal.Segment first = journal.append("first", "-");
+            journal.append("second", "-");
+            IngestJournal.Segment third = journal.append("third", "-");
+            assertEquals(2, journal.segments());
+
+            journal.written(first, 2);
+            assertEquals(1, journal.segments());
+            assertFalse(Files.exists(directory.resolve("journal.0")));
+
+            journal.written(third, 1);
+            assertEquals(0, Files.size(directory.resolve("journal.1")));
+            journal.append("fourth", "-");
+        }
+
+        try (IngestJournal journal = IngestJournal.open(path, 2)) {
+            List<IngestJournal.Line> lines = journal.replay();
+            assertEquals(List.of("fourth"), texts(lines));
+            journal.written(lines.get(0).segment(), 1);
+            assertEquals(1, journal.segments());
+            assertFalse(Files.exists(directory.resolve("journal.1")));
+        }
+    }
+
+    @Test
+    public void testCancelledLineIsFollowedByItsMarker() throws Exception {
+        Path path = directory.resolve("journal");
+        try (IngestJournal journal = IngestJournal.open(path, 10)) {
+            journal.append("first", "-");
+            IngestJournal.Segment segment = journal.append("second", "-");
+            journal.cancel(segment, "second cancelled");
+        }
+
+        try (IngestJournal journal = IngestJournal.open(path, 10)) {
+            assertEquals(List.of("first", "second", "second cancelled"), texts(journal.replay()));
+        }
+    }
+
+    @Test
+    public void testCancellingTheOnlyUnwrittenLineEmptiesTheSegment() throws Exception {
+        Path path = directory.resolve("journal");
+        try (IngestJournal journal = IngestJournal.open(path, 10)) {
+            IngestJournal.Segment segment = journal.append("first", "-");
+            journal.cancel(segment, "first cancelled");
+            assertEquals(0, Files.size(directory.resolve("journal.0")));
+        }
+        assertTrue(IngestJournal.exists(path));
+    }
+
+    @Test
+    public void testJournalCannotBeShared() throws Exception {
+        Path path = directory.resolve("journal");
+        try (IngestJournal ignored = IngestJournal.open(path, 10)) {
+            assertThrows(IllegalStateException.class, () -> IngestJournal.open(path, 10));
+        }
+    }
+
+    private static List<String> texts(List<IngestJournal.Line> lines) {
+        return lines.stream().map(IngestJournal.Line::text).toList();
+    }
+}
@@ -0,0 +1,270 @@
+package com.rak.student.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentCriteria;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentImportSummary;
+import com.rak.student.mapper.StudentMapper;
+import com.rak.student.repository.SchoolRepository;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.service.RollNumberAllocator;
+import com.rak.student.service.SchoolService;
+import com.rak.student.service.StudentService;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.stats.StudentCounters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import",
+        "student.ingest.journal=target/ingest/${random.uuid}.journal",
+        "student.import.chunk-size=2",
+        "student.import.parallelism=2"
+})
+public class StudentImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentCounters studentCounters;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private SchoolRepository schoolRepository;
+
+    @Autowired
+    private StudentMapper studentMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private RollNumberAllocator rollNumberAllocator;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private StudentPublisher studentPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void evictSecondLevelCache() {
+        // the second-level cache is shared by every application context of the test run
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    @Test
+    public void testValidRowsAreCreatedAndRejectedRowsReported() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Import School", null, null, "Dubai")).getId();
+        double createdBefore = meterRegistry.get("student.import.rows").tag("outcome", "created").counter().count();
+        String csv = "SchoolId,studentName,Grade,mobileNumber,guardianName,notes\r\n" +
+                schoolId + ",Amal Noor,G3,+971501112222,Huda Noor,\r\n" +
+                schoolId + ",,G3,+971501112222,Huda Noor,\r\n" +
+                schoolId + ",Omar Noor,G11,+971501112222,Huda Noor,\r\n" +
+                "9999,Sara Ali,G1,+971501113333,Ali,\r\n" +
+                "abc,Sara Ali,G1,+971501113333,Ali,\r\n" +
+                schoolId + ",\"Noor, Sara\",G1,+971501113333,\"Ali\nbin Omar\",\"first \"\"day\"\"\"\r\n" +
+                schoolId + ",Zaid Ali,G2,+971501113334,Ali,\r\n";
+
+        List<JsonNode> report = report(mockMvc.perform(post("/students/import").contentType("text/csv").content(csv)));
+
+        assertEquals(5, report.size());
+        assertEquals(3, report.get(0).get("index").asInt());
+        assertEquals("studentName is mandatory", report.get(0).get("error").asText());
+        assertEquals(4, report.get(1).get("index").asInt());
+        assertEquals("invalid grade value must be like G1 to G10", report.get(1).get("error").asText());
+        assertEquals(5, report.get(2).get("index").asInt());
+        assertEquals("School not found with id: 9999", report.get(2).get("error").asText());
+        assertEquals(6, report.get(3).get("index").asInt());
+        assertEquals("schoolId must be a number", report.get(3).get("error").asText());
+        JsonNode summary = report.get(4);
+        assertEquals(7, summary.get("rows").asLong());
+        assertEquals(3, summary.get("created").asLong());
+        assertEquals(4, summary.get("rejected").asLong());
+
+        assertEquals(List.of("Amal Noor", "Noor, Sara", "Zaid Ali"), jdbcTemplate.queryForList(
+                "select student_name from student where school_id = ? order by id", String.class, schoolId));
+        assertEquals("Ali\nbin Omar", jdbcTemplate.queryForObject(
+                "select guardian_name from student where student_name = 'Noor, Sara'", String.class));
+        assertEquals(3, studentCounters.statsOf(schoolId).getStudents());
+        assertEquals(3, meterRegistry.get("student.import.rows").tag("outcome", "created").counter().count() - createdBefore);
+        assertTrue(meterRegistry.get("student.import.throughput").gauge().value() > 0);
+    }
+
+    @Test
+    public void testUploadedFileIsImported() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Upload School", null, null, "Dubai")).getId();
+        String csv = "studentName,grade,mobileNumber,guardianName,schoolId\n" +
+                "Amal Noor,G3,+971501112222,Huda Noor," + schoolId + "\n";
+        MockMultipartFile file = new MockMultipartFile("file", "roster.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+        List<JsonNode> report = report(mockMvc.perform(multipart("/students/import").file(file)));
+
+        assertEquals(1, report.size());
+        assertEquals(1, report.get(0).get("created").asLong());
+        assertEquals(1, studentCounters.statsOf(schoolId).getStudents());
+    }
+
+    @Test
+    public void testLowercaseGradesAreStoredInCanonicalCase() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Grade School", null, null, "Dubai")).getId();
+        String student = objectMapper.writeValueAsString(new StudentDTO(null, "Amal Noor", "g3", null, "+971501112222", schoolId, null, "Huda Noor", null));
+        mockMvc.perform(post("/students").contentType(MediaType.APPLICATION_JSON).content(student)).andExpect(status().isCreated());
+        String csv = "studentName,grade,mobileNumber,guardianName,schoolId\n" +
+                "Zaid Ali,g3,+971501113334,Ali," + schoolId + "\n";
+        assertEquals(1, report(mockMvc.perform(post("/students/import").contentType("text/csv").content(csv))).get(0).get("created").asLong());
+
+        assertEquals(List.of("G3", "G3"), jdbcTemplate.queryForList(
+                "select grade from student where school_id = ? order by id", String.class, schoolId));
+        for (String grade : List.of("g3", "G3")) {
+            assertEquals(2, studentService.getAllStudents(new StudentCriteria(schoolId, grade, null, StudentCriteria.SORT_BY_ID), null, null).getItems().size());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedSchoolLookupsAndTransactionsOnlyRejectTheirChunk() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Flaky School", null, null, "Dubai")).getId();
+        SchoolRepository flakySchools = mock(SchoolRepository.class);
+        when(flakySchools.findAllById(any(Iterable.class)))
+                .thenThrow(new DataAccessResourceFailureException("school shard down"))
+                .thenAnswer(invocation -> schoolRepository.findAllById(invocation.getArgument(0)));
+        AtomicInteger transactions = new AtomicInteger();
+        PlatformTransactionManager exhaustedOnce = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                if (transactions.getAndIncrement() == 0) {
+                    throw new CannotCreateTransactionException("connection pool exhausted");
+                }
+                return transactionManager.getTransaction(definition);
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+                transactionManager.commit(status);
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+                transactionManager.rollback(status);
+            }
+        };
+        StudentImport studentImport = new StudentImport(studentRepository, flakySchools, studentMapper, validator, rollNumberAllocator,
+                shardRouter, exhaustedOnce, studentPublisher, objectMapper, new SimpleMeterRegistry(), 2, 2);
+        StringBuilder csv = new StringBuilder("studentName,grade,mobileNumber,guardianName,schoolId\n");
+        for (int i = 0; i < 5; i++) {
+            csv.append("Student ").append(i).append(",G3,+97150111222").append(i).append(",Guardian,").append(schoolId).append("\n");
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            StudentImportSummary summary = studentImport.run(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), output);
+
+            assertEquals(1, summary.getCreated());
+            assertEquals(4, summary.getRejected());
+            String[] report = output.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(5, report.length);
+            for (int line = 2; line <= 5; line++) {
+                JsonNode rejected = objectMapper.readTree(report[line - 2]);
+                assertEquals(line, rejected.get("index").asInt());
+                assertEquals(line < 4 ? "not imported: school shard down" : "not imported: connection pool exhausted", rejected.get("error").asText());
+            }
+            assertEquals(1, objectMapper.readTree(report[4]).get("created").asLong());
+            assertEquals(List.of("Student 4"), jdbcTemplate.queryForList("select student_name from student where school_id = ?", String.class, schoolId));
+        } finally {
+            studentImport.stop();
+        }
+    }
+
+    @Test
+    public void testMissingColumnIsABadRequest() throws Exception {
+        MvcResult result = mockMvc.perform(post("/students/import").contentType("text/csv").content("studentName,grade\nAmal,G3\n"))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testImportTimesOutAfterTheStreamTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(post("/students/import").contentType("text/csv").content("studentName,grade\n"))
+                .andExpect(request().asyncStarted()).andReturn();
+
+        assertEquals(Duration.ofMinutes(30).toMillis(), result.getRequest().getAsyncContext().getTimeout());
+        mockMvc.perform(asyncDispatch(result));
+    }
+
+    private List<JsonNode> report(ResultActions actions) throws Exception {
+        MvcResult result = actions.andExpect(request().asyncStarted()).andReturn();
+        MvcResult dispatched = mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+        assertEquals(MediaType.APPLICATION_NDJSON_VALUE, dispatched.getResponse().getContentType());
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : dispatched.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+}
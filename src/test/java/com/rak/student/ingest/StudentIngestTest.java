@@ -0,0 +1,206 @@
+package com.rak.student.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentTicket;
+import com.rak.student.service.SchoolService;
+import com.rak.student.service.StudentService;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.stats.StudentCounters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ingest",
+        "student.ingest.journal=target/ingest/${random.uuid}.journal",
+        "student.ingest.batch-size=3"
+})
+public class StudentIngestTest {
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    @Autowired
+    private StudentCounters studentCounters;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private StudentPublisher studentPublisher;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAcceptedStudentsAreWrittenInTheBackground() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Async School", null, null, "Dubai")).getId();
+
+        List<StudentTicket> tickets = List.of(
+                studentService.createStudentAsync(new StudentDTO(null, "Amal Noor", "G3", null, "+971 50 111 2222", schoolId, null, "Huda Noor", null)),
+                studentService.createStudentAsync(new StudentDTO(null, "Omar Noor", "G5", null, "+971 50 111 2222", schoolId, null, "Huda Noor", null)));
+
+        for (StudentTicket ticket : tickets) {
+            assertEquals(StudentTicket.Status.CREATED, await(ticket.getStudentId()).getStatus());
+            StudentDTO student = studentService.getStudentById(ticket.getStudentId());
+            assertEquals(ticket.getRollNumber(), student.getRollNumber());
+            assertEquals(schoolId, student.getSchoolId());
+            assertEquals(student.getId(), studentService.getStudentByRollNo(ticket.getRollNumber()).get().getId());
+        }
+        assertEquals(2, studentService.getStudentsByMobileNumber("00971501112222").size());
+        assertEquals(2, studentCounters.statsOf(schoolId).getStudents());
+    }
+
+    @Test
+    public void testUnknownSchoolIsRejectedUpFront() {
+        assertThrows(ResponseStatusException.class, () -> studentService.createStudentAsync(
+                new StudentDTO(null, "Amal Noor", "G3", null, "+971501112222", 9_999L, null, "Huda Noor", null)));
+    }
+
+    @Test
+    public void testFullQueueTurnsStudentsAway() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Busy School", null, null, "Dubai")).getId();
+        StudentIngest ingest = ingest(directory.resolve("journal"), 1);
+        try {
+            StudentDTO student = new StudentDTO(null, "Amal Noor", "G3", null, "+971501112222", schoolId, null, "Huda Noor", null);
+            ingest.submit(0, student, "R-1");
+
+            ResponseStatusException full = assertThrows(ResponseStatusException.class, () -> ingest.submit(0, student, "R-2"));
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS, full.getStatusCode());
+            assertEquals(1, ingest.depth());
+        } finally {
+            ingest.stop();
+        }
+    }
+
+    @Test
+    public void testJournaledStudentsSurviveARestart() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Restart School", null, null, "Dubai")).getId();
+        Path journal = directory.resolve("journal");
+        StudentIngest crashed = ingest(journal, 10);
+        StudentTicket first = crashed.submit(0, new StudentDTO(null, "Sara Ali", "G1", null, "+971501113333", schoolId, null, "Ali", null), "R-10");
+        StudentTicket second = crashed.submit(0, new StudentDTO(null, "Zaid Ali", "G2", null, "+971501113334", schoolId, null, "Ali", null), "R-11");
+        StudentTicket third = crashed.submit(0, new StudentDTO(null, "Lina Ali", "G2", null, "+971501113335", schoolId, null, "Ali", null), "R-12");
+        crashed.stop();
+        Path segment = directory.resolve("journal.0");
+        // the third student's request failed after it was journaled
+        Files.writeString(segment, "{\"cancelled\":" + third.getStudentId() + "}\n", StandardOpenOption.APPEND);
+        // the first student was written just before the crash
+        jdbcTemplate.update("insert into student (id, student_name, grade, roll_number, mobile_number, guardian_name, school_id, version) " +
+                "values (?, 'Sara Ali', 'G1', 'R-10', '+971501113333', 'Ali', ?, 0)", first.getStudentId(), schoolId);
+        Files.writeString(segment, "{\"id\":", StandardOpenOption.APPEND);
+
+        StudentIngest restarted = ingest(journal, 10);
+        try {
+            restarted.recover();
+            assertEquals(StudentTicket.Status.PENDING, restarted.ticket(second.getStudentId()).getStatus());
+            restarted.start();
+            for (int i = 0; i < 100 && restarted.depth() > 0; i++) {
+                Thread.sleep(100);
+            }
+
+            assertEquals(0, restarted.depth());
+            assertNull(restarted.ticket(first.getStudentId()));
+            assertNull(restarted.ticket(second.getStudentId()));
+            assertNull(restarted.ticket(third.getStudentId()));
+            assertEquals("R-11", studentService.getStudentById(second.getStudentId()).getRollNumber());
+            assertEquals(1, jdbcTemplate.queryForObject("select count(*) from student where roll_number = 'R-10'", Integer.class));
+            assertEquals(0, jdbcTemplate.queryForObject("select count(*) from student where roll_number = 'R-12'", Integer.class));
+            assertFalse(Files.exists(segment));
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    public void testStudentsThatCannotBeWrittenFailAndFreeTheirPlace() throws Exception {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Exhausted School", null, null, "Dubai")).getId();
+        Path journal = directory.resolve("journal");
+        PlatformTransactionManager exhausted = new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                throw new CannotCreateTransactionException("connection pool exhausted");
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        };
+        StudentIngest ingest = new StudentIngest(jdbcTemplate, shardRouter, entityManagerFactory, exhausted, objectMapper, studentPublisher,
+                new SimpleMeterRegistry(), 1, 3, journal, Duration.ofHours(1));
+        try {
+            StudentDTO student = new StudentDTO(null, "Amal Noor", "G3", null, "+971501112222", schoolId, null, "Huda Noor", null);
+            StudentTicket ticket = ingest.submit(0, student, "R-20");
+            ingest.start();
+            for (int i = 0; i < 100 && ingest.depth() > 0; i++) {
+                Thread.sleep(100);
+            }
+
+            assertEquals(0, ingest.depth());
+            assertEquals(StudentTicket.Status.FAILED, ingest.ticket(ticket.getStudentId()).getStatus());
+            assertEquals("connection pool exhausted", ingest.ticket(ticket.getStudentId()).getError());
+            assertEquals(0, Files.size(directory.resolve("journal.0")));
+            assertEquals(StudentTicket.Status.PENDING, ingest.submit(0, student, "R-21").getStatus());
+        } finally {
+            ingest.stop();
+        }
+    }
+
+    private StudentTicket await(Long studentId) throws InterruptedException {
+        StudentTicket ticket = studentService.getStudentTicket(studentId);
+        for (int i = 0; i < 100 && ticket.getStatus() == StudentTicket.Status.PENDING; i++) {
+            Thread.sleep(100);
+            ticket = studentService.getStudentTicket(studentId);
+        }
+        assertTrue(ticket.getStatus() != StudentTicket.Status.PENDING, "still pending");
+        return ticket;
+    }
+
+    private StudentIngest ingest(Path journal, int capacity) {
+        return new StudentIngest(jdbcTemplate, shardRouter, entityManagerFactory, transactionManager, objectMapper, studentPublisher,
+                new SimpleMeterRegistry(), capacity, 3, journal, Duration.ofHours(1));
+    }
+}
@@ -0,0 +1,85 @@
+package com.rak.student.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SqlStatementCounterTest {
+
+    private MeterRegistry meterRegistry;
+    private SqlStatementCounter sqlStatementCounter;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        sqlStatementCounter = new SqlStatementCounter(meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sqlStatementCounter.stop();
+    }
+
+    @Test
+    public void testCountsStatementsWithinScope() {
+        execute("select * from student");
+
+        SqlStatementCounter.Scope scope = sqlStatementCounter.start();
+        execute("select * from student");
+        execute("update student set name = 'a'");
+        sqlStatementCounter.stop();
+        execute("select * from student");
+
+        assertEquals(2, scope.getStatements());
+        assertEquals(10, scope.getMillis());
+        assertEquals(3.0, meterRegistry.get("db.statements").tag("type", "select").counter().count());
+        assertEquals(1.0, meterRegistry.get("db.statements").tag("type", "update").counter().count());
+        assertEquals(4, meterRegistry.get("db.statement.time").timer().count());
+    }
+
+    @Test
+    public void testNestedScopeCountsTowardsOuterScope() {
+        SqlStatementCounter.Scope outer = sqlStatementCounter.start();
+        execute("select * from student");
+        SqlStatementCounter.Scope inner = sqlStatementCounter.start();
+        execute("select * from school");
+        sqlStatementCounter.stop();
+        execute("select * from student");
+        sqlStatementCounter.stop();
+
+        assertEquals(1, inner.getStatements());
+        assertEquals(3, outer.getStatements());
+    }
+
+    @Test
+    public void testDecoratedTasksCountTowardsSubmittingScope() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            SqlStatementCounter.Scope scope = sqlStatementCounter.start();
+            CompletableFuture.runAsync(sqlStatementCounter.decorate(() -> execute("select 1")), executor).get();
+            CompletableFuture.runAsync(() -> execute("select 1"), executor).get();
+
+            assertEquals(1, scope.getStatements());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void execute(String query) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(5);
+        QueryInfo queryInfo = new QueryInfo(query);
+        sqlStatementCounter.afterQuery(executionInfo, List.of(queryInfo));
+    }
+}
@@ -0,0 +1,48 @@
+package com.rak.student.repo;
+
+import com.rak.student.domain.School;
+import com.rak.student.dto.CollectionVersion;
+import com.rak.student.repository.SchoolRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@DataJpaTest
+public class SchoolRepoTest {
+    @Autowired
+    private SchoolRepository schoolRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void testVersionIncrementsOnUpdate() {
+        School school = schoolRepository.save(School.builder().address("Dubai").name("skiply").build());
+        entityManager.flush();
+        assertEquals(0L, school.getVersion());
+
+        school.setName("skiply school");
+        entityManager.flush();
+
+        assertEquals(1L, school.getVersion());
+    }
+
+    @Test
+    public void testCollectionVersionChangesOnInsertAndUpdate() {
+        School school = schoolRepository.save(School.builder().address("Dubai").name("skiply").build());
+        entityManager.flush();
+        CollectionVersion afterInsert = schoolRepository.findCollectionVersion();
+        assertEquals(1L, afterInsert.count());
+        assertEquals(school.getId(), afterInsert.maxId());
+
+        school.setAddress("Abu Dhabi");
+        entityManager.flush();
+        CollectionVersion afterUpdate = schoolRepository.findCollectionVersion();
+
+        assertNotEquals(afterInsert, afterUpdate);
+        assertEquals(1L, afterUpdate.versionSum());
+    }
+}
@@ -0,0 +1,141 @@
+package com.rak.student.repo;
+
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.StudentCriteria;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.service.StudentService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks with H2's {@code EXPLAIN} that every filter combination and sort order of the student listing reads the
+ * student table through the index meant for it, using the SQL Hibernate actually generated.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plans",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.rak.student.repo.StudentQueryPlanTest$LastStatement"
+})
+public class StudentQueryPlanTest {
+
+    private static final Pattern STUDENT_ACCESS = Pattern.compile("\"PUBLIC\"\\.\"STUDENT\" \"S1_0\"\\s+/\\* PUBLIC\\.(\\S+)");
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void seed() {
+        synchronized (StudentQueryPlanTest.class) {
+            Integer schools = jdbcTemplate.queryForObject("select count(*) from school", Integer.class);
+            if (schools != null && schools > 0) {
+                return;
+            }
+            jdbcTemplate.update("insert into school (id, name, address, version) select x, 'School ' || x, 'Dubai', 0 from system_range(1, 20)");
+            jdbcTemplate.update("insert into student (id, student_name, grade, roll_number, mobile_number, guardian_name, school_id, version) " +
+                    "select x, 'Student ' || mod(x * 7919, 5000), 'G' || (mod(x / 20, 10) + 1), x, '+97150' || x, 'Guardian', mod(x, 20) + 1, 0 " +
+                    "from system_range(1, 5000)");
+            jdbcTemplate.execute("analyze");
+        }
+    }
+
+    /**
+     * Student 2679, the cursor of the later pages, is named "Student 1". The expected index is a pattern. A school filter alone may also use the index H2 creates for the school foreign
+     * key. A name prefix sorted by id may instead walk the primary key in id order from the cursor, and a school and grade sorted
+     * by id the {@code (schoolId, id)} index, stopping at the page size.
+     */
+    @ParameterizedTest
+    @CsvSource({
+            ",,,id,,PRIMARY_KEY",
+            ",,,studentName,,IX_STUDENT_NAME",
+            ",,,studentName,2679,IX_STUDENT_NAME",
+            "12,,,id,,IX_STUDENT_SCHOOL_ID",
+            "12,,,studentName,,IX_STUDENT_SCHOOL|FK",
+            ",G7,,id,,IX_STUDENT_GRADE_NAME",
+            ",G7,,studentName,2679,IX_STUDENT_GRADE_NAME",
+            ",,Student 1,id,,IX_STUDENT_NAME|PRIMARY_KEY",
+            ",,Student 1,studentName,2679,IX_STUDENT_NAME",
+            "12,G7,,id,,IX_STUDENT_SCHOOL_GRADE_NAME|IX_STUDENT_SCHOOL_ID",
+            "12,G7,,studentName,,IX_STUDENT_SCHOOL_GRADE_NAME",
+            "12,G7,,studentName,2679,IX_STUDENT_SCHOOL_GRADE_NAME",
+            "12,,Student 1,id,,IX_STUDENT_SCHOOL_NAME",
+            "12,,Student 1,studentName,2679,IX_STUDENT_SCHOOL_NAME",
+            ",G7,Student 1,id,,IX_STUDENT_GRADE_NAME",
+            ",G7,Student 1,studentName,2679,IX_STUDENT_GRADE_NAME",
+            "12,G7,Student 1,id,,IX_STUDENT_SCHOOL_GRADE_NAME",
+            "12,G7,Student 1,studentName,2679,IX_STUDENT_SCHOOL_GRADE_NAME"
+    })
+    public void testListingIsIndexServed(Long schoolId, String grade, String name, String sort, Long after, String index) {
+        CursorPage<StudentDTO> page = studentService.getAllStudents(new StudentCriteria(schoolId, grade, name, sort), after, 20);
+
+        String plan = jdbcTemplate.queryForObject("explain " + LastStatement.studentQuery(), String.class);
+        Matcher access = STUDENT_ACCESS.matcher(plan);
+        assertTrue(access.find(), plan);
+        assertTrue(access.group(1).matches("(" + index + ").*"), plan);
+        assertFalse(page.getItems().isEmpty());
+    }
+
+    @Test
+    public void testPagesByNameCoverEveryMatchOnce() {
+        StudentCriteria criteria = new StudentCriteria(12L, "g7", "Student", StudentCriteria.SORT_BY_STUDENT_NAME);
+        List<Long> expected = jdbcTemplate.queryForList("select id from student where school_id = 12 and grade = 'G7' " +
+                "and student_name like 'Student%' order by student_name, id", Long.class);
+
+        List<Long> listed = new ArrayList<>();
+        Long after = null;
+        do {
+            CursorPage<StudentDTO> page = studentService.getAllStudents(criteria, after, 3);
+            page.getItems().forEach(student -> listed.add(student.getId()));
+            after = page.getNext();
+        } while (after != null);
+
+        assertEquals(expected, listed);
+    }
+
+    @Test
+    public void testRejectsUnknownSort() {
+        assertThrows(ResponseStatusException.class,
+                () -> studentService.getAllStudents(new StudentCriteria(null, null, null, "grade"), null, 20));
+    }
+
+    /**
+     * Remembers the statements Hibernate prepares, to explain the last student query.
+     */
+    public static class LastStatement implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public synchronized String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static synchronized String studentQuery() {
+            for (int i = STATEMENTS.size() - 1; i >= 0; i--) {
+                if (STATEMENTS.get(i).contains(" from student s1_0")) {
+                    return STATEMENTS.get(i);
+                }
+            }
+            throw new IllegalStateException("no student query");
+        }
+    }
+}
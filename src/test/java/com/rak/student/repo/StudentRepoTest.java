@@ -2,14 +2,19 @@ package com.rak.student.repo;
 
 import com.rak.student.domain.School;
 import com.rak.student.domain.Student;
+import com.rak.student.dto.StudentDTO;
 import com.rak.student.repository.SchoolRepository;
 import com.rak.student.repository.StudentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -21,9 +26,11 @@ public class StudentRepoTest {
     @Autowired
     private SchoolRepository schoolRepository;
 
+    private School school;
+
     @BeforeEach
     public void setup() {
-        School school = schoolRepository.save(School.builder().address("Dubai").name("skiply").build());
+        school = schoolRepository.save(School.builder().address("Dubai").name("skiply").build());
 
         studentRepository.save(new Student(1L, "John", "G1", "12345", "+92090078601", "Teacher 1", school));
     }
@@ -31,8 +38,8 @@ public class StudentRepoTest {
     @Test
     public void testFindFirstByRollNumberSuccess() {
         String rollNo = "12345";
-        School school = (School.builder().id(1L).address("Dubai").name("skiply").build());
-        Student expectedStudent = new Student(1L, "John", "G1", "12345", "+92090078601", "Teacher 1", school);
+        School expectedSchool = (School.builder().id(school.getId()).address("Dubai").name("skiply").build());
+        Student expectedStudent = new Student(1L, "John", "G1", "12345", "+92090078601", "Teacher 1", expectedSchool);
 
         Optional<Student> actualStudentOptional = studentRepository.findFirstByRollNumber(rollNo);
 
@@ -53,4 +60,57 @@ public class StudentRepoTest {
 
         assertTrue(actualStudentOptional.isEmpty());
     }
+
+    @Test
+    public void testFindDtosByIdGreaterThanWalksPagesInIdOrder() {
+        studentRepository.save(new Student(null, "Jane", "G2", "12346", "+92090078602", "Teacher 2", school));
+        studentRepository.save(new Student(null, "Jim", "G3", "12347", "+92090078603", "Teacher 3", school));
+
+        List<StudentDTO> firstPage = studentRepository.findDtosByIdGreaterThan(0L, Limit.of(2));
+        assertEquals(2, firstPage.size());
+        assertTrue(firstPage.get(0).getId() < firstPage.get(1).getId());
+        assertEquals(school.getId(), firstPage.get(0).getSchoolId());
+        assertEquals("skiply", firstPage.get(0).getSchoolName());
+
+        List<StudentDTO> secondPage = studentRepository.findDtosByIdGreaterThan(firstPage.get(1).getId(), Limit.of(2));
+        assertEquals(1, secondPage.size());
+        assertEquals("Jim", secondPage.get(0).getStudentName());
+        assertEquals("12347", secondPage.get(0).getRollNumber());
+    }
+
+    @Test
+    public void testFindDtosByRollNumberInReturnsOnlyMatches() {
+        Student jane = studentRepository.save(new Student(null, "Jane", "G2", "12346", "+92090078602", "Teacher 2", school));
+
+        List<StudentDTO> students = studentRepository.findDtosByRollNumberIn(List.of("12346", "99999"));
+        assertEquals(1, students.size());
+        assertEquals("Jane", students.get(0).getStudentName());
+        assertEquals("skiply", students.get(0).getSchoolName());
+
+        List<StudentDTO> byId = studentRepository.findDtosByIdIn(List.of(jane.getId(), -1L));
+        assertEquals(1, byId.size());
+        assertEquals("12346", byId.get(0).getRollNumber());
+    }
+
+    @Test
+    public void testStreamAllByJoinsSchool() {
+        studentRepository.save(new Student(null, "Jane", "G2", "12346", "+92090078602", "Teacher 2", school));
+
+        List<Student> streamed;
+        try (Stream<Student> students = studentRepository.streamAllBy()) {
+            streamed = students.collect(Collectors.toList());
+        }
+
+        assertEquals(2, streamed.size());
+        assertTrue(streamed.get(0).getId() < streamed.get(1).getId());
+        assertEquals("skiply", streamed.get(1).getSchool().getName());
+    }
+
+    @Test
+    public void testNextRollNumberBlockNeverRepeats() {
+        long first = studentRepository.nextRollNumberBlock();
+        long second = studentRepository.nextRollNumberBlock();
+
+        assertEquals(100, second - first);
+    }
 }
@@ -0,0 +1,106 @@
+package com.rak.student.search;
+
+import com.rak.student.dto.StudentSearchHit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NameIndexTest {
+
+    private NameIndex index;
+
+    @BeforeEach
+    public void setup() {
+        index = new NameIndex();
+        index.put(new IndexedStudent(1L, 0, "John Smith", "Ali Khan", "100000", 1L));
+        index.put(new IndexedStudent(2L, 0, "Johnny Walker", "Sara Walker", "100001", 1L));
+        index.put(new IndexedStudent(3L, 0, "Jonathan Smyth", "John Smyth", "100002", 2L));
+        index.put(new IndexedStudent(4L, 0, "José Álvarez", "Maria Álvarez", "100003", 2L));
+    }
+
+    @Test
+    public void testExactMatchesRankAbovePrefixAndGuardianMatches() {
+        List<StudentSearchHit> hits = index.search("john", 10);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(hits));
+        assertEquals(NameIndex.EXACT, hits.get(0).getScore());
+        assertEquals(NameIndex.PREFIX, hits.get(1).getScore());
+        assertEquals(NameIndex.EXACT * NameIndex.GUARDIAN_NAME_WEIGHT, hits.get(2).getScore());
+        assertEquals("100000", hits.get(0).getRollNumber());
+        assertEquals(Long.valueOf(1L), hits.get(0).getSchoolId());
+    }
+
+    @Test
+    public void testEveryQueryWordMustMatch() {
+        assertEquals(List.of(1L, 3L), ids(index.search("john smith", 10)));
+        assertEquals(List.of(), ids(index.search("john alvarez", 10)));
+    }
+
+    @Test
+    public void testToleratesTyposAndAccents() {
+        assertEquals(List.of(3L), ids(index.search("jonathon", 10)));
+        assertEquals(List.of(1L, 3L), ids(index.search("smith", 10)));
+        assertEquals(List.of(4L), ids(index.search("jose alvarez", 10)));
+    }
+
+    @Test
+    public void testShortWordsOnlyMatchAsPrefix() {
+        assertEquals(List.of(), ids(index.search("jhn", 10)));
+        assertEquals(List.of(4L), ids(index.search("jos", 10)));
+    }
+
+    @Test
+    public void testLimitKeepsBestHits() {
+        assertEquals(List.of(1L, 2L), ids(index.search("john", 2)));
+    }
+
+    @Test
+    public void testUpdateReplacesNamesAndIgnoresOlderVersions() {
+        index.put(new IndexedStudent(1L, 2, "Adam Smith", "Ali Khan", "100000", 1L));
+        index.put(new IndexedStudent(1L, 1, "John Smith", "Ali Khan", "100000", 1L));
+
+        assertEquals(List.of(2L, 3L), ids(index.search("john", 10)));
+        assertEquals(List.of(1L), ids(index.search("adam", 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testRemove() {
+        index.remove(1L);
+        index.remove(99L);
+
+        assertEquals(List.of(2L, 3L), ids(index.search("john", 10)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void testCompactionKeepsLiveStudents() {
+        for (int version = 1; version <= 3_000; version++) {
+            index.put(new IndexedStudent(2L, version, "Johnny Walker " + version, "Sara Walker", "100001", 1L));
+        }
+
+        assertEquals(List.of(1L, 2L, 3L), ids(index.search("john", 10)));
+        assertEquals(List.of(2L), ids(index.search("walker 3000", 10)));
+        assertEquals(List.of(), ids(index.search("walker 2999", 10)));
+        assertTrue(index.termCount() < 1_100, "terms: " + index.termCount());
+    }
+
+    @Test
+    public void testBlankQueryFindsNothing() {
+        assertEquals(List.of(), index.search(" ,. ", 10));
+    }
+
+    @Test
+    public void testDistanceGivesUpPastMax() {
+        assertEquals(1, NameIndex.distance("smith", "smyth", 2));
+        assertEquals(2, NameIndex.distance("jonathan", "jnthn", 1));
+    }
+
+    private static List<Long> ids(List<StudentSearchHit> hits) {
+        return hits.stream().map(StudentSearchHit::getStudentId).toList();
+    }
+}
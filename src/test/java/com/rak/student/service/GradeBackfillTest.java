@@ -0,0 +1,73 @@
+package com.rak.student.service;
+
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentCriteria;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.repository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:grades",
+        "student.grade-backfill.chunk-size=3"
+})
+public class GradeBackfillTest {
+
+    @Autowired
+    private GradeBackfill gradeBackfill;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void evictSecondLevelCache() {
+        // the second-level cache is shared by every application context of the test run
+        entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    @Test
+    public void testBackfillsGradesInAnotherCaseAndEvictsThem() {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Skiply School", null, null, "Dubai")).getId();
+        List<Long> ids = IntStream.range(0, 10)
+                .mapToObj(i -> studentService.createStudent(new StudentDTO(null, "Student " + i, "G3", null,
+                        "+971501000000", schoolId, null, "Guardian " + i, null)).getId())
+                .toList();
+
+        // rows written before grades were stored in canonical case, with stale copies in the second-level cache
+        jdbcTemplate.update("update student set grade = 'g3' where id <> ?", ids.get(0));
+        entityManagerFactory.getCache().evictAll();
+        ids.forEach(studentRepository::findById);
+        StudentCriteria inGrade = new StudentCriteria(schoolId, "G3", null, null);
+        assertEquals(1, studentService.getAllStudents(inGrade, null, 50).getItems().size());
+
+        assertEquals(9, gradeBackfill.run());
+
+        assertEquals("G3", studentRepository.findById(ids.get(3)).orElseThrow().getGrade());
+        assertEquals(1, studentService.getStudentVersion(ids.get(3)).version());
+        assertEquals(0, studentService.getStudentVersion(ids.get(0)).version());
+        assertEquals(10, studentService.getAllStudents(inGrade, null, 50).getItems().size());
+        assertEquals(0, gradeBackfill.run());
+    }
+}
@@ -0,0 +1,79 @@
+package com.rak.student.service;
+
+import com.rak.student.async.BoundedExecutor;
+import com.rak.student.cache.LastKnownGoodStore;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.ShardRouter;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LastKnownGoodRefresherTest {
+
+    private final StudentRepository studentRepository = mock(StudentRepository.class);
+    private final BoundedExecutor executor = mock(BoundedExecutor.class);
+    private CircuitBreakerRegistry registry;
+    private LastKnownGoodStore store;
+    private LastKnownGoodRefresher refresher;
+
+    @BeforeEach
+    public void setup() {
+        registry = CircuitBreakerRegistry.ofDefaults();
+        store = new LastKnownGoodStore(new SimpleMeterRegistry(), 100, Duration.ofHours(1));
+        refresher = new LastKnownGoodRefresher(registry, studentRepository, store, executor, ShardRouter.unsharded());
+        refresher.subscribe();
+    }
+
+    @Test
+    public void testHalfOpenSchedulesRefresh() {
+        CircuitBreaker circuitBreaker = registry.circuitBreaker(LastKnownGoodRefresher.CIRCUIT_BREAKER);
+        circuitBreaker.transitionToOpenState();
+
+        verify(executor, never()).execute(any());
+
+        circuitBreaker.transitionToHalfOpenState();
+
+        verify(executor).execute(any());
+    }
+
+    @Test
+    public void testRefreshReplacesFoundAndDropsDeletedStudents() {
+        store.put(student("100000", "John"));
+        store.put(student("100001", "Jane"));
+        when(studentRepository.findDtosByRollNumberIn(any())).thenReturn(List.of(student("100000", "Johnny")));
+
+        refresher.refresh();
+
+        assertEquals("Johnny", store.getStale("100000").orElseThrow().getStudentName());
+        assertTrue(store.getStale("100001").isEmpty());
+    }
+
+    @Test
+    public void testRefreshStopsWhileBreakerIsOpen() {
+        store.put(student("100000", "John"));
+        registry.circuitBreaker(LastKnownGoodRefresher.CIRCUIT_BREAKER).transitionToForcedOpenState();
+
+        refresher.refresh();
+
+        verify(studentRepository, never()).findDtosByRollNumberIn(any());
+        assertEquals("John", store.getStale("100000").orElseThrow().getStudentName());
+    }
+
+    private static StudentDTO student(String rollNo, String name) {
+        return new StudentDTO(1L, name, "G1", rollNo, "+92090078601", 1L, "School 1", "Teacher 1", null);
+    }
+}
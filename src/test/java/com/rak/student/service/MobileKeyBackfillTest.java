@@ -0,0 +1,67 @@
+package com.rak.student.service;
+
+import com.rak.student.domain.Student;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.repository.StudentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:backfill",
+        "student.mobile-key-backfill.chunk-size=3",
+        "student.mobile-key-backfill.parallelism=2"
+})
+public class MobileKeyBackfillTest {
+
+    @Autowired
+    private MobileKeyBackfill mobileKeyBackfill;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void testBackfillsRowsWithoutKeyAndEvictsThem() {
+        Long schoolId = schoolService.createSchool(new SchoolDTO("Skiply School", null, null, "Dubai")).getId();
+        List<Long> ids = IntStream.range(0, 20)
+                .mapToObj(i -> studentService.createStudent(new StudentDTO(null, "Student " + i, "G1", null,
+                        "+971 50 " + (1_000_000 + i % 5), schoolId, null, "Guardian " + i, null)).getId())
+                .toList();
+        assertEquals("971501000003", studentRepository.findById(ids.get(3)).orElseThrow().getMobileKey());
+
+        // rows written before the column existed, with stale copies in the second-level cache
+        jdbcTemplate.update("update student set mobile_key = null where id <> ?", ids.get(0));
+        entityManagerFactory.getCache().evictAll();
+        ids.forEach(studentRepository::findById);
+        assertNull(studentRepository.findById(ids.get(3)).orElseThrow().getMobileKey());
+
+        assertEquals(19, mobileKeyBackfill.run());
+
+        Student student = studentRepository.findById(ids.get(3)).orElseThrow();
+        assertEquals("971501000003", student.getMobileKey());
+        assertEquals(0, student.getVersion());
+        assertEquals(4, studentService.getStudentsByMobileNumber("00971501000003").size());
+        assertEquals(0, mobileKeyBackfill.run());
+    }
+}
@@ -0,0 +1,112 @@
+package com.rak.student.service;
+
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RollNumberAllocatorTest {
+
+    private static final long FIRST_BLOCK = 100_000L;
+
+    private StudentRepository studentRepository;
+    private RollNumberAllocator allocator;
+
+    @BeforeEach
+    public void setup() {
+        AtomicLong sequence = new AtomicLong(FIRST_BLOCK);
+        studentRepository = Mockito.mock(StudentRepository.class);
+        when(studentRepository.nextRollNumberBlock()).thenAnswer(invocation -> sequence.getAndAdd(RollNumberAllocator.BLOCK_SIZE));
+        allocator = new RollNumberAllocator(studentRepository, ShardRouter.unsharded());
+    }
+
+    @Test
+    public void testNextHandsOutConsecutiveNumbersWithinABlock() {
+        assertEquals("100000", allocator.next(0));
+        assertEquals("100001", allocator.next(0));
+        verify(studentRepository, times(1)).nextRollNumberBlock();
+    }
+
+    @Test
+    public void testBulkAllocationSpansBlocks() {
+        allocator.next(0);
+
+        List<String> rollNumbers = allocator.next(0, 250);
+
+        assertEquals(250, rollNumbers.size());
+        assertEquals("100001", rollNumbers.get(0));
+        assertEquals("100250", rollNumbers.get(249));
+        assertEquals(250, Set.copyOf(rollNumbers).size());
+        verify(studentRepository, times(3)).nextRollNumberBlock();
+    }
+
+    @Test
+    public void testShardsAllocateFromTheirOwnBlocks() {
+        allocator = new RollNumberAllocator(studentRepository, new ShardRouter(2, null, null, null));
+
+        assertEquals("10000000", allocator.next(0));
+        assertEquals("10010001", allocator.next(1));
+        assertEquals(List.of("10000100", "10000200"), allocator.next(0, 2));
+        assertEquals(1, new ShardRouter(2, null, null, null).shardOfRollNumber(allocator.next(1)));
+        verify(studentRepository, times(2)).nextRollNumberBlock();
+    }
+
+    @Test
+    public void testConcurrentAllocationsAreUnique() throws Exception {
+        int threads = 16;
+        int perThread = 20_000;
+        Set<String> allocated = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                boolean bulk = t % 4 == 0;
+                futures[t] = executor.submit(() -> {
+                    start.await();
+                    int done = 0;
+                    while (done < perThread) {
+                        if (bulk) {
+                            List<String> rollNumbers = allocator.next(0, 37);
+                            rollNumbers.forEach(rollNumber -> assertTrue(allocated.add(rollNumber), "duplicate " + rollNumber));
+                            done += rollNumbers.size();
+                        } else {
+                            String rollNumber = allocator.next(0);
+                            assertTrue(allocated.add(rollNumber), "duplicate " + rollNumber);
+                            done++;
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long total = allocated.size();
+        assertTrue(total >= (long) threads * perThread);
+        long blocksUsed = Mockito.mockingDetails(studentRepository).getInvocations().size();
+        assertTrue(blocksUsed <= total / RollNumberAllocator.BLOCK_SIZE + threads + 1, "blocks wasted: " + blocksUsed);
+    }
+}
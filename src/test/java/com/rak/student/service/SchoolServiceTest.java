@@ -1,9 +1,16 @@
 package com.rak.student.service;
 
 import com.rak.student.domain.School;
+import com.rak.student.dto.CursorPage;
 import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.dto.SchoolSummaryDTO;
+import com.rak.student.dto.StudentCriteria;
+import com.rak.student.dto.StudentDTO;
 import com.rak.student.mapper.SchoolMapper;
 import com.rak.student.repository.SchoolRepository;
+import com.rak.student.shard.SchoolReplicator;
+import com.rak.student.stats.StudentCounters;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.jupiter.api.Assertions;
@@ -11,6 +18,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
@@ -20,6 +28,7 @@ import java.util.Optional;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -37,6 +46,15 @@ public class SchoolServiceTest {
     @Mock
     private SchoolMapper schoolMapper;
 
+    @Mock
+    private SchoolReplicator schoolReplicator;
+
+    @Mock
+    private StudentService studentService;
+
+    @Mock
+    private StudentCounters studentCounters;
+
     String imageUrl = "https://play-lh.googleusercontent.com/1h4qUW1ECJ9bd27nDbkvc3uGhwFeFGt0yIGIRBQspXW24uJ0i34ePxMy-EVAXSX9Pg=w600-h300-pc0xffffff-pd";
     String address="Sikply near RAK Bank, Dubai";
 
@@ -56,15 +74,17 @@ public class SchoolServiceTest {
 
         expectedDTOs.add(new SchoolDTO("American School", 2L, imageUrl,address));
 
-        when(schoolRepository.findAll()).thenReturn(school);
+        when(schoolRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), eq(Limit.of(51)))).thenReturn(school);
 
         when(schoolMapper.toDTO(school.get(0))).thenReturn(expectedDTOs.get(0));
         when(schoolMapper.toDTO(school.get(1))).thenReturn(expectedDTOs.get(1));
 
 
-        List<SchoolDTO> actualDTOs = schoolService.getAllSchools();
+        CursorPage<SchoolDTO> actualPage = schoolService.getAllSchools(null, null);
+        List<SchoolDTO> actualDTOs = actualPage.getItems();
 
         assertEquals(expectedDTOs.size(), actualDTOs.size());
+        assertNull(actualPage.getNext());
         assertEquals("Skiply", expectedDTOs.get(0).getName());
         assertEquals("American School", expectedDTOs.get(1).getName());
 
@@ -75,13 +95,13 @@ public class SchoolServiceTest {
     public void getAllSchoolsEmptyList() {
 
         List<School> schools = new ArrayList<>();
-        when(schoolRepository.findAll()).thenReturn(schools);
+        when(schoolRepository.findByIdGreaterThanOrderByIdAsc(any(), any())).thenReturn(schools);
 
 
-        List<SchoolDTO> result = schoolService.getAllSchools();
+        CursorPage<SchoolDTO> result = schoolService.getAllSchools(null, null);
 
 
-        assertEquals(0, result.size());
+        assertEquals(0, result.getItems().size());
     }
 
     @Test
@@ -153,7 +173,7 @@ public class SchoolServiceTest {
         when(schoolMapper.toDTO(existingSchool)).thenReturn(updatedSchoolDTO);
 
         when(schoolRepository.findById(schoolId)).thenReturn(Optional.of(existingSchool));
-        when(schoolRepository.save(existingSchool)).thenReturn(existingSchool);
+        when(schoolRepository.saveAndFlush(existingSchool)).thenReturn(existingSchool);
 
 
         SchoolDTO result = schoolService.updateSchool(schoolId, updatedSchoolDTO);
@@ -161,7 +181,7 @@ public class SchoolServiceTest {
 
         Assertions.assertEquals(updatedSchoolDTO.getName(), result.getName());
         verify(schoolRepository, times(1)).findById(schoolId);
-        verify(schoolRepository, times(1)).save(existingSchool);
+        verify(schoolRepository, times(1)).saveAndFlush(existingSchool);
     }
 
     @Test
@@ -177,7 +197,7 @@ public class SchoolServiceTest {
             schoolService.updateSchool(schoolId, updatedSchoolDTO);
         });
         verify(schoolRepository, times(1)).findById(schoolId);
-        verify(schoolRepository, never()).save(any(School.class));
+        verify(schoolRepository, never()).saveAndFlush(any(School.class));
     }
 
     @Test
@@ -188,7 +208,7 @@ public class SchoolServiceTest {
 
         schoolService.deleteSchool(schoolId);
 
-        Mockito.verify(schoolRepository, Mockito.times(1)).deleteById(schoolId);
+        Mockito.verify(schoolRepository, Mockito.times(1)).delete(any(School.class));
     }
 
 
@@ -205,5 +225,51 @@ public class SchoolServiceTest {
         schoolService.deleteSchool(null);
     }
 
+    @Test
+    public void getSchoolStudentsPagesByIdWithinTheSchool() {
+        School school = new School(1L, "Skiply", null, imageUrl, address);
+        CursorPage<StudentDTO> page = new CursorPage<>(new ArrayList<>(), 30L, 20);
+        when(schoolRepository.findById(1L)).thenReturn(Optional.of(school));
+        when(studentService.getAllStudents(any(StudentCriteria.class), eq(10L), eq(20))).thenReturn(page);
+
+        assertEquals(page, schoolService.getSchoolStudents(1L, 10L, 20));
+        verify(studentService).getAllStudents(Mockito.argThat(criteria -> criteria.getSchoolId() == 1L && criteria.getGrade() == null
+                && criteria.getName() == null && StudentCriteria.SORT_BY_ID.equals(criteria.getSort())), eq(10L), eq(20));
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void getSchoolStudentsOfUnknownSchool() {
+        when(schoolRepository.findById(1L)).thenReturn(Optional.empty());
+        schoolService.getSchoolStudents(1L, null, null);
+    }
+
+    @Test
+    public void getSchoolSummaryPreviewsTheFirstStudents() {
+        School school = new School(1L, "Skiply", null, imageUrl, address);
+        CursorPage<StudentDTO> preview = new CursorPage<>(new ArrayList<>(), 10L, SchoolServiceImpl.STUDENT_PREVIEW_SIZE);
+        when(schoolRepository.findById(1L)).thenReturn(Optional.of(school));
+        when(schoolMapper.toDTO(school)).thenReturn(new SchoolDTO("Skiply", 1L, imageUrl, address));
+        when(studentService.getAllStudents(any(StudentCriteria.class), eq(null), eq(SchoolServiceImpl.STUDENT_PREVIEW_SIZE))).thenReturn(preview);
+
+        SchoolSummaryDTO summary = schoolService.getSchoolSummary(1L);
 
+        assertEquals("Skiply", summary.getName());
+        assertEquals(preview, summary.getStudents());
+    }
+
+    @Test
+    public void getSchoolSummaryOfUnknownSchool() {
+        when(schoolRepository.findById(1L)).thenReturn(Optional.empty());
+        assertNull(schoolService.getSchoolSummary(1L));
+        verify(studentService, never()).getAllStudents(any(StudentCriteria.class), any(), any());
+    }
+
+    @Test
+    public void getSchoolStatsSkipsTheDatabase() {
+        SchoolStatsDTO stats = new SchoolStatsDTO(1L, 3, null);
+        when(studentCounters.statsOf(1L)).thenReturn(stats);
+
+        assertEquals(stats, schoolService.getSchoolStats(1L));
+        Mockito.verifyNoInteractions(schoolRepository);
+    }
 }
@@ -1,28 +1,54 @@
 package com.rak.student.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rak.student.async.BoundedExecutor;
+import com.rak.student.async.SingleFlight;
+import com.rak.student.cache.LastKnownGoodStore;
+import com.rak.student.cache.RollNumberCache;
 import com.rak.student.domain.School;
 import com.rak.student.domain.Student;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
 import com.rak.student.dto.SchoolDTO;
 import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.ingest.StudentImport;
+import com.rak.student.ingest.StudentIngest;
 import com.rak.student.mapper.StudentMapper;
 import com.rak.student.repository.SchoolRepository;
 import com.rak.student.repository.StudentRepository;
+import com.rak.student.search.StudentSearchIndex;
+import com.rak.student.shard.ShardRouter;
+import com.rak.student.stats.StudentCounters;
+import jakarta.validation.Validator;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -45,6 +71,40 @@ public class StudentServiceTest {
     @Mock
     private SchoolServiceImpl schoolService;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private RollNumberAllocator rollNumberAllocator;
+
+    @Mock
+    private RollNumberCache rollNumberCache;
+
+
+    @Mock
+    private LastKnownGoodStore lastKnownGoodStore;
+
+    @Mock
+    private BoundedExecutor studentQueryExecutor;
+
+    @Mock
+    private SingleFlight<String, StudentDTO> rollNumberLookups;
+
+    @Mock
+    private StudentSearchIndex studentSearchIndex;
+
+    @Mock
+    private StudentCounters studentCounters;
+
+    @Mock
+    private StudentIngest studentIngest;
+
+    @Mock
+    private StudentImport studentImport;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.unsharded();
+
     String imageUrl = "https://play-lh.googleusercontent.com/1h4qUW1ECJ9bd27nDbkvc3uGhwFeFGt0yIGIRBQspXW24uJ0i34ePxMy-EVAXSX9Pg=w600-h300-pc0xffffff-pd";
     String address="Sikply near RAK Bank, Dubai";
 
@@ -57,9 +117,10 @@ public class StudentServiceTest {
     @Test
     public void testGetAllStudentsEmptyList() {
         List<StudentDTO> expectedStudents = new ArrayList<>();
-        Mockito.when(studentRepository.findAll()).thenReturn(new ArrayList<>());
-        List<StudentDTO> actualStudents = studentService.getAllStudents();
-        assertEquals(expectedStudents, actualStudents);
+        Mockito.when(studentRepository.findDtosByIdGreaterThan(any(), any())).thenReturn(new ArrayList<>());
+        CursorPage<StudentDTO> actualStudents = studentService.getAllStudents(null, null);
+        assertEquals(expectedStudents, actualStudents.getItems());
+        assertNull(actualStudents.getNext());
     }
 
     @Test
@@ -82,13 +143,12 @@ public class StudentServiceTest {
         expectedDTOs.add(studentDTO1);
         expectedDTOs.add(studentDTO2);
 
-        when(studentRepository.findAll()).thenReturn(students);
-
-        when(studentMapper.toDTO(student1)).thenReturn(expectedDTOs.get(0));
-        when(studentMapper.toDTO(student2)).thenReturn(expectedDTOs.get(1));
+        when(studentRepository.findDtosByIdGreaterThan(eq(0L), eq(Limit.of(2)))).thenReturn(expectedDTOs);
 
-        List<StudentDTO> actualDTOs = studentService.getAllStudents();
-        assertEquals(expectedDTOs, actualDTOs);
+        CursorPage<StudentDTO> actualPage = studentService.getAllStudents(null, 1);
+        assertEquals(expectedDTOs.subList(0, 1), actualPage.getItems());
+        assertEquals(Long.valueOf(1L), actualPage.getNext());
+        verify(studentMapper, never()).toDTO(any(Student.class));
     }
 
 
@@ -139,6 +199,7 @@ public class StudentServiceTest {
         when(studentMapper.toEntity(studentDTO)).thenReturn(new Student());
         when(schoolService.getSchoolById(schoolId)).thenReturn(new SchoolDTO("Skiply School", schoolId, imageUrl,address));
         when(schoolRepository.findById(schoolId)).thenReturn(Optional.of(school));
+        when(rollNumberAllocator.next(0)).thenReturn("100000");
 
         when(studentRepository.save(any(Student.class))).thenAnswer(invocation -> {
             Student savedStudent = invocation.getArgument(0);
@@ -184,4 +245,192 @@ public class StudentServiceTest {
         verify(studentRepository, never()).save(student);
         verify(studentMapper, never()).toDTO(student);
     }
+
+    @Test
+    public void testCreateStudentsRejectsUnknownSchoolAndCreatesTheRest() {
+        School school = new School(1L, "Skiply School", new ArrayList<>(), imageUrl,address);
+        StudentDTO valid = new StudentDTO(null, "John Doe", "G1", null, "+92090078601", 1L, null, "Ali", null);
+        StudentDTO unknownSchool = new StudentDTO(null, "Jane Doe", "G2", null, "+92090078602", 9L, null, "Sara", null);
+
+        when(validator.validate(any(StudentDTO.class))).thenReturn(Set.of());
+        when(schoolRepository.findAllById(any())).thenReturn(List.of(school));
+        when(studentMapper.toEntity(valid)).thenReturn(new Student());
+        when(rollNumberAllocator.next(0, 1)).thenReturn(List.of("100000"));
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentMapper.toDTO(any(Student.class))).thenAnswer(invocation -> {
+            Student savedStudent = invocation.getArgument(0);
+            return new StudentDTO(10L, "John Doe", "G1", savedStudent.getRollNumber(), "+92090078601", 1L, school.getName(), "Ali", imageUrl);
+        });
+
+        List<BatchItemResult> results = studentService.createStudents(List.of(valid, unknownSchool));
+
+        assertEquals(2, results.size());
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals("100000", results.get(0).getStudent().getRollNumber());
+        assertEquals(BatchItemResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals("School not found with id: 9", results.get(1).getError());
+        verify(schoolRepository, times(1)).findAllById(any());
+        verify(studentRepository, never()).save(any(Student.class));
+    }
+
+    @Test
+    public void testCreateStudentsRejectsInvalidGradeAndCreatesTheRest() throws IOException {
+        School school = new School(1L, "Skiply School", new ArrayList<>(), imageUrl,address);
+        StudentDTO valid = new StudentDTO(null, "John Doe", "G1", null, "+92090078601", 1L, null, "Ali", null);
+        // read as the batch endpoint reads it, which must not fail on the unknown grade
+        StudentDTO invalidGrade = new ObjectMapper().readValue("{\"studentName\":\"Jane Doe\",\"grade\":\"G13\"," +
+                "\"mobileNumber\":\"+92090078602\",\"schoolId\":1,\"guardianName\":\"Sara\"}", StudentDTO.class);
+
+        when(validator.validate(any(StudentDTO.class))).thenReturn(Set.of());
+        when(schoolRepository.findAllById(any())).thenReturn(List.of(school));
+        when(studentMapper.toEntity(valid)).thenReturn(new Student());
+        when(rollNumberAllocator.next(0, 1)).thenReturn(List.of("100000"));
+        when(studentRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(studentMapper.toDTO(any(Student.class))).thenReturn(valid);
+
+        List<BatchItemResult> results = studentService.createStudents(List.of(valid, invalidGrade));
+
+        assertEquals(BatchItemResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemResult.Status.REJECTED, results.get(1).getStatus());
+        assertEquals(1, results.get(1).getIndex());
+        assertEquals(StudentServiceImpl.INVALID_GRADE, results.get(1).getError());
+        verify(studentMapper, never()).toEntity(invalidGrade);
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void testCreateStudentRejectsInvalidGrade() {
+        studentService.createStudent(new StudentDTO(null, "John Doe", "G13", null, "+92090078601", 1L, null, "Ali", null));
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void testCreateStudentsRejectsOversizedBatch() {
+        List<StudentDTO> studentDTOs = new ArrayList<>();
+        for (int i = 0; i <= StudentServiceImpl.MAX_BATCH_SIZE; i++) {
+            studentDTOs.add(new StudentDTO());
+        }
+        studentService.createStudents(studentDTOs);
+    }
+
+    @Test
+    public void testDeleteStudentInvalidatesRollNumberCache() {
+        School school = new School(1L, "Skiply School", new ArrayList<>(), imageUrl,address);
+        Student student = new Student(5L, "John Doe", "G1", "100000", "+92090078601", "Ali", school);
+        when(studentRepository.findById(5L)).thenReturn(Optional.of(student));
+
+        studentService.deleteStudent(5L);
+
+        verify(studentRepository, times(1)).delete(student);
+        verify(schoolRepository, never()).deleteById(any());
+        verify(rollNumberCache, times(1)).invalidate("100000");
+        verify(lastKnownGoodStore, times(1)).invalidate("100000");
+        verify(studentSearchIndex, times(1)).remove(5L);
+        verify(studentCounters, times(1)).removed(1L, "G1");
+    }
+
+    @Test
+    public void testUpdateStudentMovesCounters() {
+        School school = new School(1L, "Skiply School", new ArrayList<>(), imageUrl,address);
+        Student student = new Student(5L, "John Doe", "G1", "100000", "+92090078601", "Ali", school);
+        StudentDTO update = new StudentDTO(5L, "John Doe", "G2", "100000", "+92090078601", 1L, null, "Ali", null);
+        when(studentRepository.findById(5L)).thenReturn(Optional.of(student));
+        when(studentRepository.saveAndFlush(student)).thenReturn(student);
+
+        studentService.updateStudent(5L, update);
+
+        verify(studentCounters, times(1)).moved(1L, "G1", 1L, "G2");
+    }
+
+    @Test
+    public void testGetStudentsByMobileNumberLooksUpDigits() {
+        StudentDTO student = new StudentDTO(1L, "John Doe", "G1", "100000", "+92090078601", 1L, "Skiply School", "Ali", imageUrl);
+        when(studentRepository.findDtosByMobileKey(eq("92090078601"), any(Limit.class))).thenReturn(List.of(student));
+
+        List<StudentDTO> students = studentService.getStudentsByMobileNumber("+92 (090) 078-601");
+
+        assertEquals(List.of(student), students);
+    }
+
+    @Test
+    public void testGetStudentsByMobileNumberRejectsNumberWithoutDigits() {
+        assertThrows(ResponseStatusException.class, () -> studentService.getStudentsByMobileNumber("n/a"));
+        verify(studentRepository, never()).findDtosByMobileKey(any(), any());
+    }
+
+    @Test
+    public void testSearchStudentsCapsLimit() {
+        studentService.searchStudents("john", 1_000);
+
+        verify(studentSearchIndex, times(1)).search("john", StudentServiceImpl.MAX_SEARCH_LIMIT);
+    }
+
+    @Test
+    public void testSearchStudentsRejectsBlankQuery() {
+        assertThrows(ResponseStatusException.class, () -> studentService.searchStudents(" ", null));
+        verify(studentSearchIndex, never()).search(any(), eq(StudentServiceImpl.DEFAULT_SEARCH_LIMIT));
+    }
+
+    @Test
+    public void testLookupStudentsByRollNumbersKeepsRequestOrder() {
+        StudentDTO first = new StudentDTO(1L, "John Doe", "G1", "100000", "+92090078601", 1L, "Skiply School", "Ali", imageUrl);
+        StudentDTO second = new StudentDTO(2L, "Jane Doe", "G2", "100001", "+92090078602", 1L, "Skiply School", "Ali", imageUrl);
+        when(studentRepository.findDtosByRollNumberIn(List.of("100001", "999999", "100000"))).thenReturn(List.of(first, second));
+
+        List<StudentLookupResult> results = studentService.lookupStudents(
+                new StudentLookupRequest(null, List.of("100001", "999999", "100000", "100001")));
+
+        assertEquals(4, results.size());
+        assertEquals("100001", results.get(0).getKey());
+        assertEquals(Long.valueOf(2L), results.get(0).getStudent().getId());
+        assertFalse(results.get(1).isFound());
+        assertEquals(null, results.get(1).getStudent());
+        assertEquals(Long.valueOf(1L), results.get(2).getStudent().getId());
+        assertTrue(results.get(3).isFound());
+        verify(studentRepository, times(1)).findDtosByRollNumberIn(any());
+    }
+
+    @Test
+    public void testLookupStudentsByIdsQueriesInChunks() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= StudentServiceImpl.MAX_LOOKUP_KEYS; id++) {
+            ids.add(id);
+        }
+        when(studentRepository.findDtosByIdIn(any())).thenReturn(List.of());
+
+        List<StudentLookupResult> results = studentService.lookupStudents(new StudentLookupRequest(ids, null));
+
+        assertEquals(StudentServiceImpl.MAX_LOOKUP_KEYS, results.size());
+        verify(studentRepository, times(StudentServiceImpl.MAX_LOOKUP_KEYS / StudentServiceImpl.LOOKUP_CHUNK_SIZE)).findDtosByIdIn(any());
+    }
+
+    @Test(expected = ResponseStatusException.class)
+    public void testLookupStudentsRejectsBothKeyKinds() {
+        studentService.lookupStudents(new StudentLookupRequest(List.of(1L), List.of("100000")));
+    }
+
+    @Test
+    public void testGetStudentByRollNoKnownMissingSkipsTheDatabase() {
+        when(rollNumberCache.isKnownMissing("100000")).thenReturn(true);
+
+        CompletableFuture<StudentDTO> result = studentService.getStudentByRollNo("100000");
+
+        assertThrows(CompletionException.class, result::join);
+        verify(rollNumberLookups, never()).execute(any(), any());
+    }
+
+    @Test
+    public void testCreateStudentRegistersRollNumber() {
+        School school = new School(1L, "Skiply School", new ArrayList<>(), imageUrl, address);
+        StudentDTO studentDTO = new StudentDTO(null, "John Doe", "G1", null, "+92090078601", 1L, null, "Ali", null);
+        Student student = new Student(null, "John Doe", "G1", null, "+92090078601", "Ali", null);
+        Student savedStudent = new Student(1L, "John Doe", "G1", "100000", "+92090078601", "Ali", school);
+        when(studentMapper.toEntity(studentDTO)).thenReturn(student);
+        when(schoolRepository.findById(1L)).thenReturn(Optional.of(school));
+        when(rollNumberAllocator.next(0)).thenReturn("100000");
+        when(studentRepository.save(student)).thenReturn(savedStudent);
+
+        studentService.createStudent(studentDTO);
+
+        verify(rollNumberCache, times(1)).invalidateMissing("100000");
+    }
 }
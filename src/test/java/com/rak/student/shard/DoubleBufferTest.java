@@ -0,0 +1,54 @@
+package com.rak.student.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class DoubleBufferTest {
+
+    private final DoubleBuffer<Set<String>> buffer = new DoubleBuffer<>(ShardRouter.unsharded(), mock(PlatformTransactionManager.class));
+
+    @Test
+    public void testWritesDuringARebuildReachBothViews() {
+        assertNull(buffer.current());
+        buffer.rebuild(ConcurrentHashMap.newKeySet(), view -> view.add("first"));
+        Set<String> first = buffer.current();
+
+        Set<String> second = ConcurrentHashMap.newKeySet();
+        buffer.rebuild(second, view -> {
+            assertTrue(buffer.isBuilding());
+            buffer.apply(v -> v.add("written"));
+            view.add("read");
+        }, view -> assertSame(second, view));
+
+        assertSame(second, buffer.current());
+        assertFalse(buffer.isBuilding());
+        assertEquals(Set.of("read", "written"), second);
+        assertEquals(Set.of("first", "written"), first);
+    }
+
+    @Test
+    public void testFailedRebuildKeepsTheCurrentView() {
+        buffer.rebuild(ConcurrentHashMap.newKeySet(), view -> view.add("first"));
+        Set<String> first = buffer.current();
+
+        assertThrows(IllegalStateException.class, () -> buffer.rebuild(ConcurrentHashMap.newKeySet(), view -> {
+            throw new IllegalStateException("shard down");
+        }));
+
+        assertSame(first, buffer.current());
+        assertFalse(buffer.isBuilding());
+        assertEquals(List.of(1), buffer.onEveryShard(() -> 1));
+    }
+}
@@ -0,0 +1,214 @@
+package com.rak.student.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rak.student.dto.BatchItemResult;
+import com.rak.student.dto.CursorPage;
+import com.rak.student.dto.SchoolDTO;
+import com.rak.student.dto.StudentDTO;
+import com.rak.student.dto.StudentLookupRequest;
+import com.rak.student.dto.StudentLookupResult;
+import com.rak.student.service.SchoolService;
+import com.rak.student.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the application against three H2 instances, shard 0 configured as the usual data source and shards 1 and 2
+ * as {@code student.sharding.shards}. Placement is checked by reading each shard directly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0",
+        "student.sharding.enabled=true",
+        "student.sharding.initialize-schema=true",
+        "student.sharding.shards[0].url=jdbc:h2:mem:shard-1;DB_CLOSE_DELAY=-1",
+        "student.sharding.shards[0].username=sa",
+        "student.sharding.shards[0].password=password",
+        "student.sharding.shards[1].url=jdbc:h2:mem:shard-2;DB_CLOSE_DELAY=-1",
+        "student.sharding.shards[1].username=sa",
+        "student.sharding.shards[1].password=password"
+})
+public class ShardingTest {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private SchoolService schoolService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SchoolReplicator schoolReplicator;
+
+    private final List<Long> schoolIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        schoolIds.clear();
+        for (int i = 0; i < SHARDS; i++) {
+            schoolIds.add(schoolService.createSchool(new SchoolDTO("Shard School " + i, null, null, "Dubai")).getId());
+        }
+    }
+
+    @Test
+    public void testStudentsArePlacedOnTheShardOfTheirSchool() {
+        assertEquals(SHARDS, shardRouter.shardCount());
+        for (Long schoolId : schoolIds) {
+            int shard = (int) (schoolId % SHARDS);
+            StudentDTO student = studentService.createStudent(newStudent(schoolId, 1));
+
+            assertEquals(shard, student.getId() % ShardRouter.MAX_SHARDS);
+            assertEquals(shard, Long.parseLong(student.getRollNumber()) % ShardRouter.MAX_SHARDS);
+            for (int other = 0; other < SHARDS; other++) {
+                assertEquals(other == shard ? 1 : 0, shard(other).queryForObject(
+                        "select count(*) from student where id = ? and roll_number = ?", Integer.class, student.getId(), student.getRollNumber()));
+            }
+            assertEquals(1, shard(shard).queryForObject("select count(*) from school where id = ?", Integer.class, schoolId));
+            assertEquals(1, shard(0).queryForObject("select count(*) from school where id = ?", Integer.class, schoolId));
+        }
+    }
+
+    @Test
+    public void testPointOperationsGoToTheStudentsShard() throws Exception {
+        List<StudentDTO> students = schoolIds.stream().map(schoolId -> studentService.createStudent(newStudent(schoolId, 2))).toList();
+
+        for (StudentDTO student : students) {
+            assertEquals(student.getRollNumber(), studentService.getStudentById(student.getId()).getRollNumber());
+            assertEquals(student.getId(), studentService.getStudentByRollNo(student.getRollNumber()).get().getId());
+
+            StudentDTO update = newStudent(student.getSchoolId(), 3);
+            assertEquals(update.getStudentName(), studentService.updateStudent(student.getId(), update).getStudentName());
+            assertEquals(1L, studentService.getStudentVersion(student.getId()).version());
+
+            studentService.deleteStudent(student.getId());
+            assertThrows(ResponseStatusException.class, () -> studentService.getStudentById(student.getId()));
+        }
+    }
+
+    @Test
+    public void testStudentCannotMoveToASchoolOnAnotherShard() {
+        StudentDTO student = studentService.createStudent(newStudent(schoolIds.get(0), 4));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> studentService.updateStudent(student.getId(), newStudent(schoolIds.get(1), 4)));
+        assertTrue(e.getReason().contains("another shard"));
+    }
+
+    @Test
+    public void testBatchesAndLookupsSpanShards() {
+        List<StudentDTO> batch = IntStream.range(0, 30).mapToObj(i -> newStudent(schoolIds.get(i % SHARDS), i)).toList();
+
+        List<BatchItemResult> results = studentService.createStudents(batch);
+
+        List<StudentDTO> created = results.stream().map(BatchItemResult::getStudent).toList();
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(batch.get(i).getSchoolId() % SHARDS, created.get(i).getId() % ShardRouter.MAX_SHARDS);
+        }
+        List<StudentLookupResult> byId = studentService.lookupStudents(new StudentLookupRequest(created.stream().map(StudentDTO::getId).toList(), null));
+        List<StudentLookupResult> byRollNumber = studentService.lookupStudents(new StudentLookupRequest(null, created.stream().map(StudentDTO::getRollNumber).toList()));
+        for (int i = 0; i < created.size(); i++) {
+            assertEquals(created.get(i).getRollNumber(), byId.get(i).getStudent().getRollNumber());
+            assertEquals(created.get(i).getId(), byRollNumber.get(i).getStudent().getId());
+        }
+    }
+
+    @Test
+    public void testListingAndExportMergeShardsInIdOrder() throws Exception {
+        IntStream.range(0, 12).forEach(i -> studentService.createStudent(newStudent(schoolIds.get(i % SHARDS), i)));
+        int total = IntStream.range(0, SHARDS).map(shard -> shard(shard).queryForObject("select count(*) from student", Integer.class)).sum();
+
+        List<Long> listed = new ArrayList<>();
+        Long after = null;
+        do {
+            CursorPage<StudentDTO> page = studentService.getAllStudents(after, 5);
+            page.getItems().forEach(student -> listed.add(student.getId()));
+            after = page.getNext();
+        } while (after != null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        studentService.exportStudents(out);
+        List<Long> exported = new ArrayList<>();
+        for (String line : out.toString().split("\n")) {
+            exported.add(objectMapper.readValue(line, StudentDTO.class).getId());
+        }
+
+        assertEquals(total, listed.size());
+        assertEquals(listed.stream().sorted().toList(), listed);
+        assertEquals(listed, exported);
+    }
+
+    @Test
+    public void testSchoolCopyFollowsUpdatesAndDeletes() {
+        Long schoolId = schoolIds.stream().filter(id -> id % SHARDS != 0).findFirst().orElseThrow();
+        int shard = (int) (schoolId % SHARDS);
+
+        schoolService.updateSchool(schoolId, new SchoolDTO("Renamed School", null, null, "Sharjah"));
+        assertEquals("Renamed School", shard(shard).queryForObject("select name from school where id = ?", String.class, schoolId));
+
+        StudentDTO student = studentService.createStudent(newStudent(schoolId, 5));
+        assertThrows(DataIntegrityViolationException.class, () -> schoolService.deleteSchool(schoolId));
+        assertEquals(1, shard(0).queryForObject("select count(*) from school where id = ?", Integer.class, schoolId));
+
+        studentService.deleteStudent(student.getId());
+        schoolService.deleteSchool(schoolId);
+        assertEquals(0, shard(shard).queryForObject("select count(*) from school where id = ?", Integer.class, schoolId));
+        assertNull(schoolService.getSchoolVersion(schoolId));
+    }
+
+    @Test
+    public void testMissingStaleAndLeftoverSchoolCopiesAreRepaired() {
+        Long missing = schoolIds.stream().filter(id -> id % SHARDS == 1).findFirst().orElseThrow();
+        Long stale = schoolIds.stream().filter(id -> id % SHARDS == 2).findFirst().orElseThrow();
+        long leftover = 1_000_000L * SHARDS + 1;
+        shard(1).update("delete from school where id = ?", missing);
+        shard(2).update("update school set name = 'Old Name', version = version - 1 where id = ?", stale);
+        shard(1).update("insert into school (id, name, address, version) values (?, 'Deleted School', 'Dubai', 0)", leftover);
+
+        schoolReplicator.reconcile();
+
+        assertEquals(0, schoolReplicator.unsynced());
+        for (Long schoolId : List.of(missing, stale)) {
+            assertEquals(shard(0).queryForMap("select name, version from school where id = ?", schoolId),
+                    shard((int) (schoolId % SHARDS)).queryForMap("select name, version from school where id = ?", schoolId));
+        }
+        assertEquals(0, shard(1).queryForObject("select count(*) from school where id = ?", Integer.class, leftover));
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.shard(shard));
+    }
+
+    private static StudentDTO newStudent(long schoolId, int i) {
+        return StudentDTO.builder()
+                .studentName("Shard Student " + i)
+                .grade("G" + (i % 10 + 1))
+                .mobileNumber("+97155" + (2_000_000 + i))
+                .schoolId(schoolId)
+                .guardianName("Shard Guardian " + i)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.rak.student.stats;
+
+import com.rak.student.domain.School;
+import com.rak.student.domain.Student;
+import com.rak.student.dto.SchoolStatsDTO;
+import com.rak.student.repository.StudentRepository;
+import com.rak.student.shard.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StudentCountersTest {
+
+    private StudentRepository studentRepository;
+    private StudentCounters counters;
+
+    @BeforeEach
+    public void setup() {
+        studentRepository = mock(StudentRepository.class);
+        counters = new StudentCounters(studentRepository, ShardRouter.unsharded(), mock(PlatformTransactionManager.class));
+        when(studentRepository.countBySchoolAndGrade()).thenReturn(List.of(
+                new SchoolGradeCount(1L, "G1", 3), new SchoolGradeCount(1L, "g10", 2), new SchoolGradeCount(4L, "G5", 7)));
+    }
+
+    @Test
+    public void testRebuildCountsEveryGroup() {
+        counters.rebuild();
+
+        SchoolStatsDTO school = counters.statsOf(1L);
+        assertEquals(5, school.getStudents());
+        assertEquals(3, school.getGrades().get("G1"));
+        assertEquals(2, school.getGrades().get("G10"));
+        assertEquals(0, school.getGrades().get("G5"));
+        assertEquals(List.of("G1", "G2", "G3", "G4", "G5", "G6", "G7", "G8", "G9", "G10"), List.copyOf(school.getGrades().keySet()));
+        assertEquals(List.of(1L, 4L), counters.allStats().stream().map(SchoolStatsDTO::getSchoolId).toList());
+    }
+
+    @Test
+    public void testUnknownSchoolHasNoStudents() {
+        counters.rebuild();
+
+        assertEquals(0, counters.statsOf(1_000L).getStudents());
+        assertEquals(0, counters.statsOf(2L).getStudents());
+    }
+
+    @Test
+    public void testWritesUpdateCounts() {
+        counters.rebuild();
+        School school = new School(9L, "Skiply", null, null, null);
+
+        counters.added(List.of(new Student(1L, "John", "G2", "100000", null, null, school),
+                new Student(2L, "Jane", "G2", "100001", null, null, school)));
+        counters.moved(9L, "G2", 1L, "G1");
+        counters.moved(1L, "G10", 1L, "g10");
+        counters.removed(4L, "G5");
+
+        assertEquals(1, counters.statsOf(9L).getGrades().get("G2"));
+        assertEquals(4, counters.statsOf(1L).getGrades().get("G1"));
+        assertEquals(2, counters.statsOf(1L).getGrades().get("G10"));
+        assertEquals(6, counters.statsOf(4L).getStudents());
+    }
+
+    @Test
+    public void testUnavailableUntilBuilt() {
+        counters.added(List.of(new Student(1L, "John", "G2", "100000", null, null, new School(1L, "Skiply", null, null, null))));
+
+        assertThrows(ResponseStatusException.class, () -> counters.statsOf(1L));
+        counters.rebuild();
+        assertEquals(0, counters.statsOf(1L).getGrades().get("G2"));
+    }
+}
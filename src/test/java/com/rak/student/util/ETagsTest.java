@@ -0,0 +1,38 @@
+package com.rak.student.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ETagsTest {
+
+    @Test
+    public void testEntityETagIsStrongAndQuoted() {
+        assertEquals("\"student-7-2\"", ETags.of("student", 7L, 2));
+    }
+
+    @Test
+    public void testEntityETagCarriesReferencedVersion() {
+        assertEquals("\"student-7-2-5\"", ETags.of("student", 7L, 2, 5));
+    }
+
+    @Test
+    public void testCollectionETagJoinsParts() {
+        assertEquals("\"schools-3-9-4-0-50\"", ETags.ofCollection("schools", 3, 9, 4, 0L, 50));
+    }
+
+    @Test
+    public void testMatches() {
+        String etag = ETags.of("school", 1L, 3);
+
+        assertTrue(ETags.matches("\"school-1-3\"", etag));
+        assertTrue(ETags.matches("W/\"school-1-3\"", etag));
+        assertTrue(ETags.matches("\"school-1-2\", \"school-1-3\"", etag));
+        assertTrue(ETags.matches("*", etag));
+        assertFalse(ETags.matches("\"school-1-2\"", etag));
+        assertFalse(ETags.matches(null, etag));
+        assertFalse(ETags.matches("", etag));
+    }
+}
@@ -0,0 +1,29 @@
+package com.rak.student.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MobileNumbersTest {
+
+    @Test
+    public void testKeyKeepsDigitsOnly() {
+        assertEquals("923001234567", MobileNumbers.key("+92 (300) 123-4567"));
+        assertEquals("923001234567", MobileNumbers.key("+923001234567"));
+        assertEquals("03001234567", MobileNumbers.key("0300 1234567"));
+    }
+
+    @Test
+    public void testKeyDropsInternationalCallPrefix() {
+        assertEquals("923001234567", MobileNumbers.key("0092 300 1234567"));
+        assertEquals("923001234567", MobileNumbers.key(" 00923001234567"));
+    }
+
+    @Test
+    public void testKeyOfNumberWithoutDigitsIsNull() {
+        assertNull(MobileNumbers.key(null));
+        assertNull(MobileNumbers.key(""));
+        assertNull(MobileNumbers.key("n/a"));
+    }
+}